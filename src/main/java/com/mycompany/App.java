@@ -2,7 +2,7 @@ package com.mycompany;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main Application Class - Entry point of the Spring Boot application
@@ -19,7 +19,7 @@ import org.springframework.cache.annotation.EnableCaching;
  * 4. Make your REST API endpoints available
  */
 @SpringBootApplication
-@EnableCaching
+@EnableScheduling
 public class App {
     public static void main(String[] args) {
         SpringApplication.run(App.class, args);
@@ -30,22 +30,27 @@ public class App {
         System.out.println("📡 Server: http://localhost:8080");
         System.out.println("\n📋 Available API Endpoints:");
         System.out.println("   Users:");
-        System.out.println("     GET    /api/users          - Get all users");
+        System.out.println("     GET    /api/users          - List users (paged)");
         System.out.println("     GET    /api/users/{id}      - Get user by ID");
         System.out.println("     POST   /api/users           - Create user");
         System.out.println("     PUT    /api/users/{id}      - Update user");
         System.out.println("     DELETE /api/users/{id}      - Delete user");
         System.out.println("\n   Products:");
-        System.out.println("     GET    /api/products       - Get all products");
+        System.out.println("     GET    /api/products       - List products (paged)");
         System.out.println("     GET    /api/products/{id}   - Get product by ID");
         System.out.println("     POST   /api/products        - Create product");
         System.out.println("     PUT    /api/products/{id}   - Update product");
         System.out.println("     DELETE /api/products/{id}   - Delete product");
         System.out.println("\n   Orders:");
-        System.out.println("     GET    /api/orders          - Get all orders");
+        System.out.println("     GET    /api/orders          - List orders (paged)");
+        System.out.println("     GET    /api/orders/search   - Search orders (paged)");
+        System.out.println("     GET    /api/orders/export   - Stream orders as NDJSON/CSV");
         System.out.println("     GET    /api/orders/{id}     - Get order by ID");
-        System.out.println("     GET    /api/orders/user/{userId} - Get user's orders");
+        System.out.println("     GET    /api/orders/user/{userId} - List user's orders (paged)");
         System.out.println("     POST   /api/orders          - Create order");
+        System.out.println("     POST   /api/orders/batch    - Create many orders");
+        System.out.println("     POST   /api/orders/submissions - Submit order for async creation (202)");
+        System.out.println("     GET    /api/orders/submissions/{id} - Async submission status");
         System.out.println("     PUT    /api/orders/{id}/status - Update order status");
         System.out.println("\n💡 Use Postman or curl to test the API");
         System.out.println("========================================\n");
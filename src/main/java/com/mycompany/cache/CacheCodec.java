@@ -0,0 +1,21 @@
+package com.mycompany.cache;
+
+import java.io.IOException;
+
+/**
+ * CacheCodec - Turns cache values into bytes for the Redis tier and back.
+ *
+ * Each codec has a one-byte id that CacheSerializer writes into the entry
+ * header, so entries written with one codec stay readable after switching
+ * to another.
+ */
+public interface CacheCodec {
+
+    byte id();
+
+    String name();
+
+    byte[] write(Object value) throws IOException;
+
+    <V> V read(byte[] bytes, int offset, int length, Class<V> type) throws IOException;
+}
@@ -0,0 +1,88 @@
+package com.mycompany.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * CacheInvalidationBus - Broadcasts cache evictions to every node over Redis pub/sub.
+ *
+ * Each message is "{node}|{cache}|{keys}" on the cache:invalidate channel, the
+ * keys separated by newlines so a batch of evictions is one message; a key of
+ * "*" clears the whole cache. Nodes skip their own messages, since the evicting
+ * node already dropped its entry. Pub/sub is fire-and-forget: a node that misses a
+ * message (disconnected, restarting) serves its local copy until the local TTL.
+ *
+ * Besides TwoLevelCache, anything holding derived state can listen under its
+ * own name (ProductSearchService does, for its index).
+ */
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String CHANNEL = "cache:invalidate";
+    public static final String ALL_KEYS = "*";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> listeners = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    public void register(TwoLevelCache<?> cache) {
+        register(cache.getName(), cache::evictLocal);
+    }
+
+    /**
+     * @param listener called with each key another node publishes under name
+     */
+    public void register(String name, Consumer<String> listener) {
+        listeners.put(name, listener);
+    }
+
+    public void publish(String cache, String key) {
+        publish(cache, List.of(key));
+    }
+
+    /**
+     * @param keys sent as one message; keys must not contain newlines
+     */
+    public void publish(String cache, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + cache + "|" + String.join("\n", keys));
+        } catch (DataAccessException e) {
+            log.warn("Could not broadcast eviction of {} keys from cache {}; other nodes keep them until they expire",
+                keys.size(), cache, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        Consumer<String> listener = listeners.get(parts[1]);
+        if (listener != null) {
+            for (String key : parts[2].split("\n")) {
+                listener.accept(key);
+            }
+        }
+    }
+}
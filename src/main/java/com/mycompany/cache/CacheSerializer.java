@@ -0,0 +1,167 @@
+package com.mycompany.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * CacheSerializer - Framed, versioned and optionally compressed Redis cache entries.
+ *
+ * Layout:
+ * <pre>
+ *   byte    magic 'C'
+ *   byte    schema version of the cached type
+ *   byte    codec id (see CacheCodec)
+ *   byte    flags: 1 = payload is deflated
+ *   int     original payload length (deflated entries only)
+ *   bytes   payload
+ * </pre>
+ * The schema version is also part of the Redis key (see TwoLevelCache), so
+ * after a class changes shape new nodes read and write new keys while old
+ * entries simply expire; no node ever tries to parse an entry of another
+ * version. The header check is the backstop: a mismatch is a plain miss,
+ * not a Jackson exception per read.
+ */
+public final class CacheSerializer {
+
+    public static final byte MAGIC = 'C';
+
+    private static final int HEADER_LENGTH = 4;
+    private static final byte DEFLATED = 1;
+
+    // Guards the inflate buffer against a corrupt length field
+    private static final int MAX_PAYLOAD_LENGTH = 64 * 1024 * 1024;
+
+    private final CacheCodec writer;
+    private final Map<Byte, CacheCodec> readers = new HashMap<>();
+    private final int schemaVersion;
+    private final int compressThreshold;
+
+    /**
+     * @param writer codec for new entries
+     * @param readers codecs accepted when reading, so a codec switch needs no flush
+     * @param compressThreshold payloads of at least this many bytes are deflated; 0 disables
+     */
+    public CacheSerializer(CacheCodec writer, List<CacheCodec> readers, int schemaVersion, int compressThreshold) {
+        if (schemaVersion < 0 || schemaVersion > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Schema version must be 0-127: " + schemaVersion);
+        }
+        this.writer = writer;
+        this.schemaVersion = schemaVersion;
+        this.compressThreshold = compressThreshold;
+        readers.forEach(codec -> this.readers.put(codec.id(), codec));
+        this.readers.put(writer.id(), writer);
+    }
+
+    /**
+     * @param format "json" or "smile"
+     */
+    public static CacheSerializer of(String format, ObjectMapper objectMapper, int schemaVersion, int compressThreshold) {
+        JacksonCacheCodec json = JacksonCacheCodec.json(objectMapper);
+        JacksonCacheCodec smile = JacksonCacheCodec.smile(objectMapper);
+        CacheCodec writer = switch (format) {
+            case "json" -> json;
+            case "smile" -> smile;
+            default -> throw new IllegalArgumentException("Unknown cache codec: " + format);
+        };
+        return new CacheSerializer(writer, List.of(json, smile), schemaVersion, compressThreshold);
+    }
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public String getCodecName() {
+        return writer.name();
+    }
+
+    public byte[] encode(Object value) throws IOException {
+        byte[] payload = writer.write(value);
+        byte[] deflated = compressThreshold > 0 && payload.length >= compressThreshold ? deflate(payload) : null;
+        // Small or incompressible payloads are stored as they are
+        boolean compressed = deflated != null && deflated.length + Integer.BYTES < payload.length;
+
+        byte[] body = compressed ? deflated : payload;
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_LENGTH + (compressed ? Integer.BYTES : 0) + body.length);
+        entry.put(MAGIC).put((byte) schemaVersion).put(writer.id()).put(compressed ? DEFLATED : 0);
+        if (compressed) {
+            entry.putInt(payload.length);
+        }
+        entry.put(body);
+        return entry.array();
+    }
+
+    /**
+     * @return the value, or null if the entry was written for another schema
+     *         version or with a codec this node does not know
+     * @throws IOException if the entry is corrupt
+     */
+    public <V> V decode(byte[] bytes, Class<V> type) throws IOException {
+        if (bytes.length < HEADER_LENGTH || bytes[0] != MAGIC) {
+            throw new IOException("Not a cache entry");
+        }
+        CacheCodec codec = readers.get(bytes[2]);
+        if (bytes[1] != schemaVersion || codec == null) {
+            return null;
+        }
+        if ((bytes[3] & DEFLATED) == 0) {
+            return codec.read(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, type);
+        }
+        if (bytes.length < HEADER_LENGTH + Integer.BYTES) {
+            throw new IOException("Truncated cache entry");
+        }
+        int length = ByteBuffer.wrap(bytes, HEADER_LENGTH, Integer.BYTES).getInt();
+        int offset = HEADER_LENGTH + Integer.BYTES;
+        byte[] payload = inflate(bytes, offset, bytes.length - offset, length);
+        return codec.read(payload, 0, payload.length, type);
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        // Cache entries are read far more often than written, but writes sit on the miss path
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                out.write(chunk, 0, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int length, int originalLength) throws IOException {
+        if (originalLength < 0 || originalLength > MAX_PAYLOAD_LENGTH) {
+            throw new IOException("Bad cache entry length " + originalLength);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            byte[] payload = new byte[originalLength];
+            int read = 0;
+            while (read < originalLength) {
+                int inflated = inflater.inflate(payload, read, originalLength - read);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Truncated cache entry");
+                }
+                read += inflated;
+            }
+            return payload;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt cache entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
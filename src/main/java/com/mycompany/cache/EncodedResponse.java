@@ -0,0 +1,119 @@
+package com.mycompany.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+/**
+ * EncodedResponse - A JSON response body encoded once and served many times.
+ *
+ * Holds the UTF-8 JSON bytes, a gzipped copy when the body is large enough
+ * to be worth it, and its ETag: either a strong tag per representation
+ * derived from the bytes (the gzip variant's tag carries a "-gz" suffix, as
+ * a different content coding is a different representation), or a given
+ * weak version tag shared by both. render() writes the stored bytes as they are: no Jackson
+ * and no compression on the request path.
+ */
+public final class EncodedResponse {
+
+    private final byte[] body;
+    private final byte[] gzipped;
+    private final String etag;
+    private final String gzipEtag;
+
+    private EncodedResponse(byte[] body, byte[] gzipped, String etag, String gzipEtag) {
+        this.body = body;
+        this.gzipped = gzipped;
+        this.etag = etag;
+        this.gzipEtag = gzipEtag;
+    }
+
+    /**
+     * Strong ETags from the MD5 of the body.
+     *
+     * @param gzipMinBytes bodies of at least this many bytes also get a gzipped copy
+     */
+    public static EncodedResponse of(byte[] body, int gzipMinBytes) {
+        String digest = DigestUtils.md5DigestAsHex(body);
+        return new EncodedResponse(body, gzipIfSmaller(body, gzipMinBytes),
+            "\"" + digest + "\"", "\"" + digest + "-gz\"");
+    }
+
+    /**
+     * @param weakTag e.g. EntityTag.weak(version), used for both representations
+     */
+    public static EncodedResponse of(byte[] body, int gzipMinBytes, String weakTag) {
+        return new EncodedResponse(body, gzipIfSmaller(body, gzipMinBytes), weakTag, weakTag);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzipped() {
+        return gzipped;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 304 if the client already holds either representation, otherwise the
+     * gzipped body when the client accepts it and we have one.
+     */
+    public ResponseEntity<byte[]> render(String ifNoneMatch, String acceptEncoding) {
+        boolean useGzip = gzipped != null && acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(useGzip ? gzipEtag : etag);
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (EntityTag.matches(ifNoneMatch, etag, gzipEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (useGzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return ResponseEntity.ok().headers(headers).body(gzipped);
+        }
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzipIfSmaller(byte[] body, int gzipMinBytes) {
+        if (body.length < gzipMinBytes) {
+            return null;
+        }
+        byte[] gzipped = gzip(body);
+        // Only keep the gzipped copy if it actually saves bytes
+        return gzipped.length < body.length ? gzipped : null;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
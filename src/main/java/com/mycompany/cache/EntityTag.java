@@ -0,0 +1,64 @@
+package com.mycompany.cache;
+
+/**
+ * EntityTag - Formats and compares HTTP entity tags (ETags).
+ *
+ * Version-based tags are weak, W/"<version>": they say "same row version",
+ * not "byte-identical body", which is all a poll or an If-Match needs.
+ */
+public final class EntityTag {
+
+    private EntityTag() {
+    }
+
+    public static String weak(long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison of an If-None-Match / If-Match header (a list of tags or "*")
+     * against our tags; the W/ prefix is ignored on both sides.
+     */
+    public static boolean matches(String header, String... tags) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = opaque(candidate.trim());
+            if (value.equals("*")) {
+                return true;
+            }
+            for (String tag : tags) {
+                if (tag != null && value.equals(opaque(tag))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version named by an If-Match header: W/"3", "3" and 3 all give 3;
+     * "*" (any version) gives null.
+     *
+     * @throws IllegalArgumentException if the header is not a single version tag
+     */
+    public static Long version(String header) {
+        String value = opaque(header.trim());
+        if (value.equals("*")) {
+            return null;
+        }
+        if (value.startsWith("\"") && value.endsWith("\"") && value.length() >= 2) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a version tag: " + header);
+        }
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
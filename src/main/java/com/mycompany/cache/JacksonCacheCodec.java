@@ -0,0 +1,57 @@
+package com.mycompany.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+
+/**
+ * JacksonCacheCodec - Cache values as JSON or as Smile, Jackson's binary JSON.
+ *
+ * Both share the application ObjectMapper's modules and settings. Smile
+ * keeps the JSON data model (so the same classes and annotations apply)
+ * but drops quoting and text numbers, and back-references repeated field
+ * names within a value.
+ */
+public final class JacksonCacheCodec implements CacheCodec {
+
+    public static final byte JSON_ID = 1;
+    public static final byte SMILE_ID = 2;
+
+    private final byte id;
+    private final String name;
+    private final ObjectMapper mapper;
+
+    private JacksonCacheCodec(byte id, String name, ObjectMapper mapper) {
+        this.id = id;
+        this.name = name;
+        this.mapper = mapper;
+    }
+
+    public static JacksonCacheCodec json(ObjectMapper objectMapper) {
+        return new JacksonCacheCodec(JSON_ID, "json", objectMapper);
+    }
+
+    public static JacksonCacheCodec smile(ObjectMapper objectMapper) {
+        return new JacksonCacheCodec(SMILE_ID, "smile", objectMapper.copyWith(new SmileFactory()));
+    }
+
+    @Override
+    public byte id() {
+        return id;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public byte[] write(Object value) throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <V> V read(byte[] bytes, int offset, int length, Class<V> type) throws IOException {
+        return mapper.readValue(bytes, offset, length, type);
+    }
+}
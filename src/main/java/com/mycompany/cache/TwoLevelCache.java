@@ -0,0 +1,675 @@
+package com.mycompany.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mycompany.service.OrderMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * TwoLevelCache - In-process Caffeine near-cache in front of a shared Redis tier.
+ *
+ * Reads go local -> Redis -> loader and fill the tiers on the way back. Local
+ * entries live for a short TTL so a missed invalidation heals quickly; Redis
+ * entries live longer and are shared by every node. evict() removes an entry
+ * from both tiers and broadcasts it through CacheInvalidationBus so the other
+ * nodes drop their local copy; evictAll(keys) does the same for a batch with
+ * one script call and one message. The local tier is cleared at once, the
+ * Redis and broadcast part can be handed to an eviction executor so callers
+ * do not wait on Redis. Redis failures count as misses: the cache degrades to
+ * local-only instead of failing the request.
+ *
+ * Stampede protection, so an eviction or expiry of a hot key costs one load
+ * per node instead of one per request:
+ * - single-flight: concurrent misses for a key share one in-flight load
+ * - refresh-ahead (XFetch): a hit shortly before expiry may reload the entry
+ *   in the background, with a probability that rises as expiry approaches
+ *   and with how long the last load took
+ * - stale-while-revalidate: for staleTtl after expiry the old value is still
+ *   served while one background load replaces it
+ * Only expiry is softened; evict() still drops the entry at once.
+ *
+ * A load must not put back what an eviction removed, on this node or any
+ * other. Every key has a generation in Redis (cache:{name}:gen:{key}, plus
+ * cache:{name}:gen for evictAll()) that evict() increments before it deletes
+ * the value. A load reads the generations together with the values, before
+ * calling the loader, and writes back with a script that only sets keys whose
+ * generation is unchanged. Locally the same is done with striped counters,
+ * so an eviction only holds back loads of keys in its stripe.
+ *
+ * Values are stored in Redis by a CacheSerializer (JSON or Smile, deflated
+ * when large) under cache:{name}:v{schemaVersion}:{key}. Null means "not
+ * found" and is never cached.
+ */
+public class TwoLevelCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    public static final String TIER_LOCAL = "local";
+    public static final String TIER_REDIS = "redis";
+
+    // XFetch beta: 1.0 is the recommended default, >1 refreshes earlier
+    private static final double REFRESH_BETA = 1.0;
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    // KEYS: whole-cache generation, then value key and generation key per entry;
+    // ARGV: TTL in ms, whole-cache generation seen, then value and generation seen per entry
+    private static final RedisScript<Long> WRITE_IF_UNCHANGED = RedisScript.of(
+        "if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[2] then return 0 end\n"
+            + "local written = 0\n"
+            + "for i = 2, #KEYS, 2 do\n"
+            + "  if (redis.call('GET', KEYS[i + 1]) or '0') == ARGV[i + 2] then\n"
+            + "    redis.call('SET', KEYS[i], ARGV[i + 1], 'PX', ARGV[1])\n"
+            + "    written = written + 1\n"
+            + "  end\n"
+            + "end\n"
+            + "return written", Long.class);
+
+    // KEYS: generation key and value key per entry; ARGV: generation TTL in ms
+    private static final RedisScript<Long> EVICT = RedisScript.of(
+        "local deleted = 0\n"
+            + "for i = 1, #KEYS, 2 do\n"
+            + "  redis.call('INCR', KEYS[i])\n"
+            + "  redis.call('PEXPIRE', KEYS[i], ARGV[1])\n"
+            + "  deleted = deleted + redis.call('DEL', KEYS[i + 1])\n"
+            + "end\n"
+            + "return deleted", Long.class);
+
+    private final String name;
+    private final String keyPrefix;
+    private final String generationKey;
+    private final Class<V> type;
+    private final Cache<String, Entry<V>> local;
+    private final Duration localTtl;
+    private final RedisTemplate<String, byte[]> redis;
+    private final Duration redisTtl;
+    private final CacheSerializer serializer;
+    private final CacheInvalidationBus invalidationBus;
+    private final Executor refreshExecutor;
+    private final Executor evictionExecutor;
+    private final OrderMetrics metrics;
+
+    // One load per key at a time; late arrivals wait on the same future
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Caches derived from this one, told about every eviction here or from another node
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    // Bumped by every invalidation of a key in the stripe (or of every key); a
+    // load that overlapped one is not cached, so a reader can never put back
+    // the row an evict() just removed
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong allKeysGeneration = new AtomicLong();
+
+    /**
+     * Values found in Redis and the generations read with them; generations
+     * is null when Redis could not be read, and then nothing is written back.
+     */
+    private static final class RedisRead<V> {
+        private final Map<String, V> values = new LinkedHashMap<>();
+        private Map<String, String> generations;
+        private String allKeysGeneration;
+    }
+
+    /**
+     * A local value with the time it stops being fresh and the cost of loading it.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long freshUntilNanos;
+        private final long loadNanos;
+
+        private Entry(V value, long freshUntilNanos, long loadNanos) {
+            this.value = value;
+            this.freshUntilNanos = freshUntilNanos;
+            this.loadNanos = loadNanos;
+        }
+    }
+
+    /**
+     * @param staleTtl how long past localTtl an entry may be served while it is reloaded
+     * @param redis null for a local-only cache
+     * @param invalidationBus null to skip cross-node invalidation
+     * @param refreshExecutor runs background reloads; null disables refresh-ahead
+     *                        and stale serving, so expired entries reload inline
+     * @param evictionExecutor runs the Redis script and broadcast of evictions;
+     *                         null runs them on the evicting thread
+     */
+    public TwoLevelCache(String name, Class<V> type, long localMaxSize, Duration localTtl, Duration staleTtl,
+                         Duration redisTtl, RedisTemplate<String, byte[]> redis, CacheSerializer serializer,
+                         CacheInvalidationBus invalidationBus, Executor refreshExecutor, Executor evictionExecutor,
+                         OrderMetrics metrics) {
+        this.name = name;
+        this.keyPrefix = "cache:" + name + ":v" + serializer.getSchemaVersion() + ":";
+        this.generationKey = "cache:" + name + ":gen";
+        this.type = type;
+        this.localTtl = localTtl;
+        this.redis = redis;
+        this.redisTtl = redisTtl;
+        this.serializer = serializer;
+        this.invalidationBus = invalidationBus;
+        this.refreshExecutor = refreshExecutor;
+        this.evictionExecutor = evictionExecutor;
+        this.metrics = metrics;
+        this.local = Caffeine.newBuilder()
+            .maximumSize(localMaxSize)
+            .expireAfterWrite(refreshExecutor == null ? localTtl : localTtl.plus(staleTtl))
+            .removalListener((String key, Entry<V> entry, RemovalCause cause) -> {
+                if (cause.wasEvicted()) {
+                    metrics.incrementCacheEvictions(name, TIER_LOCAL, cause == RemovalCause.SIZE ? "size" : "expired");
+                }
+            })
+            .build();
+        metrics.registerCache(name, local::estimatedSize);
+        if (invalidationBus != null) {
+            invalidationBus.register(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param listener called with the evicted key, or CacheInvalidationBus.ALL_KEYS,
+     *                 after the local entry is gone
+     */
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * @return the cached or loaded value, or null if the loader found nothing
+     */
+    public V get(String key, Supplier<V> loader) {
+        Entry<V> entry = local.getIfPresent(key);
+        long now = System.nanoTime();
+        if (entry != null && (refreshExecutor != null || now < entry.freshUntilNanos)) {
+            metrics.recordCacheRequest(name, TIER_LOCAL, true);
+            if (now >= entry.freshUntilNanos) {
+                refreshInBackground(List.of(key), "stale", keys -> single(keys, loader));
+            } else if (refreshEarly(entry, now)) {
+                refreshInBackground(List.of(key), "early", keys -> single(keys, loader));
+            }
+            return entry.value;
+        }
+        metrics.recordCacheRequest(name, TIER_LOCAL, false);
+        return load(key, loader);
+    }
+
+    /**
+     * Lookup without a loader, for values that are written explicitly with put().
+     * Fills the local tier from Redis; no refresh-ahead.
+     *
+     * @return the cached value, or null
+     */
+    public V getIfPresent(String key) {
+        Entry<V> entry = local.getIfPresent(key);
+        metrics.recordCacheRequest(name, TIER_LOCAL, entry != null);
+        if (entry != null) {
+            return entry.value;
+        }
+        long seen = generation(key);
+        V value = readRedis(key);
+        if (value != null && generation(key) == seen) {
+            putLocal(Map.of(key, value), 0);
+        }
+        return value;
+    }
+
+    /**
+     * Writes a value to both tiers, unconditionally.
+     */
+    public void put(String key, V value) {
+        writeRedis(Map.of(key, value), null);
+        putLocal(Map.of(key, value), 0);
+    }
+
+    /**
+     * Bulk form of get(): one local lookup, one Redis MGET and one loader call
+     * for whatever is still missing and not already being loaded by another
+     * request. Keys the loader does not return are absent from the result.
+     */
+    public Map<String, V> getAll(List<String> keys, Function<List<String>, Map<String, V>> loader) {
+        Map<String, Entry<V>> present = local.getAllPresent(keys);
+        Map<String, V> found = new HashMap<>();
+        List<String> stale = new ArrayList<>();
+        List<String> early = new ArrayList<>();
+        long now = System.nanoTime();
+        present.forEach((key, entry) -> {
+            if (refreshExecutor == null && now >= entry.freshUntilNanos) {
+                return;
+            }
+            found.put(key, entry.value);
+            if (now >= entry.freshUntilNanos) {
+                stale.add(key);
+            } else if (refreshEarly(entry, now)) {
+                early.add(key);
+            }
+        });
+        keys.forEach(key -> metrics.recordCacheRequest(name, TIER_LOCAL, found.containsKey(key)));
+        refreshInBackground(stale, "stale", loader);
+        refreshInBackground(early, "early", loader);
+
+        List<String> missing = keys.stream().filter(key -> !found.containsKey(key)).distinct().toList();
+        if (!missing.isEmpty()) {
+            found.putAll(loadAll(missing, loader));
+        }
+        return found;
+    }
+
+    /**
+     * Removes the entry from both tiers and tells every other node to drop it.
+     */
+    public void evict(String key) {
+        evictAll(List.of(key));
+    }
+
+    /**
+     * Removes the entries from both tiers and tells every other node to drop
+     * them, with one Redis script call and one broadcast for the whole batch.
+     * The local tier is cleared before this returns; Redis and the broadcast
+     * follow on the eviction executor.
+     */
+    public void evictAll(Collection<String> keys) {
+        List<String> evicted = keys.stream().distinct().toList();
+        if (evicted.isEmpty()) {
+            return;
+        }
+        dropLocal(evicted);
+        evicted.forEach(key -> metrics.incrementCacheEvictions(name, TIER_LOCAL, "invalidated"));
+        if (redis == null && invalidationBus == null) {
+            return;
+        }
+        if (evictionExecutor == null) {
+            evictShared(evicted);
+            return;
+        }
+        try {
+            evictionExecutor.execute(() -> evictShared(evicted));
+        } catch (RejectedExecutionException e) {
+            evictShared(evicted);
+        }
+    }
+
+    /**
+     * Removes every entry from both tiers and tells every other node to do the same.
+     */
+    public void evictAll() {
+        allKeysGeneration.incrementAndGet();
+        inFlight.clear();
+        if (redis != null) {
+            ScanOptions options = ScanOptions.scanOptions().match(keyPrefix + "*").count(1000).build();
+            List<String> keys = new ArrayList<>();
+            try {
+                // Loads that started before this can no longer write back, whatever the key
+                redis.opsForValue().increment(generationKey);
+            } catch (DataAccessException e) {
+                log.warn("Could not advance the generation of Redis cache {}", name, e);
+            }
+            try (Cursor<String> cursor = redis.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+                if (!keys.isEmpty()) {
+                    redis.delete(keys);
+                }
+                metrics.incrementCacheEvictions(name, TIER_REDIS, "invalidated");
+            } catch (DataAccessException e) {
+                log.warn("Could not clear Redis cache {}; entries expire within {}", name, redisTtl, e);
+            }
+        }
+        allKeysGeneration.incrementAndGet();
+        local.invalidateAll();
+        metrics.incrementCacheEvictions(name, TIER_LOCAL, "invalidated");
+        evictionListeners.forEach(listener -> listener.accept(CacheInvalidationBus.ALL_KEYS));
+        if (invalidationBus != null) {
+            invalidationBus.publish(name, CacheInvalidationBus.ALL_KEYS);
+        }
+    }
+
+    // Bumps the generations first: requests from now on must not join or keep a load that may have read the old row
+    private void dropLocal(List<String> keys) {
+        keys.forEach(key -> {
+            generations.incrementAndGet(stripe(key));
+            inFlight.remove(key);
+            local.invalidate(key);
+        });
+        keys.forEach(key -> evictionListeners.forEach(listener -> listener.accept(key)));
+    }
+
+    private void evictShared(List<String> keys) {
+        if (redis != null) {
+            List<String> redisKeys = new ArrayList<>(keys.size() * 2);
+            keys.forEach(key -> {
+                redisKeys.add(generationKey + ":" + key);
+                redisKeys.add(keyPrefix + key);
+            });
+            try {
+                // Generation first: a load on any node that read the old row can no longer write it back
+                redis.execute(EVICT, redisKeys, bytes(redisTtl.toMillis()));
+                keys.forEach(key -> metrics.incrementCacheEvictions(name, TIER_REDIS, "invalidated"));
+            } catch (DataAccessException e) {
+                log.warn("Could not evict {} keys from Redis cache {}; they expire within {}", keys.size(), name, redisTtl, e);
+            }
+            // Again: a load here that read the old Redis entry since the first drop is not kept
+            dropLocal(keys);
+        }
+        if (invalidationBus != null) {
+            invalidationBus.publish(name, keys);
+        }
+    }
+
+    /**
+     * Drops a local entry (or all of them) on behalf of another node.
+     */
+    void evictLocal(String key) {
+        if (CacheInvalidationBus.ALL_KEYS.equals(key)) {
+            allKeysGeneration.incrementAndGet();
+            inFlight.clear();
+            local.invalidateAll();
+        } else {
+            generations.incrementAndGet(stripe(key));
+            inFlight.remove(key);
+            local.invalidate(key);
+        }
+        metrics.incrementCacheEvictions(name, TIER_LOCAL, "remote");
+        evictionListeners.forEach(listener -> listener.accept(key));
+    }
+
+    /**
+     * XFetch: refresh when now - loadTime * beta * ln(rand) passes the expiry,
+     * i.e. earlier for entries that are expensive to load.
+     */
+    private boolean refreshEarly(Entry<V> entry, long now) {
+        if (refreshExecutor == null) {
+            return false;
+        }
+        double gap = -entry.loadNanos * REFRESH_BETA * Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return now + gap >= entry.freshUntilNanos;
+    }
+
+    private void refreshInBackground(List<String> keys, String trigger,
+                                     Function<List<String>, Map<String, V>> loader) {
+        List<String> idle = keys.stream().filter(key -> !inFlight.containsKey(key)).toList();
+        if (refreshExecutor == null || idle.isEmpty()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadAll(idle, loader);
+                    metrics.incrementCacheRefreshes(name, trigger, idle.size());
+                } catch (RuntimeException e) {
+                    log.warn("Background refresh of {} keys in cache {} failed", idle.size(), name, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Refresh pool saturated: keep serving; a later read schedules it again
+        }
+    }
+
+    private V load(String key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            metrics.incrementCacheCoalescedLoads(name, 1);
+            return await(running);
+        }
+        try {
+            V value = readThrough(key, loader);
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Map<String, V> loadAll(List<String> keys, Function<List<String>, Map<String, V>> loader) {
+        Map<String, CompletableFuture<V>> mine = new LinkedHashMap<>();
+        Map<String, CompletableFuture<V>> theirs = new LinkedHashMap<>();
+        for (String key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+            if (running == null) {
+                mine.put(key, future);
+            } else {
+                theirs.put(key, running);
+            }
+        }
+
+        Map<String, V> found = new HashMap<>();
+        try {
+            if (!mine.isEmpty()) {
+                found.putAll(readThrough(new ArrayList<>(mine.keySet()), loader));
+            }
+            // Not returned by the loader: waiters see null, i.e. not found
+            mine.forEach((key, future) -> future.complete(found.get(key)));
+        } catch (Throwable e) {
+            mine.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        } finally {
+            mine.forEach(inFlight::remove);
+        }
+
+        if (!theirs.isEmpty()) {
+            metrics.incrementCacheCoalescedLoads(name, theirs.size());
+            theirs.forEach((key, future) -> {
+                V value = await(future);
+                if (value != null) {
+                    found.put(key, value);
+                }
+            });
+        }
+        return found;
+    }
+
+    private V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            // The leader's exception, unwrapped so waiters fail the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private V readThrough(String key, Supplier<V> loader) {
+        return readThrough(List.of(key), keys -> single(keys, loader)).get(key);
+    }
+
+    private Map<String, V> readThrough(List<String> keys, Function<List<String>, Map<String, V>> loader) {
+        Map<String, Long> seen = new HashMap<>();
+        keys.forEach(key -> seen.put(key, generation(key)));
+        long start = System.nanoTime();
+        RedisRead<V> fromRedis = readRedis(keys);
+        List<String> stillMissing = keys.stream().filter(key -> !fromRedis.values.containsKey(key)).toList();
+        Map<String, V> loaded = stillMissing.isEmpty() ? Map.of() : loader.apply(stillMissing);
+
+        if (fromRedis.generations != null) {
+            writeRedis(unchanged(loaded, seen), fromRedis);
+        }
+        long loadNanos = System.nanoTime() - start;
+        putLocal(unchanged(fromRedis.values, seen), loadNanos);
+        putLocal(unchanged(loaded, seen), loadNanos);
+        Map<String, V> found = new HashMap<>(fromRedis.values);
+        found.putAll(loaded);
+        return found;
+    }
+
+    // The values whose key was not invalidated on this node since seen was taken
+    private Map<String, V> unchanged(Map<String, V> values, Map<String, Long> seen) {
+        Map<String, V> kept = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (generation(key) == seen.get(key)) {
+                kept.put(key, value);
+            }
+        });
+        return kept;
+    }
+
+    private long generation(String key) {
+        // Both only grow, so the sum changes whenever either does
+        return generations.get(stripe(key)) + allKeysGeneration.get();
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private void putLocal(Map<String, V> values, long loadNanos) {
+        long freshUntil = System.nanoTime() + localTtl.toNanos();
+        values.forEach((key, value) -> local.put(key, new Entry<>(value, freshUntil, loadNanos)));
+    }
+
+    private static <V> Map<String, V> single(List<String> keys, Supplier<V> loader) {
+        V value = loader.get();
+        return value == null ? Map.of() : Map.of(keys.get(0), value);
+    }
+
+    private V readRedis(String key) {
+        if (redis == null) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = redis.opsForValue().get(keyPrefix + key);
+        } catch (DataAccessException e) {
+            log.warn("Redis cache {} unavailable, reading through", name, e);
+            return null;
+        }
+        V value = decode(key, bytes);
+        metrics.recordCacheRequest(name, TIER_REDIS, value != null);
+        return value;
+    }
+
+    // One MGET for the values, their generations and the whole-cache generation
+    private RedisRead<V> readRedis(List<String> keys) {
+        RedisRead<V> read = new RedisRead<>();
+        if (redis == null) {
+            return read;
+        }
+        List<String> redisKeys = new ArrayList<>(keys.size() * 2 + 1);
+        keys.forEach(key -> redisKeys.add(keyPrefix + key));
+        keys.forEach(key -> redisKeys.add(generationKey + ":" + key));
+        redisKeys.add(generationKey);
+        List<byte[]> values;
+        try {
+            values = redis.opsForValue().multiGet(redisKeys);
+        } catch (DataAccessException e) {
+            log.warn("Redis cache {} unavailable, reading through", name, e);
+            return read;
+        }
+        if (values == null) {
+            return read;
+        }
+        read.generations = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            V value = decode(keys.get(i), values.get(i));
+            metrics.recordCacheRequest(name, TIER_REDIS, value != null);
+            if (value != null) {
+                read.values.put(keys.get(i), value);
+            }
+            read.generations.put(keys.get(i), generation(values.get(keys.size() + i)));
+        }
+        read.allKeysGeneration = generation(values.get(keys.size() * 2));
+        return read;
+    }
+
+    /**
+     * Writes entries to Redis with the TTL. With the generations of a
+     * RedisRead, a key is only written if no evict() has moved its generation
+     * (or the whole cache's) since they were read; with null, unconditionally.
+     */
+    private void writeRedis(Map<String, V> entries, RedisRead<V> seen) {
+        if (redis == null || entries.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        keys.add(generationKey);
+        args.add(bytes(redisTtl.toMillis()));
+        args.add(bytes(seen == null ? null : seen.allKeysGeneration));
+        entries.forEach((key, value) -> {
+            try {
+                byte[] encoded = serializer.encode(value);
+                keys.add(keyPrefix + key);
+                keys.add(generationKey + ":" + key);
+                args.add(encoded);
+                args.add(bytes(seen == null ? null : seen.generations.get(key)));
+            } catch (IOException e) {
+                log.warn("Could not serialize {} for Redis cache {}", key, name, e);
+            }
+        });
+        if (keys.size() == 1) {
+            return;
+        }
+        try {
+            if (seen == null) {
+                for (int i = 1; i < keys.size(); i += 2) {
+                    redis.opsForValue().set(keys.get(i), (byte[]) args.get(i + 1), redisTtl);
+                }
+            } else {
+                // One round trip for the whole batch, checked and written atomically
+                redis.execute(WRITE_IF_UNCHANGED, keys, args.toArray());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not write {} entries to Redis cache {}", keys.size() / 2, name, e);
+        }
+    }
+
+    private static String generation(byte[] stored) {
+        return stored == null ? "0" : new String(stored, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private V decode(String key, byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return serializer.decode(bytes, type);
+        } catch (IOException e) {
+            // Corrupt or not written by this cache; treat as a miss and let the loader replace it
+            log.warn("Unreadable entry {} in Redis cache {}", key, name, e);
+            return null;
+        }
+    }
+}
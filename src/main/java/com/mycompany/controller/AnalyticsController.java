@@ -0,0 +1,140 @@
+package com.mycompany.controller;
+
+import com.mycompany.dto.response.DailySalesResponse;
+import com.mycompany.dto.response.ProductSalesResponse;
+import com.mycompany.dto.response.SalesRebuildResponse;
+import com.mycompany.service.PageCursor;
+import com.mycompany.service.SalesRebuild;
+import com.mycompany.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * AnalyticsController - REST API endpoints for sales reporting
+ *
+ * - GET /api/analytics/sales/daily?from=&to= - Revenue, units and orders per day
+ * - GET /api/analytics/sales/products?from=&to=&limit= - Products by revenue
+ * - GET /api/analytics/sales/products/{productId}/daily?from=&to= - One product per day
+ * - POST /api/analytics/sales/rebuild?from=&to= - Start recomputing the rollups from orders (202)
+ * - GET /api/analytics/sales/rebuild - State of the running or last rebuild
+ *
+ * Reads touch only the rollup tables (see SalesRollupService), never orders.
+ * Dates are ISO (2024-03-01) and inclusive; without them a read covers the
+ * last 30 days. Cancelled orders are not counted.
+ */
+@RestController
+@RequestMapping("/api/analytics/sales")
+public class AnalyticsController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    // Longest range one read may cover
+    private static final int MAX_RANGE_DAYS = 366;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    /**
+     * GET /api/analytics/sales/daily?from=2024-03-01&to=2024-03-31
+     * Returns the totals of each day with sales, in date order
+     * Returns 400 if from is after to or the range is longer than a year
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySalesResponse>> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (!isValidRange(start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesRollupService.getDailySales(start, end));
+    }
+
+    /**
+     * GET /api/analytics/sales/products?from=2024-03-01&to=2024-03-31&limit=20
+     * Returns the products with the highest revenue over the range, best first
+     * Returns 400 if from is after to or the range is longer than a year
+     */
+    @GetMapping("/products")
+    public ResponseEntity<List<ProductSalesResponse>> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (!isValidRange(start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesRollupService.getTopProducts(start, end, PageCursor.pageSize(limit)));
+    }
+
+    /**
+     * GET /api/analytics/sales/products/{productId}/daily?from=2024-03-01&to=2024-03-31
+     * Returns one product's totals for each day it sold, in date order
+     * Returns 400 if from is after to or the range is longer than a year
+     */
+    @GetMapping("/products/{productId}/daily")
+    public ResponseEntity<List<DailySalesResponse>> getProductDailySales(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (!isValidRange(start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesRollupService.getProductDailySales(productId, start, end));
+    }
+
+    /**
+     * POST /api/analytics/sales/rebuild?from=2024-01-01&to=2024-03-31
+     * Starts recomputing the rollups of the range from orders, in parallel chunks
+     * of days, and returns 202 at once; poll GET /api/analytics/sales/rebuild
+     * Returns 400 if from is after to, the range reaches today or is too long
+     * Returns 409 while another rebuild is running
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<SalesRebuildResponse> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Optional<SalesRebuild> rebuild;
+        try {
+            rebuild = salesRollupService.startRebuild(from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return rebuild.map(started -> ResponseEntity.accepted()
+                .location(URI.create("/api/analytics/sales/rebuild"))
+                .body(toRebuildResponse(started)))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * GET /api/analytics/sales/rebuild
+     * Returns the running or last rebuild (RUNNING, DONE or FAILED)
+     * Returns 404 if none ran since startup
+     */
+    @GetMapping("/rebuild")
+    public ResponseEntity<SalesRebuildResponse> getRebuild() {
+        return salesRollupService.getRebuild()
+            .map(rebuild -> ResponseEntity.ok(toRebuildResponse(rebuild)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static SalesRebuildResponse toRebuildResponse(SalesRebuild rebuild) {
+        return new SalesRebuildResponse(rebuild.getFrom(), rebuild.getTo(), rebuild.getChunks(),
+            rebuild.getStatus().name(), rebuild.getStartedAt(), rebuild.getElapsedMillis(), rebuild.getError());
+    }
+
+    private static boolean isValidRange(LocalDate from, LocalDate to) {
+        return !from.isAfter(to) && ChronoUnit.DAYS.between(from, to) < MAX_RANGE_DAYS;
+    }
+}
@@ -1,29 +1,68 @@
 package com.mycompany.controller;
 
+import com.mycompany.cache.EntityTag;
 import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderSearchRequest;
+import com.mycompany.dto.response.BatchOrderResult;
+import com.mycompany.dto.response.CursorPage;
 import com.mycompany.dto.response.OrderItemResponse;
 import com.mycompany.dto.response.OrderResponse;
+import com.mycompany.dto.response.OrderSearchResponse;
+import com.mycompany.dto.response.OrderSubmissionResponse;
 import com.mycompany.dto.request.UpdateStatusRequest;
 import com.mycompany.model.Order;
 import com.mycompany.model.OrderItem;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.service.IdempotencyConflictException;
+import com.mycompany.service.IdempotencyKeyReusedException;
+import com.mycompany.service.IdempotencyService;
+import com.mycompany.service.OrderExportService;
+import com.mycompany.service.OrderSearchService;
 import com.mycompany.service.OrderService;
+import com.mycompany.service.OrderSubmission;
+import com.mycompany.service.OrderSubmissionService;
+import com.mycompany.service.PageCursor;
+import com.mycompany.service.TerminalOrderCache;
+import com.mycompany.service.TerminalOrderException;
+import com.mycompany.service.VersionConflictException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * OrderController - REST API endpoints for Order operations
  * 
  * This controller handles HTTP requests for order management:
- * - GET /api/orders - Get all orders
+ * - GET /api/orders?limit=&cursor= - Get a page of orders, newest first
+ * - GET /api/orders/search - Filter orders by status, dates, total and user (paged)
+ * - GET /api/orders/export - Stream all matching orders as NDJSON or CSV
  * - GET /api/orders/{id} - Get a specific order
- * - GET /api/orders/user/{userId} - Get all orders for a user
+ * - GET /api/orders/user/{userId}?limit=&cursor= - Get a page of a user's orders
  * - POST /api/orders - Create a new order
+ * - POST /api/orders/batch - Create many orders in one request
+ * - POST /api/orders/submissions - Accept an order for background creation (202)
+ * - GET /api/orders/submissions/{id} - Outcome of a background submission
  * - PUT /api/orders/{id}/status - Update order status
+ *
+ * GET /api/orders/{id} carries a weak ETag of the order's row version:
+ * If-None-Match is answered with 304 from a version-only lookup, and
+ * If-Match on the status update gives optimistic concurrency (412).
+ * DELIVERED and CANCELLED orders never change, so they are served from
+ * TerminalOrderCache with Cache-Control: immutable.
  */
 @RestController
 @RequestMapping("/api/orders")
@@ -33,38 +72,142 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    @Autowired
+    private TerminalOrderCache terminalOrderCache;
+
+    // Private by default: orders are per-user data behind a bearer token, so only
+    // set public when the CDN in front keys on or checks Authorization
+    @Value("${orders.terminal-cache.cache-control:private, max-age=31536000, immutable}")
+    private String terminalCacheControl = "private, max-age=31536000, immutable";
+
+    // Largest list accepted by POST /api/orders/batch
+    @Value("${orders.batch.max-size:5000}")
+    private int batchMaxSize;
+
     /**
-     * GET /api/orders
-     * Returns all orders in the database
+     * GET /api/orders?limit=50&cursor=...
+     * Returns one page of orders, newest first, plus the cursor of the next page
+     * Returns 400 if the cursor is not one we issued
      */
     @GetMapping
-    public List<OrderResponse> getAllOrders() {
-        return orderService.getAllOrders().stream()
-            .map(this::toOrderResponse)
-            .toList();
+    public CursorPage<OrderResponse> getAllOrders(@RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) String cursor) {
+        int size = PageCursor.pageSize(limit);
+        List<Order> rows = orderService.getOrders(PageCursor.forOrders(cursor), size + 1);
+        return CursorPage.of(rows, size, this::toOrderResponse, o -> PageCursor.encode(o.getOrderDate(), o.getId()));
+    }
+
+    /**
+     * GET /api/orders/search?status=PENDING&status=CONFIRMED&from=2024-01-01&to=2024-01-31&minTotal=10&maxTotal=500&userId=1&limit=50&cursor=...
+     * Returns one page of orders matching every given filter, newest first.
+     * The first page also carries the total (estimated for very large results).
+     * Returns 400 for an empty range or a cursor we did not issue
+     */
+    @GetMapping("/search")
+    public ResponseEntity<OrderSearchResponse> searchOrders(@ModelAttribute OrderSearchRequest filter,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String cursor) {
+        if (!filter.isValid()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int size = PageCursor.pageSize(limit);
+        OrderSearchService.Result result = orderSearchService.search(filter, PageCursor.forOrders(cursor), size + 1);
+        CursorPage<OrderResponse> page = CursorPage.of(result.getOrders(), size, this::toOrderResponse,
+            o -> PageCursor.encode(o.getOrderDate(), o.getId()));
+        return ResponseEntity.ok(new OrderSearchResponse(page.getItems(), page.getNextCursor(),
+            result.getTotal(), result.isTotalEstimated()));
+    }
+
+    /**
+     * GET /api/orders/export?format=ndjson|csv&status=PENDING&status=SHIPPED&from=2024-01-01&to=2024-01-31
+     * Streams every matching order, one line each, while rows are read from the database.
+     * All filters are optional; from and to are inclusive days.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) List<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> orderExportService.export(exportFormat, status, from, to, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.extension() + "\"")
+            .body(body);
     }
 
     /**
      * GET /api/orders/{id}
-     * Returns a specific order by ID
+     * Returns a specific order by ID, with ETag W/"<version>"
+     * Returns 304 if If-None-Match names the current version (order and lines are not loaded)
      * Returns 404 if order not found
+     * DELIVERED and CANCELLED orders come from TerminalOrderCache and carry Cache-Control: immutable
      */
     @GetMapping("/{id}")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<TerminalOrderCache.CachedOrder> terminal = terminalOrderCache.get(id);
+        if (terminal.isPresent()) {
+            return terminalResponse(terminal.get(), ifNoneMatch);
+        }
+        if (ifNoneMatch != null) {
+            Optional<Long> version = orderService.getOrderVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = EntityTag.weak(version.get());
+            if (EntityTag.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         Optional<Order> order = orderService.getOrderById(id);
-        
-        return order.map(value -> ResponseEntity.ok(toOrderResponse(value)))
-            .orElseGet(() -> ResponseEntity.notFound().build());
+        if (order.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Order value = order.get();
+        OrderResponse response = toOrderResponse(value);
+        if (value.getStatus().isTerminal()) {
+            TerminalOrderCache.CachedOrder cached = new TerminalOrderCache.CachedOrder(response, value.getVersion());
+            terminalOrderCache.put(response, value.getVersion());
+            return terminalResponse(cached, ifNoneMatch);
+        }
+        return ResponseEntity.ok().eTag(EntityTag.weak(value.getVersion())).body(response);
     }
 
     /**
-     * GET /api/orders/user/{userId}
-     * Returns all orders for a specific user
+     * GET /api/orders/user/{userId}?limit=50&cursor=...
+     * Returns one page of a user's orders, newest first
+     * Returns 404 if user not found
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderResponse>> getOrdersByUser(@PathVariable Long userId) {
-        Optional<List<Order>> orders = orderService.getOrdersByUser(userId);
-        return orders.map(value -> ResponseEntity.ok(value.stream().map(this::toOrderResponse).toList()))
+    public ResponseEntity<CursorPage<OrderResponse>> getOrdersByUser(@PathVariable Long userId,
+                                                                     @RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false) String cursor) {
+        int size = PageCursor.pageSize(limit);
+        Optional<List<Order>> orders = orderService.getOrdersByUser(userId, PageCursor.forOrders(cursor), size + 1);
+        return orders.map(rows -> ResponseEntity.ok(CursorPage.of(rows, size, this::toOrderResponse,
+                o -> PageCursor.encode(o.getOrderDate(), o.getId()))))
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -79,28 +222,156 @@ public class OrderController {
      *     {"productId": 2, "quantity": 1}
      *   ]
      * }
+     * With an Idempotency-Key header, a retried request returns the order
+     * created by the first attempt (Idempotent-Replayed: true) instead of
+     * creating another one. Returns 422 if the key was first used with a
+     * different request body.
+     * Returns 429 when group commit is on and its queue is full.
      */
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@RequestBody CreateOrderRequest request) {
-        Optional<Order> savedOrder = orderService.createOrder(request);
+    public ResponseEntity<OrderResponse> createOrder(
+            @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            return createOrderIdempotently(request, idempotencyKey);
+        }
+        Optional<Order> savedOrder;
+        try {
+            savedOrder = orderService.createOrder(request);
+        } catch (RejectedExecutionException e) {
+            // Group commit queue is full
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").build();
+        }
         if (savedOrder.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
         return ResponseEntity.status(HttpStatus.CREATED).body(toOrderResponse(savedOrder.get()));
     }
 
+    /**
+     * POST /api/orders/batch
+     * Creates many orders in one request (e.g. marketplace replays).
+     * Orders are written in chunks of orders.batch.chunk-size; one bad order
+     * never fails the rest. Each result carries its index in the request and
+     * status CREATED or REJECTED.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchOrderResult>> createOrders(@RequestBody List<CreateOrderRequest> requests) {
+        if (requests.size() > batchMaxSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<Optional<Order>> savedOrders = orderService.createOrders(requests);
+        List<BatchOrderResult> results = new ArrayList<>(savedOrders.size());
+        for (int i = 0; i < savedOrders.size(); i++) {
+            Optional<Order> order = savedOrders.get(i);
+            results.add(order.isPresent()
+                ? new BatchOrderResult(i, "CREATED", toOrderResponse(order.get()))
+                : new BatchOrderResult(i, "REJECTED", null));
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * POST /api/orders/submissions
+     * Accepts an order (same body as POST /api/orders) for background creation.
+     * Only the shape of the request is checked here; returns 202 with a
+     * tracking id, or 429 when the worker queue is full.
+     */
+    @PostMapping("/submissions")
+    public ResponseEntity<OrderSubmissionResponse> submitOrder(@RequestBody CreateOrderRequest request) {
+        if (!OrderSubmissionService.isWellFormed(request)) {
+            return ResponseEntity.badRequest().build();
+        }
+        OrderSubmission submission;
+        try {
+            submission = orderSubmissionService.submit(request, this::toOrderResponse);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").build();
+        }
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/orders/submissions/" + submission.getId()))
+            .body(toSubmissionResponse(submission));
+    }
+
+    /**
+     * GET /api/orders/submissions/{id}
+     * Returns the submission status (ACCEPTED, PROCESSING, CREATED, REJECTED
+     * or FAILED) and, once it is CREATED, the order as it was created
+     */
+    @GetMapping("/submissions/{id}")
+    public ResponseEntity<OrderSubmissionResponse> getSubmission(@PathVariable String id) {
+        return orderSubmissionService.getSubmission(id)
+            .map(submission -> ResponseEntity.ok(toSubmissionResponse(submission)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * PUT /api/orders/{id}/status
      * Updates the status of an order
      * Request body should contain: "status": "CONFIRMED" (or other status)
+     * With If-Match: W/"<version>", returns 412 if the order changed since that version;
+     * without it, a concurrent update returns 409
+     * Returns 409 if the order is already DELIVERED or CANCELLED
      */
     @PutMapping("/{id}/status")
-    public ResponseEntity<OrderResponse> updateOrderStatus(@PathVariable Long id, @RequestBody UpdateStatusRequest request) {
-        Optional<Order> updatedOrder = orderService.updateOrderStatus(id, request.getStatus());
-        return updatedOrder.map(value -> ResponseEntity.ok(toOrderResponse(value)))
+    public ResponseEntity<OrderResponse> updateOrderStatus(@PathVariable Long id, @RequestBody UpdateStatusRequest request,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch == null ? null : EntityTag.version(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Order> updatedOrder;
+        try {
+            updatedOrder = orderService.updateOrderStatus(id, request.getStatus(), expectedVersion);
+        } catch (VersionConflictException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+        } catch (TerminalOrderException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return updatedOrder.map(value -> ResponseEntity.ok().eTag(EntityTag.weak(value.getVersion())).body(toOrderResponse(value)))
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    private ResponseEntity<OrderResponse> terminalResponse(TerminalOrderCache.CachedOrder cached, String ifNoneMatch) {
+        String etag = EntityTag.weak(cached.getVersion());
+        if (ifNoneMatch != null && EntityTag.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, terminalCacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).header(HttpHeaders.CACHE_CONTROL, terminalCacheControl)
+            .body(cached.getOrder());
+    }
+
+    private ResponseEntity<OrderResponse> createOrderIdempotently(CreateOrderRequest request, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            return ResponseEntity.badRequest().build();
+        }
+        IdempotencyService.Result result;
+        try {
+            result = idempotencyService.execute(request.getUserId(), idempotencyKey, request,
+                () -> orderService.createOrder(request).map(this::toOrderResponse));
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IdempotencyKeyReusedException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").build();
+        }
+        if (result.getResponse().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .header("Idempotent-Replayed", String.valueOf(result.isReplayed()))
+            .body(result.getResponse().get());
+    }
+
+    private OrderSubmissionResponse toSubmissionResponse(OrderSubmission submission) {
+        return new OrderSubmissionResponse(submission.getId(), submission.getStatus().name(),
+            submission.getSubmittedAt(), submission.getCompletedAt(), submission.getOrder());
+    }
+
     private OrderResponse toOrderResponse(Order order) {
         Long userId = order.getUser() != null ? order.getUser().getId() : null;
         List<OrderItem> orderItems = order.getOrderItems() != null ? order.getOrderItems() : Collections.emptyList();
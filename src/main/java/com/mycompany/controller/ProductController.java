@@ -1,26 +1,39 @@
 package com.mycompany.controller;
 
+import com.mycompany.cache.EntityTag;
 import com.mycompany.dto.response.ProductResponse;
 import com.mycompany.model.Product;
+import com.mycompany.service.PageCursor;
+import com.mycompany.service.ProductCatalogService;
+import com.mycompany.service.ProductResponseCache;
+import com.mycompany.service.ProductSearchService;
 import com.mycompany.service.ProductService;
+import com.mycompany.service.VersionConflictException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 
 /**
  * ProductController - REST API endpoints for Product operations
  * 
  * This controller handles HTTP requests for product management:
- * - GET /api/products - Get all products
+ * - GET /api/products?limit=&cursor= - Get a page of products
+ * - GET /api/products/search?q=&limit= - Full-text search over name and description
  * - GET /api/products/{id} - Get a specific product
  * - POST /api/products - Create a new product
  * - PUT /api/products/{id} - Update a product
  * - DELETE /api/products/{id} - Delete a product
+ *
+ * Reads are served as pre-encoded JSON bytes, gzipped when the client
+ * accepts it. A product carries the weak ETag W/"<version>" of its row:
+ * If-None-Match is answered with 304 from memory or from a version-only
+ * lookup, and If-Match on PUT gives optimistic concurrency (412). List
+ * pages carry a strong ETag of their bytes.
  * 
  * @RestController combines @Controller and @ResponseBody
  * @RequestMapping sets the base URL path for all endpoints in this controller
@@ -33,28 +46,65 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    // Reads are encoded once on top of the two-level product cache; writes evict both via ProductsChangedEvent
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
     /**
-     * GET /api/products
-     * Returns all products in the database
+     * GET /api/products?limit=50&cursor=...
+     * Returns one page of products by id, plus the cursor of the next page
+     * Returns 400 if the cursor is not one we issued
      */
     @GetMapping
-    @Cacheable("products")
-    public List<ProductResponse> getAllProducts() {
-        return productService.getAllProducts().stream()
-            .map(this::toProductResponse)
-            .toList();
+    public ResponseEntity<byte[]> getAllProducts(@RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return productResponseCache.getProducts(PageCursor.forIds(cursor), PageCursor.pageSize(limit))
+            .render(ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * GET /api/products/search?q=oak tab&limit=20
+     * Returns the products whose name or description contains every word, best match
+     * first; the last word also matches as a prefix ("tab" finds "table")
+     * Returns 400 if q is blank
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String q,
+                                                                @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productSearchService.search(q, PageCursor.pageSize(limit)));
     }
 
     /**
      * GET /api/products/{id}
      * Returns a specific product by ID
+     * Returns 304 if If-None-Match names the current version
      * Returns 404 if product not found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
-        Optional<Product> product = productService.getProductById(id);
-        
-        return product.map(value -> ResponseEntity.ok(toProductResponse(value)))
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Not in memory: a poll still holding the current version costs one version lookup, no load
+        if (ifNoneMatch != null && !productResponseCache.isCached(id)) {
+            Optional<Long> version = productService.getProductVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = EntityTag.weak(version.get());
+            if (EntityTag.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        return productResponseCache.getProduct(id)
+            .map(response -> response.render(ifNoneMatch, acceptEncoding))
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -64,7 +114,6 @@ public class ProductController {
      * Request body should contain: name, description, price, stock
      */
     @PostMapping
-    @CacheEvict(value = "products", allEntries = true)
     public ResponseEntity<ProductResponse> createProduct(@RequestBody Product product) {
         Product savedProduct = productService.createProduct(product);
         return ResponseEntity.status(HttpStatus.CREATED).body(toProductResponse(savedProduct));
@@ -73,13 +122,26 @@ public class ProductController {
     /**
      * PUT /api/products/{id}
      * Updates an existing product
+     * With If-Match: W/"<version>", returns 412 if the product changed since that version
+     * (stock changes count); without it, a concurrent update returns 409
      * Returns 404 if product not found
      */
     @PutMapping("/{id}")
-    @CacheEvict(value = "products", allEntries = true)
-    public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @RequestBody Product productDetails) {
-        Optional<Product> updatedProduct = productService.updateProduct(id, productDetails);
-        return updatedProduct.map(value -> ResponseEntity.ok(toProductResponse(value)))
+    public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @RequestBody Product productDetails,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch == null ? null : EntityTag.version(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Product> updatedProduct;
+        try {
+            updatedProduct = productService.updateProduct(id, productDetails, expectedVersion);
+        } catch (VersionConflictException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+        }
+        return updatedProduct.map(value -> ResponseEntity.ok().eTag(EntityTag.weak(value.getVersion())).body(toProductResponse(value)))
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -89,7 +151,6 @@ public class ProductController {
      * Returns 404 if product not found
      */
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "products", allEntries = true)
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         if (productService.deleteProduct(id)) {
             return ResponseEntity.noContent().build();
@@ -98,12 +159,6 @@ public class ProductController {
     }
 
     private ProductResponse toProductResponse(Product product) {
-        return new ProductResponse(
-            product.getId(),
-            product.getName(),
-            product.getDescription(),
-            product.getPrice(),
-            product.getStock()
-        );
+        return ProductCatalogService.toResponse(product);
     }
 }
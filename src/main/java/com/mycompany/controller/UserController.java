@@ -1,7 +1,9 @@
 package com.mycompany.controller;
 
+import com.mycompany.dto.response.CursorPage;
 import com.mycompany.dto.response.UserResponse;
 import com.mycompany.model.User;
+import com.mycompany.service.PageCursor;
 import com.mycompany.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,7 +17,7 @@ import java.util.Optional;
  * UserController - REST API endpoints for User operations
  * 
  * This controller handles HTTP requests for user management:
- * - GET /api/users - Get all users
+ * - GET /api/users?limit=&cursor= - Get a page of users
  * - GET /api/users/{id} - Get a specific user
  * - POST /api/users - Create a new user
  * - PUT /api/users/{id} - Update a user
@@ -30,15 +32,17 @@ public class UserController {
     private UserService userService;
 
     /**
-     * GET /api/users
-     * Returns all users in the database
+     * GET /api/users?limit=50&cursor=...
+     * Returns one page of users by id, plus the cursor of the next page
+     * Returns 400 if the cursor is not one we issued
      */
     @GetMapping
     @Transactional(readOnly = true)
-    public List<UserResponse> getAllUsers() {
-        return userService.getAllUsers().stream()
-            .map(this::toUserResponse)
-            .toList();
+    public CursorPage<UserResponse> getAllUsers(@RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String cursor) {
+        int size = PageCursor.pageSize(limit);
+        List<User> rows = userService.getUsers(PageCursor.forIds(cursor), size + 1);
+        return CursorPage.of(rows, size, this::toUserResponse, u -> PageCursor.encode(u.getId()));
     }
 
     /**
@@ -0,0 +1,78 @@
+package com.mycompany.dto.request;
+
+import com.mycompany.model.OrderStatus;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * DTO for the filters of GET /api/orders/search, bound from query parameters.
+ * Every filter is optional; from and to are inclusive days.
+ */
+public class OrderSearchRequest {
+    private List<OrderStatus> status;
+    private Long userId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private BigDecimal minTotal;
+    private BigDecimal maxTotal;
+
+    public List<OrderStatus> getStatus() {
+        return status;
+    }
+
+    public void setStatus(List<OrderStatus> status) {
+        this.status = status;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public BigDecimal getMinTotal() {
+        return minTotal;
+    }
+
+    public void setMinTotal(BigDecimal minTotal) {
+        this.minTotal = minTotal;
+    }
+
+    public BigDecimal getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(BigDecimal maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public boolean isValid() {
+        return (from == null || to == null || !from.isAfter(to))
+            && (minTotal == null || maxTotal == null || minTotal.compareTo(maxTotal) <= 0);
+    }
+}
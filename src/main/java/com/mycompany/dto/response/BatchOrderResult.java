@@ -0,0 +1,28 @@
+package com.mycompany.dto.response;
+
+/**
+ * DTO for the outcome of one order in a batch submission.
+ */
+public class BatchOrderResult {
+    private int index;
+    private String status;
+    private OrderResponse order;
+
+    public BatchOrderResult(int index, String status, OrderResponse order) {
+        this.index = index;
+        this.status = status;
+        this.order = order;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public OrderResponse getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mycompany.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for one day of sales, read from the sales rollups.
+ */
+public class DailySalesResponse {
+    private LocalDate date;
+    private BigDecimal revenue;
+    private long units;
+    private long orders;
+
+    // Also the JPQL constructor expression of SalesRollupRepository
+    public DailySalesResponse(LocalDate date, BigDecimal revenue, Long units, Long orders) {
+        this.date = date;
+        this.revenue = revenue;
+        this.units = units;
+        this.orders = orders;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+}
@@ -1,5 +1,7 @@
 package com.mycompany.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 
 /**
@@ -10,7 +12,12 @@ public class OrderItemResponse {
     private Integer quantity;
     private BigDecimal price;
 
-    public OrderItemResponse(Long productId, Integer quantity, BigDecimal price) {
+    @JsonCreator
+    public OrderItemResponse(
+        @JsonProperty("productId") Long productId,
+        @JsonProperty("quantity") Integer quantity,
+        @JsonProperty("price") BigDecimal price
+    ) {
         this.productId = productId;
         this.quantity = quantity;
         this.price = price;
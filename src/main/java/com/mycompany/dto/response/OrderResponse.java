@@ -1,5 +1,7 @@
 package com.mycompany.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.mycompany.model.OrderStatus;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,13 +18,15 @@ public class OrderResponse {
     private LocalDateTime orderDate;
     private List<OrderItemResponse> items;
 
+    // Also used to read responses back from the idempotency store
+    @JsonCreator
     public OrderResponse(
-        Long id,
-        Long userId,
-        BigDecimal total,
-        OrderStatus status,
-        LocalDateTime orderDate,
-        List<OrderItemResponse> items
+        @JsonProperty("id") Long id,
+        @JsonProperty("userId") Long userId,
+        @JsonProperty("total") BigDecimal total,
+        @JsonProperty("status") OrderStatus status,
+        @JsonProperty("orderDate") LocalDateTime orderDate,
+        @JsonProperty("items") List<OrderItemResponse> items
     ) {
         this.id = id;
         this.userId = userId;
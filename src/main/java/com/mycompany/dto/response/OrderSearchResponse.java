@@ -0,0 +1,40 @@
+package com.mycompany.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO for one page of order search results.
+ *
+ * total is only filled in on the first page (no cursor). When the planner
+ * expects more matches than orders.search.exact-count-threshold it is the
+ * planner's estimate and totalEstimated is true; otherwise it is exact.
+ */
+public class OrderSearchResponse {
+    private List<OrderResponse> items;
+    private String nextCursor;
+    private Long total;
+    private boolean totalEstimated;
+
+    public OrderSearchResponse(List<OrderResponse> items, String nextCursor, Long total, boolean totalEstimated) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.totalEstimated = totalEstimated;
+    }
+
+    public List<OrderResponse> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public boolean isTotalEstimated() {
+        return totalEstimated;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mycompany.dto.response;
+
+import java.time.Instant;
+
+/**
+ * DTO for the state of an asynchronously submitted order.
+ */
+public class OrderSubmissionResponse {
+    private String id;
+    private String status;
+    private Instant submittedAt;
+    private Instant completedAt;
+    private OrderResponse order;
+
+    public OrderSubmissionResponse(String id, String status, Instant submittedAt, Instant completedAt, OrderResponse order) {
+        this.id = id;
+        this.status = status;
+        this.submittedAt = submittedAt;
+        this.completedAt = completedAt;
+        this.order = order;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public OrderResponse getOrder() {
+        return order;
+    }
+}
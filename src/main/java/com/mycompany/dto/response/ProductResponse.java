@@ -1,23 +1,42 @@
 package com.mycompany.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
 import java.math.BigDecimal;
 
 /**
  * DTO for returning product data.
  */
-public class ProductResponse {
+public class ProductResponse implements Serializable {
     private Long id;
     private String name;
     private String description;
     private BigDecimal price;
     private Integer stock;
+    // Row version; the weak ETag of GET /api/products/{id} is W/"<version>"
+    private Long version;
 
     public ProductResponse(Long id, String name, String description, BigDecimal price, Integer stock) {
+        this(id, name, description, price, stock, null);
+    }
+
+    // Also used to read entries back from the Redis product cache
+    @JsonCreator
+    public ProductResponse(
+        @JsonProperty("id") Long id,
+        @JsonProperty("name") String name,
+        @JsonProperty("description") String description,
+        @JsonProperty("price") BigDecimal price,
+        @JsonProperty("stock") Integer stock,
+        @JsonProperty("version") Long version
+    ) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.price = price;
         this.stock = stock;
+        this.version = version;
     }
 
     public Long getId() {
@@ -39,4 +58,8 @@ public class ProductResponse {
     public Integer getStock() {
         return stock;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
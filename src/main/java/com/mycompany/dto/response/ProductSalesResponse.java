@@ -0,0 +1,37 @@
+package com.mycompany.dto.response;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for the sales of one product over a date range, read from the sales rollups.
+ */
+public class ProductSalesResponse {
+    private Long productId;
+    private BigDecimal revenue;
+    private long units;
+    private long orders;
+
+    // Also the JPQL constructor expression of SalesRollupRepository
+    public ProductSalesResponse(Long productId, BigDecimal revenue, Long units, Long orders) {
+        this.productId = productId;
+        this.revenue = revenue;
+        this.units = units;
+        this.orders = orders;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+}
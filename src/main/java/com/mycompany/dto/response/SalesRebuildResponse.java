@@ -0,0 +1,56 @@
+package com.mycompany.dto.response;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * DTO for the state of a sales rollup rebuild (RUNNING, DONE or FAILED).
+ */
+public class SalesRebuildResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private int chunks;
+    private String status;
+    private Instant startedAt;
+    private long elapsedMillis;
+    private String error;
+
+    public SalesRebuildResponse(LocalDate from, LocalDate to, int chunks, String status, Instant startedAt,
+                                long elapsedMillis, String error) {
+        this.from = from;
+        this.to = to;
+        this.chunks = chunks;
+        this.status = status;
+        this.startedAt = startedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
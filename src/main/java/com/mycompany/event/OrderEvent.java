@@ -0,0 +1,115 @@
+package com.mycompany.event;
+
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.MDC;
+
+/**
+ * OrderEvent - Payload published to Kafka and RabbitMQ when an order changes.
+ *
+ * Stored in the outbox as JSON and handed to the brokers by OutboxRelay.
+ */
+public class OrderEvent {
+
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+
+    private String eventType;
+    private Long orderId;
+    private Long userId;
+    private BigDecimal total;
+    private OrderStatus status;
+    private LocalDateTime timestamp;
+    private List<OrderEventItem> items = new ArrayList<>();
+
+    // Trace of the request that produced the event; sent as a Kafka header, not in the body
+    private String traceId;
+
+    public OrderEvent() {
+    }
+
+    /**
+     * Builds an event from an order that has already been assigned an id.
+     */
+    public static OrderEvent of(String eventType, Order order) {
+        OrderEvent event = new OrderEvent();
+        event.setEventType(eventType);
+        event.setOrderId(order.getId());
+        event.setUserId(order.getUser().getId());
+        event.setTotal(order.getTotal());
+        event.setStatus(order.getStatus());
+        event.setTimestamp(LocalDateTime.now());
+        event.setTraceId(MDC.get("traceId"));
+        order.getOrderItems().forEach(item -> event.getItems().add(
+            new OrderEventItem(item.getProduct().getId(), item.getQuantity(), item.getPrice())));
+        return event;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<OrderEventItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderEventItem> items) {
+        this.items = items;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+}
@@ -0,0 +1,448 @@
+package com.mycompany.event;
+
+import com.mycompany.model.OrderStatus;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OrderEventBinaryCodec - Compact, versioned binary form of an OrderEvent.
+ *
+ * Layout (schema version 1), integers are unsigned LEB128 varints unless noted:
+ * <pre>
+ *   byte    magic 'O'
+ *   byte    schema version
+ *   byte    event type code (0 = free-form, followed by a length-prefixed UTF-8 name)
+ *   byte    presence bits: orderId, userId, total, status, timestamp
+ *   varint  orderId, userId
+ *   decimal total                  (byte scale, at least 2, + zig-zag varint unscaled value)
+ *   byte    status ordinal
+ *   varint  timestamp epoch seconds (UTC), varint nanos
+ *   varint  item count, then per item: varint productId, varint quantity, decimal price
+ * </pre>
+ * New fields are only ever appended under a new schema version, so a decoder
+ * can read every version up to its own. The encoder writes straight into a
+ * caller-supplied (or per-thread) buffer. Decimals are written at the money
+ * scale (2), or their own scale if finer, and up to 15 digits their unscaled
+ * long is read without allocating (see writeDecimal); only larger amounts
+ * take a temporary BigDecimal or BigInteger. A Reader
+ * parses into reused primitive fields and arrays, and only builds an
+ * OrderEvent when asked to.
+ */
+public final class OrderEventBinaryCodec {
+
+    public static final byte MAGIC = 'O';
+    public static final byte SCHEMA_VERSION = 1;
+    public static final String CONTENT_TYPE = "application/x-order-event";
+
+    private static final byte TYPE_CUSTOM = 0;
+    private static final byte TYPE_ORDER_CREATED = 1;
+    private static final byte TYPE_ORDER_STATUS_CHANGED = 2;
+
+    private static final int HAS_ORDER_ID = 1;
+    private static final int HAS_USER_ID = 1 << 1;
+    private static final int HAS_TOTAL = 1 << 2;
+    private static final int HAS_STATUS = 1 << 3;
+    private static final int HAS_TIMESTAMP = 1 << 4;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    // Scale decimals are normalised to, so prices and totals read back as 2-digit amounts
+    private static final int MONEY_SCALE = 2;
+
+    // Digits a long always holds
+    private static final int LONG_DIGITS = 18;
+
+    // Up to 15 digits (< 2^50) and a scale whose power of ten is an exact double, the unscaled
+    // value is recovered exactly as round(doubleValue() * 10^scale): the quotient and the product
+    // are each correctly rounded, so the product is within 2^50 * 2^-52 = 1/4 of the integer
+    private static final int EXACT_DOUBLE_DIGITS = 15;
+    private static final double[] DOUBLE_TEN_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Grown on demand, so a thread keeps reusing the largest buffer it has needed
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+
+    // Backs decode(); callers on a hot path keep their own Reader and skip toEvent()
+    private static final ThreadLocal<Reader> READER = ThreadLocal.withInitial(Reader::new);
+
+    private OrderEventBinaryCodec() {
+    }
+
+    /**
+     * Encodes into a per-thread scratch buffer and copies out exactly the bytes written.
+     */
+    public static byte[] toBytes(OrderEvent event) {
+        ByteBuffer buffer = SCRATCH.get();
+        while (true) {
+            buffer.clear();
+            try {
+                encode(event, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                SCRATCH.set(buffer);
+            }
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the event at the buffer's position.
+     *
+     * @throws BufferOverflowException if the buffer is too small; its position is then undefined
+     * @throws IllegalArgumentException if a decimal has a scale over 127 or its unscaled value does not fit a long
+     */
+    public static void encode(OrderEvent event, ByteBuffer out) {
+        out.put(MAGIC);
+        out.put(SCHEMA_VERSION);
+
+        byte type = typeCode(event.getEventType());
+        out.put(type);
+        if (type == TYPE_CUSTOM) {
+            byte[] name = event.getEventType().getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, name.length);
+            out.put(name);
+        }
+
+        int present = (event.getOrderId() != null ? HAS_ORDER_ID : 0)
+            | (event.getUserId() != null ? HAS_USER_ID : 0)
+            | (event.getTotal() != null ? HAS_TOTAL : 0)
+            | (event.getStatus() != null ? HAS_STATUS : 0)
+            | (event.getTimestamp() != null ? HAS_TIMESTAMP : 0);
+        out.put((byte) present);
+
+        if (event.getOrderId() != null) {
+            writeVarLong(out, event.getOrderId());
+        }
+        if (event.getUserId() != null) {
+            writeVarLong(out, event.getUserId());
+        }
+        if (event.getTotal() != null) {
+            writeDecimal(out, event.getTotal());
+        }
+        if (event.getStatus() != null) {
+            out.put((byte) event.getStatus().ordinal());
+        }
+        if (event.getTimestamp() != null) {
+            writeVarLong(out, event.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(out, event.getTimestamp().getNano());
+        }
+
+        List<OrderEventItem> items = event.getItems();
+        int count = items == null ? 0 : items.size();
+        writeVarLong(out, count);
+        for (int i = 0; i < count; i++) {
+            OrderEventItem item = items.get(i);
+            writeVarLong(out, item.getProductId());
+            writeVarLong(out, item.getQuantity());
+            writeDecimal(out, item.getPrice());
+        }
+    }
+
+    /**
+     * Reads one event starting at the buffer's position.
+     *
+     * @throws FormatException if the bytes are not an order event of a known version
+     */
+    public static OrderEvent decode(ByteBuffer in) {
+        return READER.get().read(in).toEvent();
+    }
+
+    public static OrderEvent decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    private static byte typeCode(String eventType) {
+        if (OrderEvent.ORDER_CREATED.equals(eventType)) {
+            return TYPE_ORDER_CREATED;
+        }
+        if (OrderEvent.ORDER_STATUS_CHANGED.equals(eventType)) {
+            return TYPE_ORDER_STATUS_CHANGED;
+        }
+        return TYPE_CUSTOM;
+    }
+
+    private static String typeName(byte code) {
+        switch (code) {
+            case TYPE_ORDER_CREATED:
+                return OrderEvent.ORDER_CREATED;
+            case TYPE_ORDER_STATUS_CHANGED:
+                return OrderEvent.ORDER_STATUS_CHANGED;
+            default:
+                throw new FormatException("Unknown order event type code " + code);
+        }
+    }
+
+    // Money is stored exactly: scale plus the unscaled value, which fits a long for any real price
+    private static void writeDecimal(ByteBuffer out, BigDecimal value) {
+        int scale = Math.max(value.scale(), MONEY_SCALE);
+        if (scale > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Decimal scale out of range for an order event: " + value.scale());
+        }
+        // Same instance when the value already has the scale; never rounds, since the scale only grows
+        BigDecimal scaled = value.setScale(scale);
+        int precision = scaled.precision();
+        long unscaled;
+        try {
+            if (precision <= EXACT_DOUBLE_DIGITS && scale < DOUBLE_TEN_POWERS.length) {
+                // doubleValue() of a compact BigDecimal allocates nothing
+                unscaled = Math.round(scaled.doubleValue() * DOUBLE_TEN_POWERS[scale]);
+            } else if (precision <= LONG_DIGITS) {
+                unscaled = scaled.movePointRight(scale).longValueExact();
+            } else {
+                unscaled = scaled.unscaledValue().longValueExact();
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Decimal too large for an order event: " + value);
+        }
+        out.put((byte) scale);
+        writeVarLong(out, (unscaled << 1) ^ (unscaled >> 63));
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new FormatException("Malformed varint in order event");
+    }
+
+    private static int readVarInt(ByteBuffer in, String field) {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new FormatException("Order event " + field + " out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Thrown for bytes that are not a well-formed order event: wrong magic,
+     * unknown version or type, out-of-range values or a truncated buffer.
+     */
+    public static class FormatException extends IllegalArgumentException {
+        public FormatException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Reusable decoder. read() parses an event into primitive fields and
+     * reused arrays without allocating, so a consumer that only needs ids,
+     * quantities or the status can process a stream of events allocation-free;
+     * the accessors that return objects (total(), price(), timestamp(),
+     * toEvent()) create them on demand. Not thread-safe: keep one per thread.
+     */
+    public static final class Reader {
+        private String eventType;
+        private int present;
+        private long orderId;
+        private long userId;
+        private long totalUnscaled;
+        private int totalScale;
+        private OrderStatus status;
+        private long epochSecond;
+        private int nanos;
+        private int itemCount;
+        private long[] productIds = new long[8];
+        private int[] quantities = new int[8];
+        private long[] priceUnscaled = new long[8];
+        private int[] priceScales = new int[8];
+
+        /**
+         * Reads one event starting at the buffer's position, replacing whatever
+         * this reader held before.
+         *
+         * @throws FormatException if the bytes are not an order event of a known version
+         */
+        public Reader read(ByteBuffer in) {
+            try {
+                readHeader(in);
+                readItems(in);
+            } catch (BufferUnderflowException e) {
+                throw new FormatException("Truncated order event");
+            }
+            return this;
+        }
+
+        private void readHeader(ByteBuffer in) {
+            if (in.get() != MAGIC) {
+                throw new FormatException("Not a binary order event");
+            }
+            byte version = in.get();
+            if (version < 1 || version > SCHEMA_VERSION) {
+                throw new FormatException("Unsupported order event schema version " + version);
+            }
+
+            byte type = in.get();
+            if (type == TYPE_CUSTOM) {
+                int length = readVarInt(in, "type name length");
+                if (length > in.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                byte[] name = new byte[length];
+                in.get(name);
+                eventType = new String(name, StandardCharsets.UTF_8);
+            } else {
+                eventType = typeName(type);
+            }
+
+            present = in.get();
+            orderId = (present & HAS_ORDER_ID) != 0 ? readVarLong(in) : 0;
+            userId = (present & HAS_USER_ID) != 0 ? readVarLong(in) : 0;
+            if ((present & HAS_TOTAL) != 0) {
+                totalScale = in.get();
+                totalUnscaled = readZigZag(in);
+            }
+            status = null;
+            if ((present & HAS_STATUS) != 0) {
+                int ordinal = in.get();
+                if (ordinal < 0 || ordinal >= STATUSES.length) {
+                    throw new FormatException("Unknown order status ordinal " + ordinal);
+                }
+                status = STATUSES[ordinal];
+            }
+            if ((present & HAS_TIMESTAMP) != 0) {
+                epochSecond = readVarLong(in);
+                nanos = readVarInt(in, "timestamp nanos");
+                if (nanos > 999_999_999) {
+                    throw new FormatException("Order event timestamp nanos out of range: " + nanos);
+                }
+            }
+        }
+
+        private void readItems(ByteBuffer in) {
+            int count = readVarInt(in, "item count");
+            // Every item takes at least three bytes; a larger count is corrupt, not a reason to allocate
+            if (count > in.remaining() / 3) {
+                throw new BufferUnderflowException();
+            }
+            if (count > productIds.length) {
+                int capacity = Math.max(count, productIds.length * 2);
+                productIds = new long[capacity];
+                quantities = new int[capacity];
+                priceUnscaled = new long[capacity];
+                priceScales = new int[capacity];
+            }
+            for (int i = 0; i < count; i++) {
+                productIds[i] = readVarLong(in);
+                quantities[i] = readVarInt(in, "item quantity");
+                priceScales[i] = in.get();
+                priceUnscaled[i] = readZigZag(in);
+            }
+            itemCount = count;
+        }
+
+        public String eventType() {
+            return eventType;
+        }
+
+        public boolean hasOrderId() {
+            return (present & HAS_ORDER_ID) != 0;
+        }
+
+        public long orderId() {
+            return orderId;
+        }
+
+        public boolean hasUserId() {
+            return (present & HAS_USER_ID) != 0;
+        }
+
+        public long userId() {
+            return userId;
+        }
+
+        /**
+         * @return the order total, or null if the event has none
+         */
+        public BigDecimal total() {
+            return (present & HAS_TOTAL) != 0 ? BigDecimal.valueOf(totalUnscaled, totalScale) : null;
+        }
+
+        /**
+         * @return the order status, or null if the event has none
+         */
+        public OrderStatus status() {
+            return status;
+        }
+
+        /**
+         * @return the event time (UTC), or null if the event has none
+         */
+        public LocalDateTime timestamp() {
+            return (present & HAS_TIMESTAMP) != 0 ? LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC) : null;
+        }
+
+        public int itemCount() {
+            return itemCount;
+        }
+
+        public long productId(int item) {
+            return productIds[checkItem(item)];
+        }
+
+        public int quantity(int item) {
+            return quantities[checkItem(item)];
+        }
+
+        public BigDecimal price(int item) {
+            checkItem(item);
+            return BigDecimal.valueOf(priceUnscaled[item], priceScales[item]);
+        }
+
+        /**
+         * Copies the event that was read into a new OrderEvent.
+         */
+        public OrderEvent toEvent() {
+            OrderEvent event = new OrderEvent();
+            event.setEventType(eventType);
+            event.setOrderId(hasOrderId() ? orderId : null);
+            event.setUserId(hasUserId() ? userId : null);
+            event.setTotal(total());
+            event.setStatus(status);
+            event.setTimestamp(timestamp());
+            List<OrderEventItem> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add(new OrderEventItem(productIds[i], quantities[i], price(i)));
+            }
+            event.setItems(items);
+            return event;
+        }
+
+        private int checkItem(int item) {
+            if (item < 0 || item >= itemCount) {
+                throw new IndexOutOfBoundsException("Item " + item + " of " + itemCount);
+            }
+            return item;
+        }
+
+        private static long readZigZag(ByteBuffer in) {
+            long zigzag = readVarLong(in);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mycompany.event;
+
+import java.math.BigDecimal;
+
+/**
+ * One line of an order as carried in order events.
+ */
+public class OrderEventItem {
+    private Long productId;
+    private Integer quantity;
+    private BigDecimal price;
+
+    public OrderEventItem() {
+    }
+
+    public OrderEventItem(Long productId, Integer quantity, BigDecimal price) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
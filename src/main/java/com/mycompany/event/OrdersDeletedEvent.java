@@ -0,0 +1,24 @@
+package com.mycompany.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * OrdersDeletedEvent - Application event for order rows that were removed,
+ * e.g. with their user.
+ *
+ * Published inside the deleting transaction; caches that keep orders without
+ * invalidation (TerminalOrderCache) drop them after commit.
+ */
+public class OrdersDeletedEvent {
+
+    private final Set<Long> orderIds;
+
+    public OrdersDeletedEvent(Collection<Long> orderIds) {
+        this.orderIds = Set.copyOf(orderIds);
+    }
+
+    public Set<Long> getOrderIds() {
+        return orderIds;
+    }
+}
@@ -0,0 +1,45 @@
+package com.mycompany.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * ProductsChangedEvent - Application event for product rows that were written.
+ *
+ * Published inside the writing transaction; cache listeners act on it after
+ * commit so readers never re-cache the old row. catalogChanged is true when
+ * products were created or deleted, which changes list pages and not just entries.
+ */
+public class ProductsChangedEvent {
+
+    private final Set<Long> productIds;
+    private final boolean catalogChanged;
+    private final boolean stockOnly;
+
+    public ProductsChangedEvent(Collection<Long> productIds, boolean catalogChanged) {
+        this(productIds, catalogChanged, false);
+    }
+
+    private ProductsChangedEvent(Collection<Long> productIds, boolean catalogChanged, boolean stockOnly) {
+        this.productIds = Set.copyOf(productIds);
+        this.catalogChanged = catalogChanged;
+        this.stockOnly = stockOnly;
+    }
+
+    public static ProductsChangedEvent stock(Collection<Long> productIds) {
+        return new ProductsChangedEvent(productIds, false, true);
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public boolean isCatalogChanged() {
+        return catalogChanged;
+    }
+
+    // Only stock moved: name, description and price are unchanged
+    public boolean isStockOnly() {
+        return stockOnly;
+    }
+}
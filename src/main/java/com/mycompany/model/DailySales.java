@@ -0,0 +1,99 @@
+package com.mycompany.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * DailySales Entity - Rollup of revenue, units and order count per day
+ *
+ * This class maps to a "daily_sales" table in the database. Rows are only
+ * written by SalesRollupRepository (incremental upserts and rebuilds), never
+ * through the entity itself.
+ *
+ * A day is split over a few buckets: each order transaction adds to one
+ * bucket picked at random, so concurrent orders do not all wait on the lock
+ * of a single row. Reads sum the buckets of a day.
+ */
+@Entity
+@Table(name = "daily_sales")
+@IdClass(DailySales.Key.class)
+public class DailySales {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "bucket")
+    private Integer bucket;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    // Default constructor required by JPA
+    public DailySales() {
+    }
+
+    // Getters
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public Integer getBucket() {
+        return bucket;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Composite primary key: (sales_date, bucket).
+     */
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private Integer bucket;
+
+        public Key() {
+        }
+
+        public Key(LocalDate salesDate, Integer bucket) {
+            this.salesDate = salesDate;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(salesDate, other.salesDate) && Objects.equals(bucket, other.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(salesDate, bucket);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.mycompany.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,14 +17,24 @@ import java.util.List;
  * - One-to-Many with OrderItem (one order has many order items)
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // Keyset pagination: newest first, id breaks ties between equal timestamps
+    @Index(name = "idx_orders_order_date_id", columnList = "order_date DESC, id DESC"),
+    // Per-user history: one user's orders are contiguous and already newest first
+    @Index(name = "idx_orders_user_order_date", columnList = "user_id, order_date DESC, id DESC"),
+    // Status filters in search: matching rows come out already in page order
+    @Index(name = "idx_orders_status_order_date", columnList = "status, order_date DESC, id DESC")
+})
 public class Order {
 
+    // Pooled sequence (not IDENTITY) so Hibernate can batch inserts;
+    // one round trip to the sequence hands out 50 ids
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false)
+    @Column(name = "order_date", nullable = false)
     private LocalDateTime orderDate;
 
     @Column(nullable = false, precision = 10, scale = 2)
@@ -33,6 +44,13 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
+    // Optimistic locking; also the ETag of GET /api/orders/{id}. Left null on new
+    // orders so Spring Data still sees them as new (persist, not merge)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Many orders belong to one user
     // @JsonIgnore prevents circular reference - when serializing order, don't include user
     @ManyToOne(fetch = FetchType.LAZY)
@@ -67,6 +85,10 @@ public class Order {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDateTime getOrderDate() {
         return orderDate;
     }
@@ -17,8 +17,11 @@ import java.math.BigDecimal;
 @Table(name = "order_items")
 public class OrderItem {
 
+    // Pooled sequence (not IDENTITY) so Hibernate can batch inserts;
+    // one round trip to the sequence hands out 50 ids
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
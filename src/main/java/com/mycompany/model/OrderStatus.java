@@ -8,6 +8,13 @@ public enum OrderStatus {
     CONFIRMED,  // Order is confirmed
     SHIPPED,    // Order has been shipped
     DELIVERED,  // Order has been delivered
-    CANCELLED   // Order was cancelled
+    CANCELLED;  // Order was cancelled
+
+    /**
+     * DELIVERED and CANCELLED are final: an order in either never changes again.
+     */
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
 }
 
@@ -0,0 +1,158 @@
+package com.mycompany.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * OutboxEvent Entity - An order event waiting to be published
+ *
+ * This class maps to an "order_outbox" table in the database.
+ * Rows are written in the same transaction as the Order they describe,
+ * so an event can never be lost between the DB commit and the broker publish.
+ * OutboxRelay drains the table in the background and deletes published rows.
+ *
+ * Ids come from a pooled sequence, each node taking a block of 50, so they
+ * are not in creation order across nodes; ordering uses createdAt, with the
+ * id only breaking ties between events written together.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "idx_order_outbox_aggregate_created", columnList = "aggregate_id, created_at, id"),
+    @Index(name = "idx_order_outbox_created", columnList = "created_at")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    // Order id; events of one order are delivered strictly in createdAt, id order
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    // OrderEvent serialized as JSON
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Not picked up by the relay before this time (retry backoff)
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    // Comma-separated brokers that already acknowledged this event (partial delivery)
+    @Column(name = "delivered_to")
+    private String deliveredTo;
+
+    // Claimed by a relay that is sending the event outside any transaction; other relays
+    // skip the row until then, and pick it up again if that relay died mid-send
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    // Set when the payload cannot be read: the relay skips the row until an operator fixes
+    // or deletes it, and later events of the same order wait behind it
+    @Column(name = "parked_at")
+    private Instant parkedAt;
+
+    // Default constructor required by JPA
+    public OutboxEvent() {
+    }
+
+    // Constructor for a new event that is due immediately
+    public OutboxEvent(Long aggregateId, String eventType, String payload) {
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getDeliveredTo() {
+        return deliveredTo;
+    }
+
+    public void setDeliveredTo(String deliveredTo) {
+        this.deliveredTo = deliveredTo;
+    }
+
+    public Instant getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Instant claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    public Instant getParkedAt() {
+        return parkedAt;
+    }
+
+    public void setParkedAt(Instant parkedAt) {
+        this.parkedAt = parkedAt;
+    }
+}
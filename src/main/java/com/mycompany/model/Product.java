@@ -1,7 +1,9 @@
 package com.mycompany.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Product Entity - Represents a product in the e-commerce catalog
@@ -29,6 +31,14 @@ public class Product {
     @Column(nullable = false)
     private Integer stock;
 
+    // Optimistic locking and ETags. Bulk stock UPDATEs bump it by hand since
+    // they bypass Hibernate. Never bound from a request body
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonIgnore
+    private Long version;
+
     // Default constructor required by JPA
     public Product() {
     }
@@ -81,5 +91,8 @@ public class Product {
     public void setStock(Integer stock) {
         this.stock = stock;
     }
-}
 
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,111 @@
+package com.mycompany.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * ProductDailySales Entity - Rollup of revenue, units and order count per product and day
+ *
+ * This class maps to a "product_daily_sales" table in the database. Like
+ * DailySales it is written only by SalesRollupRepository and split over
+ * buckets. product_id is a plain column, not a foreign key, so a product can
+ * be deleted without losing its sales history.
+ */
+@Entity
+@Table(name = "product_daily_sales", indexes = {
+    // Top products over a date range read every product of those days
+    @Index(name = "idx_product_daily_sales_date", columnList = "sales_date")
+})
+@IdClass(ProductDailySales.Key.class)
+public class ProductDailySales {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "bucket")
+    private Integer bucket;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long units;
+
+    // Orders that contain the product, counted once per order
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    // Default constructor required by JPA
+    public ProductDailySales() {
+    }
+
+    // Getters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public Integer getBucket() {
+        return bucket;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Composite primary key: (product_id, sales_date, bucket).
+     */
+    public static class Key implements Serializable {
+        private Long productId;
+        private LocalDate salesDate;
+        private Integer bucket;
+
+        public Key() {
+        }
+
+        public Key(Long productId, LocalDate salesDate, Integer bucket) {
+            this.productId = productId;
+            this.salesDate = salesDate;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(productId, other.productId) && Objects.equals(salesDate, other.salesDate)
+                && Objects.equals(bucket, other.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, salesDate, bucket);
+        }
+    }
+}
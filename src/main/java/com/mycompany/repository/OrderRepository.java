@@ -2,10 +2,16 @@ package com.mycompany.repository;
 
 import com.mycompany.model.Order;
 import com.mycompany.model.OrderStatus;
-import com.mycompany.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * OrderRepository - Data Access Layer for Order entity
@@ -14,10 +20,43 @@ import java.util.List;
  * Spring Data JPA automatically implements all CRUD methods.
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    // Find all orders for a specific user
-    List<Order> findByUser(User user);
-    
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     // Find orders by status
     List<Order> findByStatus(OrderStatus status);
+
+    // Order and its lines in one statement; user and product ids come from the
+    // foreign keys, so building an OrderResponse needs no further queries
+    @EntityGraph(attributePaths = "orderItems")
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findWithItemsById(@Param("id") Long id);
+
+    // Version only, for If-None-Match: neither the order nor its lines are loaded
+    @Query("SELECT o.version FROM Order o WHERE o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Initializes the lines of orders already loaded in this persistence context
+    // with one statement, so a page of N orders costs two queries instead of 1 + N
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id IN :ids")
+    List<Order> fetchItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pages, newest first: a range scan on idx_orders_order_date_id, never OFFSET.
+    // Pageable only carries the page size (always page 0).
+    @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPage(Pageable limit);
+
+    @Query("SELECT o FROM Order o WHERE (o.orderDate, o.id) < (:orderDate, :id) ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageBefore(@Param("orderDate") LocalDateTime orderDate, @Param("id") Long id, Pageable limit);
+
+    // One user's history, newest first: compares the user_id column directly (no join
+    // to users) and reads idx_orders_user_order_date in index order
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageByUserId(@Param("userId") Long userId, Pageable limit);
+
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND (o.orderDate, o.id) < (:orderDate, :id) ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageByUserIdBefore(@Param("userId") Long userId, @Param("orderDate") LocalDateTime orderDate,
+                                       @Param("id") Long id, Pageable limit);
+
+    // Ids only, for dropping a deleted user's orders from caches
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId AND o.status IN :statuses")
+    List<Long> findIdsByUserIdAndStatusIn(@Param("userId") Long userId, @Param("statuses") Collection<OrderStatus> statuses);
 }
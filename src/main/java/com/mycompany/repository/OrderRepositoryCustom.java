@@ -0,0 +1,52 @@
+package com.mycompany.repository;
+
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * OrderRepositoryCustom - Order queries that need JDBC-level hints Spring Data
+ * cannot express per call.
+ *
+ * Implemented by OrderRepositoryCustomImpl and exposed through OrderRepository.
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Streams matching orders in id order from a forward-only cursor that reads
+     * fetchSize rows per round trip. Must be called inside a transaction (on
+     * PostgreSQL the cursor only streams with autocommit off) and the stream
+     * must be closed. Entities are loaded read-only; the caller should clear
+     * the persistence context as it goes to keep memory flat.
+     *
+     * @param from inclusive lower bound on orderDate, null for none
+     * @param to exclusive upper bound on orderDate, null for none
+     */
+    Stream<Order> streamForExport(Collection<OrderStatus> statuses, LocalDateTime from, LocalDateTime to, int fetchSize);
+
+    /**
+     * One keyset page of orders matching every filter that is set, newest first.
+     * Only the predicates for the filters present are added, so each combination
+     * can use the index that fits it.
+     *
+     * @param beforeDate orderDate of the last row of the previous page, null for the first page
+     * @param beforeId id of the last row of the previous page, null for the first page
+     */
+    List<Order> search(OrderSearchCriteria criteria, LocalDateTime beforeDate, Long beforeId, int limit);
+
+    /**
+     * Exact number of orders matching the filter (COUNT(*)).
+     */
+    long countSearch(OrderSearchCriteria criteria);
+
+    /**
+     * The planner's row estimate for the filter, read from EXPLAIN without
+     * running the query. Empty when the database is not PostgreSQL or the
+     * plan could not be read.
+     */
+    OptionalLong estimateSearchCount(OrderSearchCriteria criteria);
+}
@@ -0,0 +1,206 @@
+package com.mycompany.repository;
+
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * OrderRepositoryCustomImpl - Streaming reads for bulk export and dynamic search.
+ *
+ * getResultStream() is backed by a forward-only ScrollableResults, so rows are
+ * pulled from the JDBC cursor fetchSize at a time instead of being collected
+ * into a List first.
+ *
+ * Search queries are composed with the Criteria API from the filters that are
+ * actually set. The count estimate runs the same filters as native SQL under
+ * EXPLAIN, which costs one planner call instead of a scan of every match.
+ */
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderRepositoryCustomImpl.class);
+
+    // Row estimate of the top plan node, e.g. "Seq Scan on orders  (cost=0.00..1834.00 rows=98412 width=8)"
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public Stream<Order> streamForExport(Collection<OrderStatus> statuses, LocalDateTime from, LocalDateTime to, int fetchSize) {
+        // An open end is left out rather than replaced by a sentinel date
+        String jpql = "SELECT o FROM Order o WHERE o.status IN :statuses"
+            + (from != null ? " AND o.orderDate >= :from" : "")
+            + (to != null ? " AND o.orderDate < :to" : "")
+            + " ORDER BY o.id";
+        TypedQuery<Order> query = entityManager.createQuery(jpql, Order.class)
+            .setParameter("statuses", statuses);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    @Override
+    public List<Order> search(OrderSearchCriteria criteria, LocalDateTime beforeDate, Long beforeId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> query = cb.createQuery(Order.class);
+        Root<Order> order = query.from(Order.class);
+        List<Predicate> predicates = predicates(cb, order, conditions(criteria));
+        if (beforeId != null) {
+            // (order_date, id) < (:beforeDate, :beforeId), spelled out: criteria has no row values
+            predicates.add(cb.or(
+                cb.lessThan(order.<LocalDateTime>get("orderDate"), beforeDate),
+                cb.and(cb.equal(order.get("orderDate"), beforeDate), cb.lessThan(order.<Long>get("id"), beforeId))));
+        }
+        query.select(order)
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.desc(order.get("orderDate")), cb.desc(order.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countSearch(OrderSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+        query.select(cb.count(order)).where(predicates(cb, order, conditions(criteria)).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public OptionalLong estimateSearchCount(OrderSearchCriteria criteria) {
+        if (!isPostgres()) {
+            return OptionalLong.empty();
+        }
+        List<Object> params = new ArrayList<>();
+        String sql = "EXPLAIN SELECT 1 FROM orders WHERE " + nativeWhere(conditions(criteria), params);
+        Query explain = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < params.size(); i++) {
+            explain.setParameter(i + 1, params.get(i));
+        }
+        List<?> plan = explain.getResultList();
+        Matcher rows = plan.isEmpty() ? null : PLAN_ROWS.matcher(String.valueOf(plan.get(0)));
+        if (rows == null || !rows.find()) {
+            log.warn("Could not read a row estimate from plan {}", plan);
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(Long.parseLong(rows.group(1)));
+    }
+
+    // One filter term; search and count render it as a criteria predicate, the estimate as SQL
+    private record Condition(String attribute, String column, String operator, Object value) {
+    }
+
+    // The only place a filter is mapped to a column, so the estimate always plans the same WHERE as the search
+    private static List<Condition> conditions(OrderSearchCriteria criteria) {
+        List<Condition> conditions = new ArrayList<>();
+        if (!criteria.getStatuses().isEmpty()) {
+            conditions.add(new Condition("status", "status", "IN", criteria.getStatuses()));
+        }
+        if (criteria.getUserId() != null) {
+            conditions.add(new Condition("user.id", "user_id", "=", criteria.getUserId()));
+        }
+        if (criteria.getFrom() != null) {
+            conditions.add(new Condition("orderDate", "order_date", ">=", criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            conditions.add(new Condition("orderDate", "order_date", "<", criteria.getTo()));
+        }
+        if (criteria.getMinTotal() != null) {
+            conditions.add(new Condition("total", "total", ">=", criteria.getMinTotal()));
+        }
+        if (criteria.getMaxTotal() != null) {
+            conditions.add(new Condition("total", "total", "<=", criteria.getMaxTotal()));
+        }
+        return conditions;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<Predicate> predicates(CriteriaBuilder cb, Root<Order> order, List<Condition> conditions) {
+        List<Predicate> predicates = new ArrayList<>();
+        for (Condition condition : conditions) {
+            Path path = order;
+            for (String attribute : condition.attribute().split("\\.")) {
+                path = path.get(attribute);
+            }
+            switch (condition.operator()) {
+                case "IN" -> predicates.add(path.in((Collection<?>) condition.value()));
+                case "=" -> predicates.add(cb.equal(path, condition.value()));
+                case ">=" -> predicates.add(cb.greaterThanOrEqualTo(path, (Comparable) condition.value()));
+                case "<" -> predicates.add(cb.lessThan(path, (Comparable) condition.value()));
+                case "<=" -> predicates.add(cb.lessThanOrEqualTo(path, (Comparable) condition.value()));
+                default -> throw new IllegalStateException("Unknown operator " + condition.operator());
+            }
+        }
+        return predicates;
+    }
+
+    // The same conditions as SQL with positional parameters; enums are bound by name as they are stored
+    private static String nativeWhere(List<Condition> conditions, List<Object> params) {
+        StringBuilder where = new StringBuilder("1 = 1");
+        for (Condition condition : conditions) {
+            where.append(" AND ").append(condition.column()).append(' ').append(condition.operator()).append(' ');
+            if (condition.value() instanceof Collection<?> values) {
+                String separator = "(";
+                for (Object value : values) {
+                    params.add(value instanceof Enum<?> e ? e.name() : value);
+                    where.append(separator).append('?').append(params.size());
+                    separator = ", ";
+                }
+                where.append(')');
+            } else {
+                params.add(condition.value());
+                where.append('?').append(params.size());
+            }
+        }
+        return where.toString();
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                postgres = "PostgreSQL".equalsIgnoreCase(product);
+            } catch (MetaDataAccessException e) {
+                log.warn("Could not determine the database product, order counts will be exact", e);
+                postgres = false;
+            }
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.repository;
+
+import com.mycompany.model.OrderStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * OrderSearchCriteria - The filters of an order search as the repository
+ * applies them. Every field is optional (null or empty matches everything);
+ * orderDate bounds are half-open: from inclusive, to exclusive.
+ */
+public class OrderSearchCriteria {
+
+    private final List<OrderStatus> statuses;
+    private final Long userId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final BigDecimal minTotal;
+    private final BigDecimal maxTotal;
+
+    public OrderSearchCriteria(Collection<OrderStatus> statuses, Long userId, LocalDateTime from, LocalDateTime to,
+                               BigDecimal minTotal, BigDecimal maxTotal) {
+        this.statuses = statuses == null ? List.of() : List.copyOf(statuses);
+        this.userId = userId;
+        this.from = from;
+        this.to = to;
+        this.minTotal = minTotal;
+        this.maxTotal = maxTotal;
+    }
+
+    public List<OrderStatus> getStatuses() {
+        return statuses;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public BigDecimal getMinTotal() {
+        return minTotal;
+    }
+
+    public BigDecimal getMaxTotal() {
+        return maxTotal;
+    }
+}
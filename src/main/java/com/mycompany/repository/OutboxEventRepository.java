@@ -0,0 +1,35 @@
+package com.mycompany.repository;
+
+import com.mycompany.model.OutboxEvent;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * OutboxEventRepository - Data Access Layer for the order event outbox
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Oldest due, unclaimed event of each order, locked so several relays can claim side
+    // by side. An event is only eligible once every earlier event of the same order is
+    // gone, which keeps per-order delivery in order even while an earlier one is backing
+    // off, parked or claimed. Ids come in per-node blocks, so "earlier" is created_at,
+    // with the id only breaking ties.
+    @Query(value = "SELECT * FROM order_outbox o"
+        + " WHERE o.next_attempt_at <= :now AND o.parked_at IS NULL"
+        + " AND (o.claimed_until IS NULL OR o.claimed_until <= :now)"
+        + " AND NOT EXISTS (SELECT 1 FROM order_outbox e WHERE e.aggregate_id = o.aggregate_id"
+        + " AND (e.created_at < o.created_at OR (e.created_at = o.created_at AND e.id < o.id)))"
+        + " ORDER BY o.created_at, o.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    // Oldest pending event through the created_at index
+    Optional<OutboxEvent> findFirstByParkedAtIsNullOrderByCreatedAtAsc();
+
+    long countByParkedAtIsNull();
+}
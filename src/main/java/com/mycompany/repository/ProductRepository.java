@@ -1,17 +1,53 @@
 package com.mycompany.repository;
 
 import com.mycompany.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * ProductRepository - Data Access Layer for Product entity
- * 
+ *
  * Provides database operations for products.
  * Spring Data JPA automatically implements all CRUD methods.
+ * Bulk stock updates live in ProductRepositoryCustom.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    // Custom query methods can be added here
-    // Example: List<Product> findByNameContaining(String name);
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+    // Load every product of a basket in a single "WHERE id IN (...)" query
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    // Keyset pages by primary key; Pageable only carries the page size
+    List<Product> findAllByOrderByIdAsc(Pageable limit);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limit);
+
+    // Lock the rows of a basket in ascending id order so concurrent baskets never deadlock
+    @Query(value = "SELECT id AS \"id\", stock AS \"stock\" FROM products WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<ProductStock> lockStockByIds(@Param("ids") Collection<Long> ids);
+
+    // Current stock of every product, used to rebuild the in-memory inventory ledger
+    @Query("SELECT p.id AS id, p.stock AS stock FROM Product p")
+    List<ProductStock> findAllStockLevels();
+
+    // Check and apply a stock change in one statement; returns 0 if it would go negative
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock + :delta, p.version = p.version + 1 WHERE p.id = :id AND p.stock + :delta >= 0")
+    int adjustStockIfAvailable(@Param("id") Long id, @Param("delta") int delta);
+
+    // Version only, for If-None-Match: no entity is loaded
+    @Query("SELECT p.version FROM Product p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Searchable text in keyset batches, used to build the in-memory product search index
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductText> findTextAfter(@Param("afterId") Long afterId, Pageable limit);
+
+    // Text search is served by ProductSearchIndex, not LIKE '%x%' scans
 }
@@ -0,0 +1,33 @@
+package com.mycompany.repository;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ProductRepositoryCustom - Set-based stock operations that Spring Data
+ * cannot derive from method names.
+ *
+ * Implemented by ProductRepositoryCustomImpl and exposed through ProductRepository.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Subtracts the given quantities from product stock in one UPDATE statement.
+     * A row is only changed if it still has enough stock, so the caller must
+     * compare the returned count with quantities.size().
+     *
+     * @param quantities productId -> quantity to subtract
+     * @return number of product rows updated
+     */
+    int decrementStockIfAvailable(Map<Long, Integer> quantities);
+
+    /**
+     * Adds signed deltas to product stock in one UPDATE statement. Used to
+     * write back changes already validated elsewhere; a delta that would
+     * still take a row below zero is not applied.
+     *
+     * @param deltas productId -> signed change in stock
+     * @return ids of the products whose delta was refused, their rows unchanged
+     */
+    Set<Long> applyStockDeltas(Map<Long, Integer> deltas);
+}
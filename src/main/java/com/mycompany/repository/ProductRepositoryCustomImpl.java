@@ -0,0 +1,107 @@
+package com.mycompany.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ProductRepositoryCustomImpl - Native SQL for bulk stock changes.
+ *
+ * A whole basket is applied with a single statement of the form:
+ *   UPDATE products SET stock = stock - CASE id WHEN :id0 THEN CAST(:qty0 AS INTEGER) ... END,
+ *                       version = version + 1
+ *   WHERE id IN (:id0, ...) AND stock >= CASE id WHEN :id0 THEN ... END
+ * so the number of round trips does not grow with the number of lines, and
+ * the stock check and the decrement happen atomically in the database.
+ * Native SQL bypasses Hibernate's @Version handling, so the version is
+ * bumped explicitly; otherwise ETags would not change with stock.
+ *
+ * Write-behind deltas lock their rows in ascending id order first and skip
+ * any row they would take below zero, then apply the rest the same way.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int decrementStockIfAvailable(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+
+        String quantityCase = caseById(quantities.size());
+        String sql = "UPDATE products SET stock = stock - " + quantityCase + ", version = version + 1"
+            + " WHERE id IN (" + idList(quantities.size()) + ")"
+            + " AND stock >= " + quantityCase;
+        return bind(entityManager.createNativeQuery(sql), quantities).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public Set<Long> applyStockDeltas(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return Set.of();
+        }
+
+        // Same ascending lock order as a basket reservation, so the two never deadlock
+        Query lock = entityManager.createNativeQuery(
+            "SELECT id, stock FROM products WHERE id IN (" + idList(deltas.size()) + ") ORDER BY id FOR UPDATE");
+        int i = 0;
+        for (Long id : deltas.keySet()) {
+            lock.setParameter("id" + i++, id);
+        }
+        Set<Long> refused = new HashSet<>();
+        Map<Long, Integer> applied = new LinkedHashMap<>(deltas);
+        for (Object row : lock.getResultList()) {
+            Object[] columns = (Object[]) row;
+            Long id = ((Number) columns[0]).longValue();
+            if (((Number) columns[1]).intValue() + deltas.get(id) < 0) {
+                refused.add(id);
+                applied.remove(id);
+            }
+        }
+        if (!applied.isEmpty()) {
+            String sql = "UPDATE products SET stock = stock + " + caseById(applied.size()) + ", version = version + 1"
+                + " WHERE id IN (" + idList(applied.size()) + ")";
+            bind(entityManager.createNativeQuery(sql), applied).executeUpdate();
+        }
+        return refused;
+    }
+
+    // CASE id WHEN :id0 THEN :qty0 WHEN :id1 THEN :qty1 ... END
+    private static String caseById(int size) {
+        StringBuilder sql = new StringBuilder("CASE id");
+        for (int i = 0; i < size; i++) {
+            sql.append(" WHEN :id").append(i).append(" THEN CAST(:qty").append(i).append(" AS INTEGER)");
+        }
+        return sql.append(" END").toString();
+    }
+
+    // :id0, :id1, ...
+    private static String idList(int size) {
+        List<String> idParams = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            idParams.add(":id" + i);
+        }
+        return String.join(", ", idParams);
+    }
+
+    private static Query bind(Query query, Map<Long, Integer> values) {
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : values.entrySet()) {
+            query.setParameter("id" + i, entry.getKey());
+            query.setParameter("qty" + i, entry.getValue());
+            i++;
+        }
+        return query;
+    }
+}
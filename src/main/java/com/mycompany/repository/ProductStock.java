@@ -0,0 +1,12 @@
+package com.mycompany.repository;
+
+/**
+ * ProductStock - Projection of a product's id and current stock level.
+ *
+ * Used by the locking stock query so reservations see the committed value
+ * instead of whatever copy is already in the persistence context.
+ */
+public interface ProductStock {
+    Long getId();
+    Integer getStock();
+}
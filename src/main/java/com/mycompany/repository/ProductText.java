@@ -0,0 +1,10 @@
+package com.mycompany.repository;
+
+/**
+ * ProductText - Projection of the fields the product search index is built from.
+ */
+public interface ProductText {
+    Long getId();
+    String getName();
+    String getDescription();
+}
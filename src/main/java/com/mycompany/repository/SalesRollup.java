@@ -0,0 +1,89 @@
+package com.mycompany.repository;
+
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderItem;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SalesRollup - The change a set of orders makes to the sales rollups,
+ * summed per day and per (product, day), ready for SalesRollupRepository.add.
+ *
+ * Keys are kept sorted so every transaction upserts rollup rows in the same
+ * order, which keeps concurrent writers from deadlocking on each other's rows.
+ */
+public class SalesRollup {
+
+    /**
+     * Revenue, units and order count added to one rollup row.
+     */
+    public static class Totals {
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long units;
+        private long orders;
+
+        private void add(BigDecimal revenue, long units, long orders) {
+            this.revenue = this.revenue.add(revenue);
+            this.units += units;
+            this.orders += orders;
+        }
+
+        public BigDecimal getRevenue() {
+            return revenue;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+    }
+
+    private final TreeMap<LocalDate, Totals> days = new TreeMap<>();
+    private final TreeMap<Long, TreeMap<LocalDate, Totals>> productDays = new TreeMap<>();
+
+    /**
+     * @param sign 1 to add the orders, -1 to take them back out (cancellation)
+     */
+    public static SalesRollup of(Collection<Order> orders, int sign) {
+        SalesRollup rollup = new SalesRollup();
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        for (Order order : orders) {
+            LocalDate day = order.getOrderDate().toLocalDate();
+            long units = 0;
+            // An order counts once per product even if the product is on several lines
+            Set<Long> counted = new HashSet<>();
+            for (OrderItem item : order.getOrderItems()) {
+                Long productId = item.getProduct().getId();
+                BigDecimal revenue = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+                rollup.productDays.computeIfAbsent(productId, id -> new TreeMap<>())
+                    .computeIfAbsent(day, d -> new Totals())
+                    .add(revenue.multiply(factor), (long) sign * item.getQuantity(), counted.add(productId) ? sign : 0);
+                units += item.getQuantity();
+            }
+            rollup.days.computeIfAbsent(day, d -> new Totals()).add(order.getTotal().multiply(factor), sign * units, sign);
+        }
+        return rollup;
+    }
+
+    public boolean isEmpty() {
+        return days.isEmpty();
+    }
+
+    // day -> totals, in date order
+    public Map<LocalDate, Totals> getDays() {
+        return days;
+    }
+
+    // productId -> day -> totals, in (product, date) order
+    public Map<Long, TreeMap<LocalDate, Totals>> getProductDays() {
+        return productDays;
+    }
+}
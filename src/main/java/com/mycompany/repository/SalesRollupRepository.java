@@ -0,0 +1,42 @@
+package com.mycompany.repository;
+
+import com.mycompany.dto.response.DailySalesResponse;
+import com.mycompany.dto.response.ProductSalesResponse;
+import com.mycompany.model.DailySales;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * SalesRollupRepository - Reporting reads over the sales rollups
+ *
+ * Every query reads only daily_sales / product_daily_sales, never orders,
+ * and sums the buckets of each day. Writes (incremental upserts and
+ * rebuilds) live in SalesRollupRepositoryCustom.
+ */
+@Repository
+public interface SalesRollupRepository extends JpaRepository<DailySales, DailySales.Key>, SalesRollupRepositoryCustom {
+
+    // Totals per day over [from, to], in date order; days without sales are absent
+    @Query("SELECT new com.mycompany.dto.response.DailySalesResponse(d.salesDate, SUM(d.revenue), SUM(d.units), SUM(d.orderCount))"
+        + " FROM DailySales d WHERE d.salesDate BETWEEN :from AND :to"
+        + " GROUP BY d.salesDate ORDER BY d.salesDate")
+    List<DailySalesResponse> findDailyTotals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Products by revenue over [from, to], best first; Pageable only carries the limit
+    @Query("SELECT new com.mycompany.dto.response.ProductSalesResponse(p.productId, SUM(p.revenue), SUM(p.units), SUM(p.orderCount))"
+        + " FROM ProductDailySales p WHERE p.salesDate BETWEEN :from AND :to"
+        + " GROUP BY p.productId ORDER BY SUM(p.revenue) DESC, p.productId")
+    List<ProductSalesResponse> findTopProducts(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable limit);
+
+    // One product's totals per day over [from, to], in date order
+    @Query("SELECT new com.mycompany.dto.response.DailySalesResponse(p.salesDate, SUM(p.revenue), SUM(p.units), SUM(p.orderCount))"
+        + " FROM ProductDailySales p WHERE p.productId = :productId AND p.salesDate BETWEEN :from AND :to"
+        + " GROUP BY p.salesDate ORDER BY p.salesDate")
+    List<DailySalesResponse> findProductDailyTotals(@Param("productId") Long productId,
+                                                    @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,32 @@
+package com.mycompany.repository;
+
+import java.time.LocalDate;
+
+/**
+ * SalesRollupRepositoryCustom - Upserts and rebuilds of the sales rollup
+ * tables (daily_sales, product_daily_sales) in native SQL.
+ *
+ * Implemented by SalesRollupRepositoryCustomImpl and exposed through SalesRollupRepository.
+ */
+public interface SalesRollupRepositoryCustom {
+
+    /**
+     * Adds the totals of rollup to the rows of the given bucket, creating rows
+     * that do not exist yet. Runs in the caller's transaction.
+     */
+    void add(SalesRollup rollup, int bucket);
+
+    /**
+     * Replaces the rollups of [from, toExclusive) with totals recomputed from
+     * orders and order_items, all in bucket 0. Cancelled orders are left out.
+     * On PostgreSQL, waits for any other rebuild of the same days to commit first.
+     */
+    void rebuild(LocalDate from, LocalDate toExclusive);
+
+    /**
+     * Subtracts the orders of userId that are not cancelled from bucket 0, in
+     * one aggregate statement per table. Call it before the orders are
+     * deleted, in the same transaction.
+     */
+    void subtractUserOrders(Long userId);
+}
@@ -0,0 +1,251 @@
+package com.mycompany.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * SalesRollupRepositoryCustomImpl - Native SQL for the sales rollups.
+ *
+ * All rows of one table are upserted with a single statement, so the number
+ * of round trips does not grow with the number of products in a basket:
+ * - PostgreSQL: INSERT ... VALUES (...), (...) ON CONFLICT (key) DO UPDATE
+ *   SET revenue = daily_sales.revenue + EXCLUDED.revenue, ...
+ * - anything else (H2 in tests): the standard MERGE INTO ... USING
+ *   (SELECT ... UNION ALL SELECT ...) ON key WHEN MATCHED ... WHEN NOT MATCHED ...
+ *
+ * A rebuild deletes a date range and recomputes it with INSERT ... SELECT
+ * ... GROUP BY over orders and order_items, inside the database. On
+ * PostgreSQL it first takes a transaction-scoped advisory lock per day, so
+ * rebuilds started on different nodes for overlapping days run one after the
+ * other instead of interleaving their DELETE and INSERT. Subtracting a
+ * user's orders is the same GROUP BY, negated and upserted like the rows
+ * above, so it never loads the orders themselves.
+ */
+public class SalesRollupRepositoryCustomImpl implements SalesRollupRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupRepositoryCustomImpl.class);
+
+    // Rows per upsert statement; keeps the bind parameters of a huge basket well under driver limits
+    private static final int UPSERT_CHUNK_SIZE = 500;
+
+    private static final String[] DAILY_COLUMNS = {"sales_date", "bucket", "revenue", "units", "order_count"};
+    private static final String[] DAILY_TYPES = {"DATE", "INTEGER", "DECIMAL(14,2)", "BIGINT", "BIGINT"};
+    private static final String[] PRODUCT_COLUMNS = {"product_id", "sales_date", "bucket", "revenue", "units", "order_count"};
+    private static final String[] PRODUCT_TYPES = {"BIGINT", "DATE", "INTEGER", "DECIMAL(14,2)", "BIGINT", "BIGINT"};
+
+    // Every table ends with these three, added to on conflict; the columns before them are the key
+    private static final int VALUE_COLUMNS = 3;
+
+    // Orders counted by a rebuild
+    private static final String REBUILT_ORDERS = "o.order_date >= ?1 AND o.order_date < ?2 AND o.status <> 'CANCELLED'";
+
+    // Orders subtracted when their user is deleted
+    private static final String USER_ORDERS = "o.user_id = ?1 AND o.status <> 'CANCELLED'";
+
+    // First key of the per-day advisory locks taken by a rebuild; the second is the epoch day
+    private static final int REBUILD_LOCK_CLASS = 0x5a1e5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Boolean postgres;
+
+    @Override
+    @Transactional
+    public void add(SalesRollup rollup, int bucket) {
+        List<Object[]> daily = new ArrayList<>();
+        rollup.getDays().forEach((day, totals) ->
+            daily.add(new Object[] {day, bucket, totals.getRevenue(), totals.getUnits(), totals.getOrders()}));
+        upsert("daily_sales", DAILY_COLUMNS, DAILY_TYPES, daily);
+
+        List<Object[]> products = new ArrayList<>();
+        rollup.getProductDays().forEach((productId, days) -> days.forEach((day, totals) ->
+            products.add(new Object[] {productId, day, bucket, totals.getRevenue(), totals.getUnits(), totals.getOrders()})));
+        upsert("product_daily_sales", PRODUCT_COLUMNS, PRODUCT_TYPES, products);
+    }
+
+    @Override
+    @Transactional
+    public void rebuild(LocalDate from, LocalDate toExclusive) {
+        if (isPostgres()) {
+            // Ascending order, so two rebuilds never wait on each other's days crosswise
+            for (LocalDate day = from; day.isBefore(toExclusive); day = day.plusDays(1)) {
+                entityManager.createNativeQuery("SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(?1, ?2)) l")
+                    .setParameter(1, REBUILD_LOCK_CLASS)
+                    .setParameter(2, (int) day.toEpochDay())
+                    .getSingleResult();
+            }
+        }
+        for (String table : List.of("daily_sales", "product_daily_sales")) {
+            entityManager.createNativeQuery("DELETE FROM " + table + " WHERE sales_date >= ?1 AND sales_date < ?2")
+                .setParameter(1, from)
+                .setParameter(2, toExclusive)
+                .executeUpdate();
+        }
+
+        String daily = "INSERT INTO daily_sales (" + String.join(", ", DAILY_COLUMNS) + ") "
+            + dailyTotals(REBUILT_ORDERS, "");
+        String products = "INSERT INTO product_daily_sales (" + String.join(", ", PRODUCT_COLUMNS) + ") "
+            + productTotals(REBUILT_ORDERS, "");
+        for (String sql : List.of(daily, products)) {
+            entityManager.createNativeQuery(sql)
+                .setParameter(1, from.atStartOfDay())
+                .setParameter(2, toExclusive.atStartOfDay())
+                .executeUpdate();
+        }
+    }
+
+    @Override
+    @Transactional
+    public void subtractUserOrders(Long userId) {
+        String daily = upsertSelect("daily_sales", DAILY_COLUMNS, dailyTotals(USER_ORDERS, "-"));
+        String products = upsertSelect("product_daily_sales", PRODUCT_COLUMNS, productTotals(USER_ORDERS, "-"));
+        for (String sql : List.of(daily, products)) {
+            entityManager.createNativeQuery(sql)
+                .setParameter(1, userId)
+                .executeUpdate();
+        }
+    }
+
+    // Bucket 0 totals per day of the orders matching where, negated when sign is "-".
+    // Units per order come from a correlated subquery so joining the items does not repeat each total
+    private static String dailyTotals(String where, String sign) {
+        return "SELECT CAST(t.order_date AS DATE) AS sales_date, 0 AS bucket, " + sign + "SUM(t.total) AS revenue, "
+            + sign + "SUM(t.units) AS units, " + sign + "COUNT(*) AS order_count FROM ("
+            + "SELECT o.order_date, o.total,"
+            + " (SELECT COALESCE(SUM(oi.quantity), 0) FROM order_items oi WHERE oi.order_id = o.id) AS units"
+            + " FROM orders o WHERE " + where + ") t"
+            + " GROUP BY CAST(t.order_date AS DATE)";
+    }
+
+    // Bucket 0 totals per product and day of the orders matching where, negated when sign is "-"
+    private static String productTotals(String where, String sign) {
+        return "SELECT oi.product_id AS product_id, CAST(o.order_date AS DATE) AS sales_date, 0 AS bucket, "
+            + sign + "SUM(oi.price * oi.quantity) AS revenue, " + sign + "SUM(oi.quantity) AS units, "
+            + sign + "COUNT(DISTINCT o.id) AS order_count"
+            + " FROM orders o JOIN order_items oi ON oi.order_id = o.id"
+            + " WHERE " + where
+            + " GROUP BY oi.product_id, CAST(o.order_date AS DATE)";
+    }
+
+    private void upsert(String table, String[] columns, String[] types, List<Object[]> rows) {
+        for (int start = 0; start < rows.size(); start += UPSERT_CHUNK_SIZE) {
+            List<Object[]> chunk = rows.subList(start, Math.min(rows.size(), start + UPSERT_CHUNK_SIZE));
+            String sql = isPostgres() ? insertOnConflict(table, columns, types, chunk.size())
+                : merge(table, columns, types, chunk.size());
+            Query query = entityManager.createNativeQuery(sql);
+            for (int r = 0; r < chunk.size(); r++) {
+                for (int c = 0; c < columns.length; c++) {
+                    query.setParameter(param(r, c), chunk.get(r)[c]);
+                }
+            }
+            query.executeUpdate();
+        }
+    }
+
+    // INSERT ... SELECT ... ON CONFLICT on PostgreSQL, MERGE INTO t USING (SELECT ...) anywhere else;
+    // select must name its columns as the table does
+    private String upsertSelect(String table, String[] columns, String select) {
+        return isPostgres()
+            ? "INSERT INTO " + table + " (" + String.join(", ", columns) + ") " + select + onConflictAdd(table, columns)
+            : mergeAdd(table, columns, select);
+    }
+
+    // INSERT INTO t (k..., v...) VALUES (...), ... ON CONFLICT (k...) DO UPDATE SET v = t.v + EXCLUDED.v, ...
+    private static String insertOnConflict(String table, String[] columns, String[] types, int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+            .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+        for (int r = 0; r < rows; r++) {
+            sql.append(r > 0 ? ", (" : "(");
+            for (int c = 0; c < columns.length; c++) {
+                sql.append(c > 0 ? ", " : "").append(cast(r, c, types[c]));
+            }
+            sql.append(')');
+        }
+        return sql.append(onConflictAdd(table, columns)).toString();
+    }
+
+    // MERGE INTO t USING (SELECT ... UNION ALL ...) s ON t.k = s.k ... WHEN MATCHED ... WHEN NOT MATCHED ...
+    private static String merge(String table, String[] columns, String[] types, int rows) {
+        StringBuilder source = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            source.append(r > 0 ? " UNION ALL SELECT " : "SELECT ");
+            for (int c = 0; c < columns.length; c++) {
+                source.append(c > 0 ? ", " : "").append(cast(r, c, types[c])).append(" AS ").append(columns[c]);
+            }
+        }
+        return mergeAdd(table, columns, source.toString());
+    }
+
+    // ON CONFLICT (k...) DO UPDATE SET v = t.v + EXCLUDED.v, ...
+    private static String onConflictAdd(String table, String[] columns) {
+        int keys = columns.length - VALUE_COLUMNS;
+        StringBuilder sql = new StringBuilder(" ON CONFLICT (")
+            .append(String.join(", ", List.of(columns).subList(0, keys))).append(") DO UPDATE SET ");
+        for (int c = keys; c < columns.length; c++) {
+            sql.append(c > keys ? ", " : "")
+                .append(columns[c]).append(" = ").append(table).append('.').append(columns[c])
+                .append(" + EXCLUDED.").append(columns[c]);
+        }
+        return sql.toString();
+    }
+
+    // MERGE INTO t USING (source) s ON t.k = s.k ... WHEN MATCHED THEN UPDATE SET v = t.v + s.v ... WHEN NOT MATCHED ...
+    private static String mergeAdd(String table, String[] columns, String source) {
+        int keys = columns.length - VALUE_COLUMNS;
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" t USING (")
+            .append(source).append(") s ON ");
+        for (int c = 0; c < keys; c++) {
+            sql.append(c > 0 ? " AND " : "").append("t.").append(columns[c]).append(" = s.").append(columns[c]);
+        }
+        sql.append(" WHEN MATCHED THEN UPDATE SET ");
+        for (int c = keys; c < columns.length; c++) {
+            sql.append(c > keys ? ", " : "")
+                .append(columns[c]).append(" = t.").append(columns[c]).append(" + s.").append(columns[c]);
+        }
+        List<String> sourceColumns = new ArrayList<>();
+        for (String column : columns) {
+            sourceColumns.add("s." + column);
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns))
+            .append(") VALUES (").append(String.join(", ", sourceColumns)).append(')');
+        return sql.toString();
+    }
+
+    // CAST(:p3_1 AS DATE): typed, so the database never has to guess the type of a bare parameter
+    private static String cast(int row, int column, String type) {
+        return "CAST(:" + param(row, column) + " AS " + type + ")";
+    }
+
+    private static String param(int row, int column) {
+        return "p" + row + "_" + column;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                postgres = "PostgreSQL".equalsIgnoreCase(product);
+            } catch (MetaDataAccessException e) {
+                log.warn("Could not determine the database product, sales rollups will use MERGE", e);
+                postgres = false;
+            }
+        }
+        return postgres;
+    }
+}
@@ -1,8 +1,10 @@
 package com.mycompany.repository;
 
 import com.mycompany.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 
 /**
  * UserRepository - Data Access Layer for User entity
@@ -19,4 +21,9 @@ import org.springframework.stereotype.Repository;
 public interface UserRepository extends JpaRepository<User, Long> {
     // You can add custom query methods here if needed
     // Example: User findByEmail(String email);
+
+    // Keyset pages by primary key; Pageable only carries the page size
+    List<User> findAllByOrderByIdAsc(Pageable limit);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable limit);
 }
@@ -0,0 +1,174 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * AsyncOrderEventPublisher - Bounded, asynchronous fan-out to all brokers.
+ *
+ * Every OrderEventSink gets its own bounded queue, worker thread and circuit
+ * breaker, so a slow or dead broker only backs up its own queue. Workers drain
+ * their queue in micro-batches of up to order.events.publisher.max-batch-size.
+ * A full queue drops the event for that broker (the outbox retries it later).
+ * While a breaker is half-open the trial call carries a single event; the rest
+ * of the batch fails fast like any other rejected call and is retried later.
+ */
+@Component
+public class AsyncOrderEventPublisher implements OrderEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncOrderEventPublisher.class);
+
+    @Autowired
+    private List<OrderEventSink> sinks;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Value("${order.events.publisher.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${order.events.publisher.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${order.events.publisher.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${order.events.publisher.breaker.open-ms:30000}")
+    private long breakerOpenMillis;
+
+    private final Map<String, SinkWorker> workers = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        for (OrderEventSink sink : sinks) {
+            SinkWorker worker = new SinkWorker(sink);
+            workers.put(sink.name(), worker);
+            orderMetrics.registerEventPublisher(sink.name(), worker.queue, worker.breaker);
+            worker.thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.values().forEach(SinkWorker::stop);
+    }
+
+    @Override
+    public Set<String> brokers() {
+        return workers.keySet();
+    }
+
+    @Override
+    public Map<String, CompletableFuture<Void>> publish(OrderEvent event, Set<String> alreadyDelivered) {
+        Map<String, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        workers.forEach((name, worker) -> {
+            if (!alreadyDelivered.contains(name)) {
+                results.put(name, worker.enqueue(event));
+            }
+        });
+        return results;
+    }
+
+    private static class PendingEvent {
+        final OrderEvent event;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        PendingEvent(OrderEvent event) {
+            this.event = event;
+        }
+    }
+
+    private class SinkWorker implements Runnable {
+        final OrderEventSink sink;
+        final BlockingQueue<PendingEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final CircuitBreaker breaker;
+        final Thread thread;
+        volatile boolean running = true;
+
+        SinkWorker(OrderEventSink sink) {
+            this.sink = sink;
+            this.breaker = new CircuitBreaker(sink.name(), breakerFailureThreshold, breakerOpenMillis);
+            this.thread = new Thread(this, "order-events-" + sink.name());
+            this.thread.setDaemon(true);
+        }
+
+        CompletableFuture<Void> enqueue(OrderEvent event) {
+            PendingEvent pending = new PendingEvent(event);
+            if (!queue.offer(pending)) {
+                orderMetrics.incrementEventsDropped(sink.name());
+                pending.future.completeExceptionally(new RejectedExecutionException(sink.name() + " publish queue is full"));
+            }
+            return pending.future;
+        }
+
+        @Override
+        public void run() {
+            List<PendingEvent> batch = new ArrayList<>(maxBatchSize);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, maxBatchSize - 1);
+                deliver(batch);
+                batch.clear();
+            }
+            queue.drainTo(batch);
+            batch.forEach(pending -> pending.future.completeExceptionally(new RejectedExecutionException("Publisher stopped")));
+        }
+
+        void deliver(List<PendingEvent> batch) {
+            if (!breaker.allowRequest()) {
+                batch.forEach(pending -> pending.future.completeExceptionally(new CircuitBreaker.OpenException(sink.name())));
+                return;
+            }
+            if (breaker.getState() == CircuitBreaker.State.HALF_OPEN && batch.size() > 1) {
+                // Probe a broker that may still be down with one event, not a whole backlog
+                batch.subList(1, batch.size())
+                    .forEach(pending -> pending.future.completeExceptionally(new CircuitBreaker.OpenException(sink.name())));
+                batch = batch.subList(0, 1);
+            }
+            List<OrderEvent> events = new ArrayList<>(batch.size());
+            batch.forEach(pending -> events.add(pending.event));
+            try {
+                sink.sendBatch(events);
+                breaker.recordSuccess();
+                long now = System.nanoTime();
+                for (PendingEvent pending : batch) {
+                    orderMetrics.recordEventPublish(sink.name(), now - pending.enqueuedAt, true);
+                    pending.future.complete(null);
+                }
+            } catch (Exception e) {
+                breaker.recordFailure();
+                log.warn("Publishing {} order events to {} failed", batch.size(), sink.name(), e);
+                long now = System.nanoTime();
+                for (PendingEvent pending : batch) {
+                    orderMetrics.recordEventPublish(sink.name(), now - pending.enqueuedAt, false);
+                    pending.future.completeExceptionally(e);
+                }
+            }
+        }
+
+        void stop() {
+            running = false;
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.mycompany.service;
+
+/**
+ * CircuitBreaker - Minimal consecutive-failure circuit breaker for one broker.
+ *
+ * CLOSED: calls go through. After failureThreshold consecutive failures the
+ * breaker OPENs and calls fail fast for openMillis. Then exactly one HALF_OPEN
+ * trial call is admitted and decides whether it closes again or re-opens; every
+ * other call keeps failing fast until the trial reports back. A trial that never
+ * reports is given up after another openMillis and a new one is admitted.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Thrown (or used to fail futures) while the breaker is open.
+     */
+    public static class OpenException extends RuntimeException {
+        public OpenException(String name) {
+            super("Circuit breaker for " + name + " is open");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long trialStartedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public synchronized boolean allowRequest() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case OPEN:
+                if (now - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialStartedAt = now;
+                return true;
+            case HALF_OPEN:
+                // The trial is still out; admit a new one only if it has gone missing
+                if (now - trialStartedAt < openMillis) {
+                    return false;
+                }
+                trialStartedAt = now;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
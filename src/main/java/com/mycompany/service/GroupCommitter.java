@@ -0,0 +1,184 @@
+package com.mycompany.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GroupCommitter - Coalesces concurrent single writes into group writes.
+ *
+ * Callers block in submit() while writer threads collect queued items for up to
+ * windowMicros (or until maxGroupSize items are waiting) and hand them to the
+ * group writer, typically one transaction for the whole group. If the group
+ * write throws, every item is retried through the single writer, so one bad
+ * item only fails its own caller.
+ *
+ * A caller waits at most submitTimeoutMillis. An item is either taken by a
+ * writer or withdrawn by its caller, never both: a caller that times out, or
+ * finds the committer stopped after queueing, withdraws its item if no writer
+ * has taken it, so it is known not to be written. Only an item already being
+ * written can time out with its outcome unknown.
+ */
+public class GroupCommitter<T, R> {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+
+    private final String name;
+    private final int maxGroupSize;
+    private final long windowNanos;
+    private final long submitTimeoutMillis;
+    private final Function<List<T>, List<R>> groupWriter;
+    private final Function<T, R> singleWriter;
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private static class Pending<T, R> {
+        final T item;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        // Set once, by the writer taking the item or by the caller withdrawing it
+        final AtomicBoolean claimed = new AtomicBoolean();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+
+    public GroupCommitter(String name, int writerThreads, int maxGroupSize, long windowMicros, int queueCapacity,
+                          long submitTimeoutMillis, Function<List<T>, List<R>> groupWriter,
+                          Function<T, R> singleWriter) {
+        this.name = name;
+        this.maxGroupSize = maxGroupSize;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.groupWriter = groupWriter;
+        this.singleWriter = singleWriter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::run, name + "-" + i);
+            writer.setDaemon(true);
+            writers.add(writer);
+        }
+    }
+
+    public void start() {
+        writers.forEach(Thread::start);
+    }
+
+    public void stop() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queues the item and waits for its group to be written.
+     *
+     * @throws RejectedExecutionException if the queue is full, the committer
+     *         stopped, or the item was not written within submitTimeoutMillis
+     */
+    public R submit(T item) {
+        if (!running) {
+            throw new RejectedExecutionException(name + " is stopped");
+        }
+        Pending<T, R> pending = new Pending<>(item);
+        if (!queue.offer(pending)) {
+            throw new RejectedExecutionException(name + " queue is full");
+        }
+        // stop() may have run between the check and the offer, after the writers' last drain
+        if (!running && withdraw(pending)) {
+            throw new RejectedExecutionException(name + " is stopped");
+        }
+        try {
+            return pending.result.get(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            if (withdraw(pending)) {
+                throw new RejectedExecutionException(name + " did not reach the item within " + submitTimeoutMillis + " ms");
+            }
+            throw new RejectedExecutionException(name + " is still writing the item after " + submitTimeoutMillis
+                + " ms; it may yet be written");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (withdraw(pending)) {
+                throw new RejectedExecutionException(name + " wait interrupted");
+            }
+            throw new RejectedExecutionException(name + " wait interrupted; the item may yet be written");
+        }
+    }
+
+    // True if no writer has taken the item, which now never will
+    private boolean withdraw(Pending<T, R> pending) {
+        if (!pending.claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        queue.remove(pending);
+        return true;
+    }
+
+    private void run() {
+        List<Pending<T, R>> group = new ArrayList<>(maxGroupSize);
+        while (running) {
+            try {
+                Pending<T, R> first = queue.take();
+                if (!first.claimed.compareAndSet(false, true)) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroupSize) {
+                    Pending<T, R> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.claimed.compareAndSet(false, true)) {
+                        group.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                group.forEach(pending -> pending.result.completeExceptionally(new RejectedExecutionException(name + " is stopped")));
+                break;
+            }
+            write(group);
+            group.clear();
+        }
+        List<Pending<T, R>> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.result.completeExceptionally(new RejectedExecutionException(name + " is stopped")));
+    }
+
+    private void write(List<Pending<T, R>> group) {
+        List<T> items = new ArrayList<>(group.size());
+        group.forEach(pending -> items.add(pending.item));
+        try {
+            List<R> results = groupWriter.apply(items);
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).result.complete(results.get(i));
+            }
+            return;
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+                return;
+            }
+            log.warn("{} group of {} failed, writing items individually", name, group.size(), e);
+        }
+        for (Pending<T, R> pending : group) {
+            try {
+                pending.result.complete(singleWriter.apply(pending.item));
+            } catch (RuntimeException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+}
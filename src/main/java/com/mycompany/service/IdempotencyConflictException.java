@@ -0,0 +1,12 @@
+package com.mycompany.service;
+
+/**
+ * Thrown when another instance is still processing a request with the same
+ * Idempotency-Key and did not finish within order.idempotency.wait-ms.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String key) {
+        super("Request with idempotency key " + key + " is still in progress");
+    }
+}
@@ -0,0 +1,12 @@
+package com.mycompany.service;
+
+/**
+ * Thrown when an Idempotency-Key is sent again with a different request body
+ * than the one whose response is stored under it.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency key " + key + " was already used for a different request");
+    }
+}
@@ -0,0 +1,288 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mycompany.dto.response.OrderResponse;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * IdempotencyService - Runs order creation at most once per Idempotency-Key.
+ *
+ * A replayed key gets the stored OrderResponse back without touching the
+ * database. Concurrent requests with the same key on this instance wait for the
+ * first one instead of running createOrder themselves; across instances a claim
+ * in the store makes the loser poll for the winner's response. Only successful
+ * responses are stored: a rejected order wrote nothing, so retrying it is safe.
+ *
+ * Keys are scoped to the ordering user, and each stored response carries a
+ * SHA-256 of the user and request body: reusing a key for a different request
+ * is an error (422) rather than a replay of the unrelated first order.
+ *
+ * Uses Redis when order.idempotency.store=redis (default) and the in-memory
+ * store otherwise, or whenever a Redis call fails.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @Autowired(required = false)
+    private RedisIdempotencyStore redisStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Value("${order.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds = 86400;
+
+    // How long a request that lost the cross-instance claim waits for the winner
+    @Value("${order.idempotency.wait-ms:5000}")
+    private long waitMs = 5000;
+
+    private final InMemoryIdempotencyStore localStore = new InMemoryIdempotencyStore();
+
+    // Key -> request hash and response of the request currently creating that order on this instance
+    private final ConcurrentHashMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Outcome of an idempotent create: the response, or empty if the order was
+     * rejected, and whether it was replayed rather than created by this call.
+     */
+    public static class Result {
+        private final Optional<OrderResponse> response;
+        private final boolean replayed;
+
+        public Result(Optional<OrderResponse> response, boolean replayed) {
+            this.response = response;
+            this.replayed = replayed;
+        }
+
+        public Optional<OrderResponse> getResponse() {
+            return response;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    // A response as kept under its key, with the hash of the request that produced it
+    private static class Stored {
+        final String requestHash;
+        final Optional<OrderResponse> response;
+
+        Stored(String requestHash, Optional<OrderResponse> response) {
+            this.requestHash = requestHash;
+            this.response = response;
+        }
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        orderMetrics.registerIdempotencyStore(this::storeSize);
+    }
+
+    /**
+     * Creates the order at most once per user and key. A replay must carry the
+     * same request: the stored response is kept next to a hash of the user and
+     * the request body, and a different body under the same key is refused.
+     *
+     * @param request the request body, hashed to recognize a genuine retry
+     * @throws IdempotencyConflictException if another instance is still creating this key's order
+     * @throws IdempotencyKeyReusedException if the key was first used with a different request
+     */
+    public Result execute(Long userId, String idempotencyKey, Object request, Supplier<Optional<OrderResponse>> create) {
+        // Scoped to the ordering user so two clients can't collide on the same key
+        String key = userId + ":" + idempotencyKey;
+        String requestHash = requestHash(userId, request);
+
+        Optional<Stored> stored = lookup(key);
+        if (stored.isPresent()) {
+            orderMetrics.incrementIdempotencyRequests("hit");
+            return replay(key, requestHash, stored.get());
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            orderMetrics.incrementIdempotencyRequests("coalesced");
+            try {
+                return replay(key, requestHash, running.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            Result result = createOnce(key, requestHash, create);
+            mine.complete(new Stored(requestHash, result.getResponse()));
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Result createOnce(String key, String requestHash, Supplier<Optional<OrderResponse>> create) {
+        Duration claimTtl = Duration.ofMillis(Math.max(waitMs, 1000) * 2);
+        if (!claim(key, claimTtl)) {
+            orderMetrics.incrementIdempotencyRequests("coalesced");
+            return replay(key, requestHash, awaitOtherInstance(key));
+        }
+        try {
+            // A request that finished between our lookup and the claim already stored its response
+            Optional<Stored> stored = lookup(key);
+            if (stored.isPresent()) {
+                orderMetrics.incrementIdempotencyRequests("hit");
+                return replay(key, requestHash, stored.get());
+            }
+
+            orderMetrics.incrementIdempotencyRequests("miss");
+            Optional<OrderResponse> response = create.get();
+            response.ifPresent(created -> store(key, requestHash, created));
+            return new Result(response, false);
+        } finally {
+            release(key);
+        }
+    }
+
+    private static Result replay(String key, String requestHash, Stored stored) {
+        // Entries written before request hashes were stored have none and are trusted
+        if (stored.requestHash != null && !stored.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        return new Result(stored.response, true);
+    }
+
+    private Stored awaitOtherInstance(String key) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (System.currentTimeMillis() < deadline) {
+            Optional<Stored> stored = lookup(key);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyConflictException(key);
+    }
+
+    private Optional<Stored> lookup(String key) {
+        Optional<String> json;
+        try {
+            json = store().get(key);
+        } catch (DataAccessException e) {
+            log.warn("Idempotency store unavailable, using in-memory fallback", e);
+            json = localStore.get(key);
+        }
+        return json.map(this::readStored);
+    }
+
+    // Stored as {"requestHash": "...", "response": {...}}
+    private void store(String key, String requestHash, OrderResponse response) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("requestHash", requestHash);
+        node.set("response", objectMapper.valueToTree(response));
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order response", e);
+        }
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        try {
+            store().put(key, json, ttl);
+        } catch (DataAccessException e) {
+            log.warn("Idempotency store unavailable, using in-memory fallback", e);
+            localStore.put(key, json, ttl);
+        }
+    }
+
+    private boolean claim(String key, Duration ttl) {
+        try {
+            return store().claim(key, ttl);
+        } catch (DataAccessException e) {
+            return localStore.claim(key, ttl);
+        }
+    }
+
+    private void release(String key) {
+        try {
+            store().release(key);
+        } catch (DataAccessException e) {
+            localStore.release(key);
+        }
+        // Drop any claim taken in the fallback while Redis was down
+        localStore.release(key);
+    }
+
+    private Stored readStored(String json) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (!node.has("requestHash")) {
+                // A bare OrderResponse, stored before request hashes were kept
+                return new Stored(null, Optional.of(objectMapper.treeToValue(node, OrderResponse.class)));
+            }
+            return new Stored(node.get("requestHash").asText(),
+                Optional.of(objectMapper.treeToValue(node.get("response"), OrderResponse.class)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is not readable", e);
+        }
+    }
+
+    // SHA-256 of the user id and the request as JSON
+    private String requestHash(Long userId, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(userId).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize request for its idempotency hash", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private IdempotencyStore store() {
+        return redisStore != null ? redisStore : localStore;
+    }
+
+    private long storeSize() {
+        return redisStore != null ? redisStore.size() + localStore.size() : localStore.size();
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        localStore.purgeExpired();
+    }
+}
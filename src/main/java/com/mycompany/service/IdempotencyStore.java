@@ -0,0 +1,30 @@
+package com.mycompany.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * IdempotencyStore - TTL key/value store for replayable responses.
+ *
+ * Implemented by RedisIdempotencyStore (shared by all instances) and
+ * InMemoryIdempotencyStore (single instance, and the fallback while Redis
+ * is unreachable).
+ */
+public interface IdempotencyStore {
+
+    Optional<String> get(String key);
+
+    void put(String key, String value, Duration ttl);
+
+    /**
+     * Marks the key as being processed. Returns false if another caller holds it.
+     */
+    boolean claim(String key, Duration ttl);
+
+    void release(String key);
+
+    /**
+     * Number of stored responses (may be refreshed periodically rather than live).
+     */
+    long size();
+}
@@ -0,0 +1,63 @@
+package com.mycompany.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * InMemoryIdempotencyStore - Process-local IdempotencyStore with lazy expiry.
+ *
+ * Expired entries are dropped when read and by purgeExpired(), which
+ * IdempotencyService calls on a schedule.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ConcurrentHashMap<String, Entry> responses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> claims = new ConcurrentHashMap<>();
+
+    private record Entry(String value, long expiresAt) {
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        Entry entry = responses.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            responses.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        responses.put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public boolean claim(String key, Duration ttl) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttl.toMillis();
+        Long previous = claims.putIfAbsent(key, expiresAt);
+        // A claim left behind by a crashed request expires like the Redis one would
+        return previous == null || (previous <= now && claims.replace(key, previous, expiresAt));
+    }
+
+    @Override
+    public void release(String key) {
+        claims.remove(key);
+    }
+
+    @Override
+    public long size() {
+        return responses.size();
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        responses.values().removeIf(entry -> entry.expiresAt() <= now);
+        claims.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
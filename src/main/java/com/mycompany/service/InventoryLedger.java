@@ -0,0 +1,309 @@
+package com.mycompany.service;
+
+import com.mycompany.event.ProductsChangedEvent;
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.ProductStock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * InventoryLedger - Optional in-memory stock ledger for hot SKUs (flash sales).
+ *
+ * Enabled with inventory.ledger.enabled=true. Each SKU's available stock is an
+ * AtomicInteger updated with compare-and-set, so reservations never touch the
+ * products table on the hot path. A reservation becomes a pending delta when the
+ * surrounding transaction commits and is released if it rolls back. Pending deltas
+ * are written back in one batched UPDATE every inventory.ledger.flush-interval-ms.
+ *
+ * The ledger is rebuilt from the database at startup and is the source of truth
+ * for stock while enabled; the stock column lags by at most one flush interval.
+ * That only holds inside one JVM: a second instance would sell the same stock
+ * again. The ledger therefore refuses to start unless
+ * inventory.ledger.single-instance=true declares that this is the only node.
+ * The write-behind never takes the column below zero either; a product whose
+ * delta is refused was changed by another writer, and its counter is reloaded
+ * from the database.
+ *
+ * An absolute stock write (overwrite) or forget replaces the product's counter.
+ * A delta only becomes pending if the counter it was taken from is still the
+ * current one when its transaction commits, so reservations that straddle an
+ * overwrite are superseded by it instead of being written on top of it.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class InventoryLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+
+    // Keeps each write-behind UPDATE well under the JDBC bind-parameter limit
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+
+    // productId -> stock available for new reservations
+    private final ConcurrentHashMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    // productId -> committed change not yet written to the products table
+    private final ConcurrentHashMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    // Serialises write-behind flushes with absolute stock overwrites
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Must be set alongside inventory.ledger.enabled: the ledger is only correct on a single node
+    @Value("${inventory.ledger.single-instance:false}")
+    private boolean singleInstance;
+
+    // Flushed rows are announced so product caches stop serving the lagging stock
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    public InventoryLedger(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!singleInstance) {
+            throw new IllegalStateException("inventory.ledger.enabled needs inventory.ledger.single-instance=true:"
+                + " the ledger holds stock in this JVM, so a second instance would sell the same stock again");
+        }
+        rebuild();
+    }
+
+    /**
+     * Loads the current stock of every product from the database.
+     */
+    public void rebuild() {
+        flushLock.lock();
+        try {
+            available.clear();
+            pending.clear();
+            for (ProductStock row : productRepository.findAllStockLevels()) {
+                available.put(row.getId(), new AtomicInteger(row.getStock()));
+            }
+            log.info("Inventory ledger rebuilt with {} products", available.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Reserves a whole basket (productId -> quantity) or nothing.
+     */
+    public boolean reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        Map<Long, AtomicInteger> counters = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            AtomicInteger counter = counter(entry.getKey());
+            if (counter == null || tryChange(counter, -entry.getValue()) < 0) {
+                taken.forEach((productId, delta) -> counters.get(productId).addAndGet(-delta));
+                return false;
+            }
+            taken.put(entry.getKey(), -entry.getValue());
+            counters.put(entry.getKey(), counter);
+        }
+        commitOrRelease(taken, counters);
+        return true;
+    }
+
+    /**
+     * Applies a signed stock change if it keeps stock non-negative.
+     *
+     * @return the new available stock, or empty if unknown product / not enough stock
+     */
+    public OptionalInt adjust(Long productId, int delta) {
+        AtomicInteger counter = counter(productId);
+        if (counter == null) {
+            return OptionalInt.empty();
+        }
+        int stock = tryChange(counter, delta);
+        if (stock < 0) {
+            return OptionalInt.empty();
+        }
+        commitOrRelease(Map.of(productId, delta), Map.of(productId, counter));
+        return OptionalInt.of(stock);
+    }
+
+    /**
+     * Runs an absolute stock write against the database and resets the ledger
+     * entry to the written value. Unflushed deltas for that product are dropped
+     * because the new absolute value supersedes them, and so are deltas still
+     * in flight: their counter is replaced.
+     */
+    public Optional<Product> overwrite(Long productId, Supplier<Optional<Product>> write) {
+        flushLock.lock();
+        try {
+            Optional<Product> written = write.get();
+            // Atomic with addPending for this product: no in-flight delta lands after the reset
+            written.ifPresent(product -> pending.compute(productId, (id, unflushed) -> {
+                available.put(id, new AtomicInteger(product.getStock()));
+                return null;
+            }));
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void forget(Long productId) {
+        pending.compute(productId, (id, unflushed) -> {
+            available.remove(id);
+            return null;
+        });
+    }
+
+    public OptionalInt availableStock(Long productId) {
+        AtomicInteger counter = counter(productId);
+        return counter == null ? OptionalInt.empty() : OptionalInt.of(counter.get());
+    }
+
+    /**
+     * Writes committed deltas back to the products table in batched UPDATEs.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Integer> batch = new LinkedHashMap<>();
+            for (Map.Entry<Long, AtomicInteger> entry : pending.entrySet()) {
+                int delta = entry.getValue().getAndSet(0);
+                if (delta != 0) {
+                    batch.put(entry.getKey(), delta);
+                }
+            }
+            List<Map.Entry<Long, Integer>> entries = new ArrayList<>(batch.entrySet());
+            for (int from = 0; from < entries.size(); from += FLUSH_CHUNK_SIZE) {
+                Map<Long, Integer> chunk = new LinkedHashMap<>();
+                for (Map.Entry<Long, Integer> entry : entries.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, entries.size()))) {
+                    chunk.put(entry.getKey(), entry.getValue());
+                }
+                try {
+                    Set<Long> refused = productRepository.applyStockDeltas(chunk);
+                    if (!refused.isEmpty()) {
+                        log.error("Inventory ledger write-back would take stock below zero for products {};"
+                            + " reloading them from the database", refused);
+                        refused.forEach(this::reload);
+                    }
+                    if (eventPublisher != null) {
+                        eventPublisher.publishEvent(ProductsChangedEvent.stock(chunk.keySet()));
+                    }
+                } catch (RuntimeException e) {
+                    // Keep the deltas so the next flush retries them
+                    chunk.forEach(this::addPending);
+                    log.warn("Inventory ledger flush failed for {} products, will retry", chunk.size(), e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Replaces the counter with the stock in the database; deltas taken from the old one are superseded
+    private void reload(Long productId) {
+        Optional<Product> product = productRepository.findById(productId);
+        pending.compute(productId, (id, unflushed) -> {
+            if (product.isPresent()) {
+                available.put(id, new AtomicInteger(product.get().getStock()));
+            } else {
+                available.remove(id);
+            }
+            return null;
+        });
+    }
+
+    private AtomicInteger counter(Long productId) {
+        AtomicInteger counter = available.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        // Products created after startup are loaded lazily on first use. The read runs
+        // outside computeIfAbsent so it never holds a map bin lock over a database call
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isEmpty()) {
+            return null;
+        }
+        AtomicInteger loaded = new AtomicInteger(product.get().getStock());
+        AtomicInteger raced = available.putIfAbsent(productId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    // Lock-free check-and-apply; returns the new value, or -1 if it would go negative
+    private static int tryChange(AtomicInteger counter, int delta) {
+        int current;
+        do {
+            current = counter.get();
+            if (current + delta < 0) {
+                return -1;
+            }
+        } while (!counter.compareAndSet(current, current + delta));
+        return current + delta;
+    }
+
+    // Deltas only become write-behind work once the caller's transaction commits
+    private void commitOrRelease(Map<Long, Integer> deltas, Map<Long, AtomicInteger> counters) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deltas.forEach((productId, delta) -> addPending(productId, delta, counters.get(productId)));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    deltas.forEach((productId, delta) -> addPending(productId, delta, counters.get(productId)));
+                } else {
+                    // Back to the counter it came from; if that was replaced meanwhile this is a no-op
+                    deltas.forEach((productId, delta) -> counters.get(productId).addAndGet(-delta));
+                }
+            }
+        });
+    }
+
+    // A delta taken from a counter that overwrite/forget has since replaced is superseded and dropped
+    private void addPending(Long productId, int delta, AtomicInteger takenFrom) {
+        pending.compute(productId, (id, unflushed) -> {
+            if (available.get(id) != takenFrom) {
+                return unflushed;
+            }
+            AtomicInteger sum = unflushed != null ? unflushed : new AtomicInteger();
+            sum.addAndGet(delta);
+            return sum;
+        });
+    }
+
+    // Re-queues deltas of a failed flush; overwrite cannot run meanwhile (flushLock)
+    private void addPending(Long productId, int delta) {
+        pending.compute(productId, (id, unflushed) -> {
+            AtomicInteger sum = unflushed != null ? unflushed : new AtomicInteger();
+            sum.addAndGet(delta);
+            return sum;
+        });
+    }
+}
@@ -1,9 +1,27 @@
 package com.mycompany.service;
 
 import com.mycompany.model.Product;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface InventoryService {
     Optional<Product> adjustStock(Long productId, int delta);
     Optional<Product> setStock(Long productId, Integer stock);
+
+    /**
+     * Atomically reserves stock for a whole basket (productId -> quantity).
+     * Either every line is decremented or nothing is; returns false if any
+     * product is missing or short. Must run inside the caller's transaction.
+     */
+    boolean reserveStock(Map<Long, Integer> quantities);
+
+    /**
+     * Reserves several baskets in one pass: one row-lock query and one UPDATE
+     * for all of them instead of one pair per basket. Each basket is still
+     * all-or-nothing on its own, and baskets are served in list order.
+     *
+     * @return per basket, whether it was reserved
+     */
+    List<Boolean> reserveStock(List<Map<Long, Integer>> baskets);
 }
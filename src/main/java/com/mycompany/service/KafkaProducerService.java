@@ -1,43 +1,113 @@
 package com.mycompany.service;
 
+import com.mycompany.event.OrderEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 /**
  * KafkaProducerService - Sends messages to Kafka topics
- * 
+ *
  * This service publishes events to Kafka when something happens
  * in the e-commerce service (like when an order is created).
+ *
+ * Records are keyed by order id (or user id with order.events.kafka.key=user),
+ * so all events of one order land on the same partition in order. Event type,
+ * schema version, content type and trace id travel as record headers, so
+ * consumers can route and filter without decoding the body.
  */
 @Service
-public class KafkaProducerService {
+public class KafkaProducerService implements OrderEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaProducerService.class);
 
     // Kafka topic name
     private static final String TOPIC = "order-events";
 
+    public static final String HEADER_EVENT_TYPE = "eventType";
+    public static final String HEADER_SCHEMA_VERSION = "schemaVersion";
+    public static final String HEADER_CONTENT_TYPE = "contentType";
+    public static final String HEADER_TRACE_ID = "traceId";
+
     // KafkaTemplate is provided by Spring Kafka - handles sending messages
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    // Binary or legacy JSON message body (order.events.format)
+    @Autowired
+    private OrderEventSerializer orderEventSerializer;
+
+    // "order" or "user": which id becomes the record key
+    @Value("${order.events.kafka.key:order}")
+    private String keyBy = "order";
+
+    @Override
+    public String name() {
+        return "kafka";
+    }
 
     /**
-     * Sends an order creation event to Kafka
-     * 
-     * @param orderId The ID of the order that was created
-     * @param userId The ID of the user who created the order
-     * @param total The total amount of the order
+     * Sends an order event to Kafka
+     *
+     * @param event The order event taken from the outbox
+     * @return completes when the broker has acknowledged the record
      */
-    public void sendOrderCreatedEvent(Long orderId, Long userId, String total) {
-        // Create a JSON-like message
-        String message = String.format(
-            "{\"eventType\":\"ORDER_CREATED\",\"orderId\":%d,\"userId\":%d,\"total\":\"%s\",\"timestamp\":\"%s\"}",
-            orderId, userId, total, java.time.LocalDateTime.now()
-        );
-        
+    public CompletableFuture<SendResult<String, byte[]>> sendOrderEvent(OrderEvent event) {
+        ProducerRecord<String, byte[]> record = toRecord(event);
+
         // Send message to Kafka topic
-        kafkaTemplate.send(TOPIC, message);
-        
-        System.out.println("📤 Sent order event to Kafka: " + message);
+        CompletableFuture<SendResult<String, byte[]>> result = kafkaTemplate.send(record);
+
+        log.debug("Sent {} for order {} to Kafka with key {} ({} bytes)",
+            event.getEventType(), event.getOrderId(), record.key(), record.value().length);
+        return result;
     }
-}
 
+    /**
+     * Hands the whole batch to the producer and flushes once, instead of
+     * waiting for linger.ms on the last partial producer batch.
+     *
+     * @return completes when every record has been acknowledged
+     */
+    public CompletableFuture<Void> sendOrderEvents(List<OrderEvent> events) {
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            sends[i] = sendOrderEvent(events.get(i));
+        }
+        kafkaTemplate.flush();
+        return CompletableFuture.allOf(sends);
+    }
+
+    @Override
+    public void sendBatch(List<OrderEvent> events) throws Exception {
+        sendOrderEvents(events).get();
+    }
+
+    private ProducerRecord<String, byte[]> toRecord(OrderEvent event) {
+        Long keyId = "user".equalsIgnoreCase(keyBy) ? event.getUserId() : event.getOrderId();
+        String key = keyId == null ? null : keyId.toString();
+
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(HEADER_EVENT_TYPE, utf8(event.getEventType()));
+        headers.add(HEADER_SCHEMA_VERSION, utf8(Integer.toString(orderEventSerializer.schemaVersion())));
+        headers.add(HEADER_CONTENT_TYPE, utf8(orderEventSerializer.contentType()));
+        if (event.getTraceId() != null) {
+            headers.add(HEADER_TRACE_ID, utf8(event.getTraceId()));
+        }
+
+        return new ProducerRecord<>(TOPIC, null, key, orderEventSerializer.serialize(event, null), headers);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.event.OrderEvent;
+import com.mycompany.model.OutboxEvent;
+import com.mycompany.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * OrderEventOutbox - Records order events in the outbox table.
+ *
+ * Must be called inside the transaction that writes the order, so the event
+ * commits (or rolls back) together with it. OutboxRelay publishes it later.
+ */
+@Component
+public class OrderEventOutbox {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            outboxEventRepository.save(new OutboxEvent(event.getOrderId(), event.getEventType(), payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order event for order " + event.getOrderId(), e);
+        }
+    }
+}
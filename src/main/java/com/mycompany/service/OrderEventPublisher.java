@@ -0,0 +1,26 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * OrderEventPublisher - Fans order events out to every OrderEventSink.
+ */
+public interface OrderEventPublisher {
+
+    /**
+     * Names of all brokers events are fanned out to.
+     */
+    Set<String> brokers();
+
+    /**
+     * Queues the event for every broker not in alreadyDelivered without blocking.
+     *
+     * @return one future per broker, keyed by broker name; each completes when
+     *         that broker has accepted the event, or exceptionally if it was
+     *         dropped, rejected by an open circuit breaker or failed to send
+     */
+    Map<String, CompletableFuture<Void>> publish(OrderEvent event, Set<String> alreadyDelivered);
+}
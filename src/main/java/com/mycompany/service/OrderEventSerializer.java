@@ -0,0 +1,78 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import com.mycompany.event.OrderEventBinaryCodec;
+import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * OrderEventSerializer - Turns order events into broker message bodies.
+ *
+ * order.events.format=binary (default) uses OrderEventBinaryCodec;
+ * order.events.format=json keeps the original JSON message for consumers
+ * that have not moved to the binary schema yet.
+ */
+@Component
+public class OrderEventSerializer {
+
+    public enum Format {
+        BINARY,
+        JSON
+    }
+
+    public static final String JSON_CONTENT_TYPE = "application/json";
+
+    // Spring converts "binary"/"json" to the enum case-insensitively
+    @Value("${order.events.format:binary}")
+    private Format format = Format.BINARY;
+
+    public OrderEventSerializer() {
+    }
+
+    public OrderEventSerializer(Format format) {
+        this.format = format;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public String contentType() {
+        return format == Format.BINARY ? OrderEventBinaryCodec.CONTENT_TYPE : JSON_CONTENT_TYPE;
+    }
+
+    /**
+     * Schema version of the body: the binary codec's version, or 0 for the legacy JSON.
+     */
+    public int schemaVersion() {
+        return format == Format.BINARY ? OrderEventBinaryCodec.SCHEMA_VERSION : 0;
+    }
+
+    /**
+     * @param broker added as a "broker" field in JSON mode, or null to leave it out
+     */
+    public byte[] serialize(OrderEvent event, String broker) {
+        if (format == Format.BINARY) {
+            return OrderEventBinaryCodec.toBytes(event);
+        }
+        return legacyJson(event, broker).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Same text the producers used to build with String.format, without the format parsing.
+     */
+    public static String legacyJson(OrderEvent event, String broker) {
+        StringBuilder json = new StringBuilder(160)
+            .append("{\"eventType\":\"").append(event.getEventType())
+            .append("\",\"orderId\":").append(event.getOrderId())
+            .append(",\"userId\":").append(event.getUserId())
+            .append(",\"total\":\"").append(event.getTotal())
+            .append("\",\"timestamp\":\"").append(event.getTimestamp())
+            .append('"');
+        if (broker != null) {
+            json.append(",\"broker\":\"").append(broker).append('"');
+        }
+        return json.append('}').toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import java.util.List;
+
+/**
+ * OrderEventSink - A message broker that order events can be published to.
+ *
+ * Implemented by KafkaProducerService and RabbitMQProducerService. The
+ * OrderEventPublisher calls sendBatch from one dedicated thread per sink.
+ */
+public interface OrderEventSink {
+
+    /**
+     * Short broker name used in metrics and the outbox delivery record.
+     */
+    String name();
+
+    /**
+     * Publishes a micro-batch and returns once the broker has accepted all of it.
+     * Throws if any event in the batch could not be delivered.
+     */
+    void sendBatch(List<OrderEvent> events) throws Exception;
+}
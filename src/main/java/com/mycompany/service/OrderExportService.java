@@ -0,0 +1,144 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * OrderExportService - Writes orders as NDJSON or CSV straight from a database cursor.
+ *
+ * Rows are read through OrderRepository.streamForExport and written one at a
+ * time, so neither a List of entities nor a List of DTOs is ever built. The
+ * persistence context is cleared every fetchSize rows, which keeps memory flat
+ * however many orders match. One line per order: id, userId, orderDate,
+ * status, total (order lines are not included).
+ */
+@Service
+public class OrderExportService {
+
+    private final JsonFactory jsonFactory = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Rows per JDBC round trip, and rows between persistence context clears
+    @Value("${orders.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Writes every order matching the filters to out. Null filters match everything.
+     *
+     * @param from first order day, inclusive
+     * @param to last order day, inclusive
+     * @return number of orders written
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, Collection<OrderStatus> statuses, LocalDate from, LocalDate to,
+                       OutputStream out) throws IOException {
+        Collection<OrderStatus> status = statuses == null || statuses.isEmpty()
+            ? EnumSet.allOf(OrderStatus.class) : statuses;
+        LocalDateTime start = from != null ? from.atStartOfDay() : null;
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : null;
+
+        try (Stream<Order> orders = orderRepository.streamForExport(status, start, end, fetchSize)) {
+            return format == Format.CSV ? writeCsv(orders.iterator(), out) : writeNdjson(orders.iterator(), out);
+        }
+    }
+
+    private long writeNdjson(Iterator<Order> orders, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            // One object per line instead of the default space between root values
+            json.setRootValueSeparator(null);
+            while (orders.hasNext()) {
+                Order order = orders.next();
+                json.writeStartObject();
+                json.writeNumberField("id", order.getId());
+                json.writeNumberField("userId", order.getUser().getId());
+                json.writeStringField("orderDate", order.getOrderDate().toString());
+                json.writeStringField("status", order.getStatus().name());
+                json.writeNumberField("total", order.getTotal());
+                json.writeEndObject();
+                json.writeRaw('\n');
+                release(++count);
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<Order> orders, OutputStream out) throws IOException {
+        long count = 0;
+        // Every column is a number, date or enum name, so nothing needs quoting
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write("id,userId,orderDate,status,total\n");
+        while (orders.hasNext()) {
+            Order order = orders.next();
+            csv.write(String.valueOf(order.getId()));
+            csv.write(',');
+            csv.write(String.valueOf(order.getUser().getId()));
+            csv.write(',');
+            csv.write(order.getOrderDate().toString());
+            csv.write(',');
+            csv.write(order.getStatus().name());
+            csv.write(',');
+            csv.write(order.getTotal().toPlainString());
+            csv.write('\n');
+            release(++count);
+        }
+        csv.flush();
+        return count;
+    }
+
+    // Drops the orders (and user proxies) loaded so far; the cursor keeps going
+    private void release(long count) {
+        if (count % fetchSize == 0) {
+            entityManager.clear();
+        }
+    }
+}
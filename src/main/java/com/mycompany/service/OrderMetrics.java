@@ -1,8 +1,15 @@
 package com.mycompany.service;
 
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.concurrent.atomic.AtomicLong;
 import org.springframework.stereotype.Component;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * OrderMetrics - Custom counters for observability dashboards.
@@ -10,15 +17,174 @@ import io.micrometer.core.instrument.MeterRegistry;
 @Component
 public class OrderMetrics {
 
+    private final MeterRegistry registry;
     private final Counter ordersCreated;
+    private final Counter outboxPublished;
+    private final Counter outboxFailures;
+    private final AtomicLong outboxPending = new AtomicLong();
+    private final AtomicLong outboxLagMillis = new AtomicLong();
 
     public OrderMetrics(MeterRegistry registry) {
+        this.registry = registry;
         this.ordersCreated = Counter.builder("order_service_orders_created_total")
             .description("Number of orders created via API")
             .register(registry);
+        this.outboxPublished = Counter.builder("order_service_outbox_published_total")
+            .description("Order events relayed from the outbox to the brokers")
+            .register(registry);
+        this.outboxFailures = Counter.builder("order_service_outbox_failures_total")
+            .description("Outbox publish attempts that failed and were rescheduled")
+            .register(registry);
+        Gauge.builder("order_service_outbox_pending", outboxPending, AtomicLong::get)
+            .description("Order events waiting in the outbox")
+            .register(registry);
+        Gauge.builder("order_service_outbox_lag_seconds", outboxLagMillis, lag -> lag.get() / 1000.0)
+            .description("Age of the oldest unpublished order event")
+            .register(registry);
     }
 
     public void incrementOrdersCreated() {
         ordersCreated.increment();
     }
+
+    public void incrementOutboxPublished(int count) {
+        outboxPublished.increment(count);
+    }
+
+    public void incrementOutboxFailures() {
+        outboxFailures.increment();
+    }
+
+    public void incrementOutboxParked() {
+        Counter.builder("order_service_outbox_parked_total")
+            .description("Outbox events parked because their payload could not be read")
+            .register(registry)
+            .increment();
+    }
+
+    public void recordOutboxBacklog(long pending, long lagMillis) {
+        outboxPending.set(pending);
+        outboxLagMillis.set(lagMillis);
+    }
+
+    public void registerEventPublisher(String broker, Collection<?> queue, CircuitBreaker breaker) {
+        Gauge.builder("order_service_event_queue_depth", queue, Collection::size)
+            .description("Order events waiting in the publisher queue")
+            .tag("broker", broker)
+            .register(registry);
+        Gauge.builder("order_service_event_circuit_open", breaker, b -> b.getState() == CircuitBreaker.State.OPEN ? 1 : 0)
+            .description("1 while the broker's circuit breaker is open")
+            .tag("broker", broker)
+            .register(registry);
+    }
+
+    public void incrementEventsDropped(String broker) {
+        Counter.builder("order_service_event_dropped_total")
+            .description("Order events dropped because the publisher queue was full")
+            .tag("broker", broker)
+            .register(registry)
+            .increment();
+    }
+
+    public void recordEventPublish(String broker, long latencyNanos, boolean success) {
+        Timer.builder("order_service_event_publish_latency")
+            .description("Time from enqueue to broker acknowledgement")
+            .tag("broker", broker)
+            .tag("outcome", success ? "success" : "failure")
+            .register(registry)
+            .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void registerRabbitConfirmWindow(Semaphore window, int size) {
+        Gauge.builder("order_service_rabbitmq_confirms_in_flight", window, w -> size - w.availablePermits())
+            .description("RabbitMQ messages published and still awaiting a publisher confirm")
+            .register(registry);
+    }
+
+    public void recordRabbitConfirm(long latencyNanos, boolean ack) {
+        Timer.builder("order_service_rabbitmq_confirm_latency")
+            .description("Time from RabbitMQ publish to publisher confirm")
+            .tag("outcome", ack ? "ack" : "nack")
+            .register(registry)
+            .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void incrementRabbitRepublished(int count) {
+        Counter.builder("order_service_rabbitmq_republished_total")
+            .description("Order events republished to RabbitMQ after a nack")
+            .register(registry)
+            .increment(count);
+    }
+
+    public void registerIdempotencyStore(LongSupplier size) {
+        Gauge.builder("order_service_idempotency_store_size", size, LongSupplier::getAsLong)
+            .description("Stored idempotent order responses")
+            .register(registry);
+    }
+
+    // result: hit (replayed from the store), coalesced (waited for a concurrent duplicate) or miss
+    public void incrementIdempotencyRequests(String result) {
+        Counter.builder("order_service_idempotency_requests_total")
+            .description("POST /api/orders requests carrying an Idempotency-Key")
+            .tag("result", result)
+            .register(registry)
+            .increment();
+    }
+
+    public void registerOrderSubmissionQueue(Collection<?> queue) {
+        Gauge.builder("order_service_async_submissions_queued", queue, Collection::size)
+            .description("Orders accepted with 202 and waiting for a worker")
+            .register(registry);
+    }
+
+    public void incrementOrderSubmissionsRejected() {
+        Counter.builder("order_service_async_submissions_rejected_total")
+            .description("Async order submissions rejected with 429 because the queue was full")
+            .register(registry)
+            .increment();
+    }
+
+    public void registerCache(String cache, LongSupplier localSize) {
+        Gauge.builder("order_service_cache_local_size", localSize, LongSupplier::getAsLong)
+            .description("Entries in the in-process near-cache")
+            .tag("cache", cache)
+            .register(registry);
+    }
+
+    public void recordCacheRequest(String cache, String tier, boolean hit) {
+        Counter.builder("order_service_cache_requests_total")
+            .description("Cache lookups per tier (local near-cache, redis)")
+            .tag("cache", cache)
+            .tag("tier", tier)
+            .tag("result", hit ? "hit" : "miss")
+            .register(registry)
+            .increment();
+    }
+
+    public void incrementCacheEvictions(String cache, String tier, String cause) {
+        Counter.builder("order_service_cache_evictions_total")
+            .description("Cache entries removed per tier: invalidated, remote (pub/sub), size or expired")
+            .tag("cache", cache)
+            .tag("tier", tier)
+            .tag("cause", cause)
+            .register(registry)
+            .increment();
+    }
+
+    public void incrementCacheRefreshes(String cache, String trigger, int keys) {
+        Counter.builder("order_service_cache_refreshes_total")
+            .description("Entries reloaded in the background: early (refresh-ahead) or stale (served while reloading)")
+            .tag("cache", cache)
+            .tag("trigger", trigger)
+            .register(registry)
+            .increment(keys);
+    }
+
+    public void incrementCacheCoalescedLoads(String cache, int keys) {
+        Counter.builder("order_service_cache_coalesced_loads_total")
+            .description("Cache misses that waited for another request's in-flight load instead of loading")
+            .tag("cache", cache)
+            .register(registry)
+            .increment(keys);
+    }
 }
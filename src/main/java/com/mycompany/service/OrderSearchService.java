@@ -0,0 +1,86 @@
+package com.mycompany.service;
+
+import com.mycompany.dto.request.OrderSearchRequest;
+import com.mycompany.model.Order;
+import com.mycompany.repository.OrderRepository;
+import com.mycompany.repository.OrderSearchCriteria;
+import java.util.List;
+import java.util.OptionalLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * OrderSearchService - Filtered, keyset-paginated order search for dashboards.
+ *
+ * The total is computed on the first page only. The planner's estimate is
+ * asked first; an exact COUNT(*) is only run when the estimate is small
+ * enough that counting is cheap, so a broad filter over millions of orders
+ * costs one EXPLAIN instead of a full scan.
+ */
+@Service
+public class OrderSearchService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // Above this many estimated matches the estimate is returned instead of COUNT(*)
+    @Value("${orders.search.exact-count-threshold:10000}")
+    private long exactCountThreshold = 10000;
+
+    /**
+     * One page of matching orders with their lines loaded, and the total on the first page.
+     */
+    public static class Result {
+        private final List<Order> orders;
+        private final Long total;
+        private final boolean totalEstimated;
+
+        public Result(List<Order> orders, Long total, boolean totalEstimated) {
+            this.orders = orders;
+            this.total = total;
+            this.totalEstimated = totalEstimated;
+        }
+
+        public List<Order> getOrders() {
+            return orders;
+        }
+
+        public Long getTotal() {
+            return total;
+        }
+
+        public boolean isTotalEstimated() {
+            return totalEstimated;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Result search(OrderSearchRequest filter, PageCursor after, int limit) {
+        OrderSearchCriteria criteria = criteria(filter);
+        List<Order> orders = after == null
+            ? orderRepository.search(criteria, null, null, limit)
+            : orderRepository.search(criteria, after.getOrderDate(), after.getId(), limit);
+        if (!orders.isEmpty()) {
+            orderRepository.fetchItemsByIdIn(orders.stream().map(Order::getId).toList());
+        }
+        if (after != null) {
+            return new Result(orders, null, false);
+        }
+
+        OptionalLong estimate = orderRepository.estimateSearchCount(criteria);
+        if (estimate.isPresent() && estimate.getAsLong() > exactCountThreshold) {
+            return new Result(orders, estimate.getAsLong(), true);
+        }
+        return new Result(orders, orderRepository.countSearch(criteria), false);
+    }
+
+    // Inclusive days become half-open orderDate bounds
+    private static OrderSearchCriteria criteria(OrderSearchRequest filter) {
+        return new OrderSearchCriteria(filter.getStatus(), filter.getUserId(),
+            filter.getFrom() != null ? filter.getFrom().atStartOfDay() : null,
+            filter.getTo() != null ? filter.getTo().plusDays(1).atStartOfDay() : null,
+            filter.getMinTotal(), filter.getMaxTotal());
+    }
+}
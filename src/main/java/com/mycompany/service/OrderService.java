@@ -7,9 +7,39 @@ import java.util.List;
 import java.util.Optional;
 
 public interface OrderService {
-    List<Order> getAllOrders();
+    /**
+     * Orders newest first, starting after the cursor (null for the first page).
+     */
+    List<Order> getOrders(PageCursor after, int limit);
     Optional<Order> getOrderById(Long id);
-    Optional<List<Order>> getOrdersByUser(Long userId);
+
+    /**
+     * The order's row version without loading it; empty if there is no such order.
+     */
+    Optional<Long> getOrderVersion(Long id);
+
+    /**
+     * A user's orders newest first; empty if the user does not exist.
+     */
+    Optional<List<Order>> getOrdersByUser(Long userId, PageCursor after, int limit);
+
+    /**
+     * Creates one order; empty if it was rejected.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if group commit is enabled and its queue is full
+     */
     Optional<Order> createOrder(CreateOrderRequest request);
-    Optional<Order> updateOrderStatus(Long id, OrderStatus status);
+
+    /**
+     * Creates many orders in chunked transactions with batched inserts.
+     * Results are in request order; an empty entry means that order was rejected.
+     */
+    List<Optional<Order>> createOrders(List<CreateOrderRequest> requests);
+
+    /**
+     * @param expectedVersion version the client last saw (If-Match), or null to skip the check
+     * @throws VersionConflictException if the order is no longer at expectedVersion
+     * @throws TerminalOrderException if the order is DELIVERED or CANCELLED and status differs
+     */
+    Optional<Order> updateOrderStatus(Long id, OrderStatus status, Long expectedVersion);
 }
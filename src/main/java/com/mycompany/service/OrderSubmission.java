@@ -0,0 +1,63 @@
+package com.mycompany.service;
+
+import com.mycompany.dto.response.OrderResponse;
+import java.time.Instant;
+
+/**
+ * OrderSubmission - State of an order accepted with 202 and created in the background.
+ */
+public class OrderSubmission {
+
+    public enum Status {
+        ACCEPTED,   // Queued, not picked up by a worker yet
+        PROCESSING, // A worker is creating the order
+        CREATED,    // Order created; see getOrder()
+        REJECTED,   // Invalid user/product or not enough stock
+        FAILED      // Unexpected error; safe to resubmit
+    }
+
+    private final String id;
+    private final Instant submittedAt = Instant.now();
+    private volatile Status status = Status.ACCEPTED;
+    // The order as created, so polls need no database read
+    private volatile OrderResponse order;
+    private volatile Instant completedAt;
+
+    public OrderSubmission(String id) {
+        this.id = id;
+    }
+
+    void processing() {
+        status = Status.PROCESSING;
+    }
+
+    void complete(Status outcome, OrderResponse order) {
+        this.order = order;
+        this.completedAt = Instant.now();
+        this.status = outcome;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public OrderResponse getOrder() {
+        return order;
+    }
+
+    public Long getOrderId() {
+        return order != null ? order.getId() : null;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,140 @@
+package com.mycompany.service;
+
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.dto.response.OrderResponse;
+import com.mycompany.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * OrderSubmissionService - Accepts orders for background creation.
+ *
+ * Submissions run OrderService.createOrder on a fixed pool of
+ * orders.async.workers threads fed by a queue of orders.async.queue-capacity.
+ * When the queue is full submit() throws RejectedExecutionException (429)
+ * instead of letting latency grow without bound. Outcomes, including the
+ * created order's response, are kept in memory for
+ * orders.async.result-ttl-seconds, so they are only visible on the instance
+ * that accepted the order. A submission that never completes (its worker
+ * died) is dropped the same time after it was submitted.
+ */
+@Service
+public class OrderSubmissionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSubmissionService.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Value("${orders.async.workers:8}")
+    private int workers;
+
+    @Value("${orders.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${orders.async.result-ttl-seconds:3600}")
+    private long resultTtlSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private final ConcurrentHashMap<String, OrderSubmission> submissions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "order-submission-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        orderMetrics.registerOrderSubmissionQueue(executor.getQueue());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Shape checks that need no database access; everything else is checked by the worker.
+     */
+    public static boolean isWellFormed(CreateOrderRequest request) {
+        if (request == null || request.getUserId() == null || request.getItems() == null || request.getItems().isEmpty()) {
+            return false;
+        }
+        for (OrderItemRequest item : request.getItems()) {
+            if (item == null || item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param toResponse builds the response kept with the submission, on the worker
+     * @throws RejectedExecutionException if the work queue is full
+     */
+    public OrderSubmission submit(CreateOrderRequest request, Function<Order, OrderResponse> toResponse) {
+        OrderSubmission submission = new OrderSubmission(UUID.randomUUID().toString());
+        submissions.put(submission.getId(), submission);
+        try {
+            executor.execute(() -> process(submission, request, toResponse));
+        } catch (RejectedExecutionException e) {
+            submissions.remove(submission.getId());
+            orderMetrics.incrementOrderSubmissionsRejected();
+            throw e;
+        }
+        return submission;
+    }
+
+    public Optional<OrderSubmission> getSubmission(String id) {
+        return Optional.ofNullable(submissions.get(id));
+    }
+
+    private void process(OrderSubmission submission, CreateOrderRequest request, Function<Order, OrderResponse> toResponse) {
+        submission.processing();
+        try {
+            Optional<Order> order = orderService.createOrder(request);
+            if (order.isPresent()) {
+                submission.complete(OrderSubmission.Status.CREATED, toResponse.apply(order.get()));
+            } else {
+                submission.complete(OrderSubmission.Status.REJECTED, null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Order submission {} failed", submission.getId(), e);
+            submission.complete(OrderSubmission.Status.FAILED, null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.async.purge-interval-ms:60000}")
+    public void purgeCompleted() {
+        Instant cutoff = Instant.now().minusSeconds(resultTtlSeconds);
+        submissions.values().removeIf(submission -> submission.getCompletedAt() != null
+            ? submission.getCompletedAt().isBefore(cutoff)
+            : submission.getSubmittedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,198 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.event.OrderEvent;
+import com.mycompany.model.OutboxEvent;
+import com.mycompany.repository.OutboxEventRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * OutboxRelay - Drains the order event outbox to Kafka and RabbitMQ.
+ *
+ * Runs in the background, so order creation never waits on a broker. Each pass
+ * claims the next batch of due events in a short transaction (FOR UPDATE SKIP
+ * LOCKED, then claimed_until set to a lease of twice the send timeout) and
+ * commits, so no row lock or connection is held while brokers are slow. It then
+ * hands the batch to the OrderEventPublisher, waits for the acknowledgements,
+ * and in a second transaction deletes the rows every broker has accepted and
+ * releases the rest. The whole batch shares one send deadline,
+ * outbox.relay.send-timeout-ms. A relay that dies mid-send leaves its claims to
+ * expire, and the events are sent again. Brokers that did accept an event are
+ * remembered in deliveredTo, so a retry only goes to the brokers that failed. Failed events are retried with exponential backoff. An event whose
+ * payload cannot be read would fail forever, so it is parked instead.
+ * Delivery is at-least-once: consumers should de-duplicate on orderId + eventType.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${outbox.relay.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    @Value("${outbox.relay.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<OutboxEvent> batch;
+        do {
+            batch = transactionTemplate.execute(status -> claimNextBatch());
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            relayBatch(transactionTemplate, batch);
+        } while (batch.size() == batchSize);
+    }
+
+    // Backlog gauges on their own, slower schedule: COUNT(*) scans the whole outbox
+    @Scheduled(fixedDelayString = "${outbox.relay.backlog-interval-ms:10000}")
+    public void recordBacklog() {
+        Instant oldest = outboxEventRepository.findFirstByParkedAtIsNullOrderByCreatedAtAsc()
+            .map(OutboxEvent::getCreatedAt).orElse(null);
+        long lagMillis = oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis();
+        orderMetrics.recordOutboxBacklog(outboxEventRepository.countByParkedAtIsNull(), lagMillis);
+    }
+
+    // Runs in its own transaction; the claims are written when it commits
+    private List<OutboxEvent> claimNextBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(now, batchSize);
+        // Covers the send deadline plus the time to record the outcome
+        Instant claimedUntil = now.plusMillis(2 * sendTimeoutMs);
+        batch.forEach(outboxEvent -> outboxEvent.setClaimedUntil(claimedUntil));
+        return batch;
+    }
+
+    // Sends a claimed batch outside any transaction, then records the outcome in one
+    private void relayBatch(TransactionTemplate transactionTemplate, List<OutboxEvent> batch) {
+        // Parked or rescheduled events, written back once the sends are settled
+        Map<Long, OutboxEvent> unfinished = new LinkedHashMap<>();
+
+        // Hand the whole batch to the publisher before waiting on any acknowledgement
+        List<Map<String, CompletableFuture<Void>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            OrderEvent event = read(outboxEvent);
+            if (event == null) {
+                unfinished.put(outboxEvent.getId(), outboxEvent);
+            }
+            sends.add(event == null ? null : orderEventPublisher.publish(event, deliveredTo(outboxEvent)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> delivered = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (sends.get(i) == null) {
+                continue;
+            }
+            OutboxEvent outboxEvent = batch.get(i);
+            Set<String> deliveredTo = deliveredTo(outboxEvent);
+            Exception failure = null;
+            for (Map.Entry<String, CompletableFuture<Void>> send : sends.get(i).entrySet()) {
+                try {
+                    // Past the deadline this no longer waits: sends still outstanding count as failed
+                    send.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    deliveredTo.add(send.getKey());
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    failure = e;
+                }
+            }
+
+            if (deliveredTo.containsAll(orderEventPublisher.brokers())) {
+                delivered.add(outboxEvent.getId());
+            } else {
+                outboxEvent.setDeliveredTo(String.join(",", deliveredTo));
+                reschedule(outboxEvent, failure);
+                unfinished.put(outboxEvent.getId(), outboxEvent);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.deleteAllByIdInBatch(delivered);
+            // One SELECT for the rows to release; the claimed copies are detached
+            for (OutboxEvent row : outboxEventRepository.findAllById(unfinished.keySet())) {
+                OutboxEvent outcome = unfinished.get(row.getId());
+                row.setAttempts(outcome.getAttempts());
+                row.setNextAttemptAt(outcome.getNextAttemptAt());
+                row.setDeliveredTo(outcome.getDeliveredTo());
+                row.setParkedAt(outcome.getParkedAt());
+                row.setClaimedUntil(null);
+            }
+        });
+        orderMetrics.incrementOutboxPublished(delivered.size());
+    }
+
+    // Null if the payload is unreadable; such an event is parked, since retrying cannot fix it
+    private OrderEvent read(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), OrderEvent.class);
+        } catch (Exception e) {
+            outboxEvent.setParkedAt(Instant.now());
+            orderMetrics.incrementOutboxParked();
+            log.error("Outbox event {} for order {} has an unreadable payload and was parked",
+                outboxEvent.getId(), outboxEvent.getAggregateId(), e);
+            return null;
+        }
+    }
+
+    private static Set<String> deliveredTo(OutboxEvent outboxEvent) {
+        Set<String> brokers = new LinkedHashSet<>();
+        if (outboxEvent.getDeliveredTo() != null && !outboxEvent.getDeliveredTo().isEmpty()) {
+            brokers.addAll(Arrays.asList(outboxEvent.getDeliveredTo().split(",")));
+        }
+        return brokers;
+    }
+
+    private void reschedule(OutboxEvent outboxEvent, Exception cause) {
+        int attempts = outboxEvent.getAttempts() + 1;
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        outboxEvent.setAttempts(attempts);
+        outboxEvent.setNextAttemptAt(Instant.now().plusMillis(backoffMs));
+        orderMetrics.incrementOutboxFailures();
+        log.warn("Publishing outbox event {} for order {} failed (attempt {}), retrying in {} ms",
+            outboxEvent.getId(), outboxEvent.getAggregateId(), attempts, backoffMs, cause);
+    }
+}
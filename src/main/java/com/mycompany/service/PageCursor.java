@@ -0,0 +1,116 @@
+package com.mycompany.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * PageCursor - Opaque continuation token for keyset pagination.
+ *
+ * Holds the sort key of the last row of a page: (orderDate, id) for orders,
+ * id alone for users and products. The next page is read with a
+ * "WHERE key < cursor" range scan on an index, never with OFFSET. Clients
+ * must treat the token as opaque; its encoding may change between versions.
+ */
+public final class PageCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final String VERSION = "v1";
+
+    private final LocalDateTime orderDate;
+    private final Long id;
+
+    private PageCursor(LocalDateTime orderDate, Long id) {
+        this.orderDate = orderDate;
+        this.id = id;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public static String encode(LocalDateTime orderDate, Long id) {
+        return token(VERSION + "|" + orderDate + "|" + id);
+    }
+
+    public static String encode(Long id) {
+        return token(VERSION + "||" + id);
+    }
+
+    /**
+     * @return null for a missing token (first page)
+     * @throws IllegalArgumentException if the token was not produced by encode
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            LocalDateTime orderDate = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new PageCursor(orderDate, Long.valueOf(parts[2]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+
+    /**
+     * Decodes the cursor parameter of an (orderDate, id) listing.
+     *
+     * @return null for a missing token (first page)
+     * @throws ResponseStatusException 400 if the token is not an order cursor we issued
+     */
+    public static PageCursor forOrders(String token) {
+        return fromRequest(token, true);
+    }
+
+    /**
+     * Decodes the cursor parameter of a listing keyed by id alone (users, products).
+     *
+     * @return null for a missing token (first page)
+     * @throws ResponseStatusException 400 if the token is not an id cursor we issued
+     */
+    public static PageCursor forIds(String token) {
+        return fromRequest(token, false);
+    }
+
+    /**
+     * Requested page size clamped to 1..MAX_PAGE_SIZE; DEFAULT_PAGE_SIZE if absent.
+     */
+    public static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // A cursor of the other kind would be read as "before null" and silently end the listing
+    private static PageCursor fromRequest(String token, boolean withOrderDate) {
+        PageCursor cursor;
+        try {
+            cursor = decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (cursor != null && (cursor.orderDate != null) != withOrderDate) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page cursor is not for this listing");
+        }
+        return cursor;
+    }
+
+    private static String token(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,235 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.cache.CacheSerializer;
+import com.mycompany.cache.TwoLevelCache;
+import com.mycompany.dto.response.CursorPage;
+import com.mycompany.dto.response.ProductResponse;
+import com.mycompany.event.ProductsChangedEvent;
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * ProductCatalogService - Cached product reads for GET /api/products.
+ *
+ * Two caches, both local + Redis (see TwoLevelCache):
+ * - products: one ProductResponse per product id
+ * - product-pages: the ids on each list page and its next cursor
+ *
+ * A list page is resolved through the per-product cache, so a stock or price
+ * change only evicts that product's entry. Pages are only cleared when products
+ * are created or deleted. Evictions run after the writing transaction commits,
+ * driven by ProductsChangedEvent from ProductService and InventoryService; the
+ * local entries go at once, and the Redis delete and broadcast for all of a
+ * commit's products follow as one batch on a background thread, so an order
+ * does not wait on Redis.
+ *
+ * Misses are coalesced and hot entries are reloaded in the background on a
+ * small refresh pool, so an expiring page does not send every concurrent
+ * request to the database at once.
+ */
+@Service
+public class ProductCatalogService {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private RedisTemplate<String, byte[]> cacheRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    // Bump when ProductResponse / ProductPage change shape: new keys, old entries just expire
+    private static final int PRODUCT_SCHEMA_VERSION = 2;
+    private static final int PAGE_SCHEMA_VERSION = 1;
+
+    @Value("${products.cache.redis.enabled:true}")
+    private boolean redisEnabled = true;
+
+    @Value("${products.cache.local-max-size:10000}")
+    private long localMaxSize = 10000;
+
+    // Short: bounds how long a node can serve an entry after a missed broadcast
+    @Value("${products.cache.local-ttl-seconds:30}")
+    private long localTtlSeconds = 30;
+
+    @Value("${products.cache.redis-ttl-seconds:300}")
+    private long redisTtlSeconds = 300;
+
+    // How long past the local TTL an entry is still served while it is reloaded
+    @Value("${products.cache.stale-seconds:30}")
+    private long staleSeconds = 30;
+
+    @Value("${products.cache.refresh-threads:2}")
+    private int refreshThreads = 2;
+
+    // json or smile (binary JSON); entries of either are readable whichever is set
+    @Value("${products.cache.codec:smile}")
+    private String codec = "smile";
+
+    @Value("${products.cache.compress-threshold-bytes:1024}")
+    private int compressThreshold = 1024;
+
+    private ThreadPoolExecutor refreshExecutor;
+    private ThreadPoolExecutor evictionExecutor;
+    private TwoLevelCache<ProductResponse> products;
+    private TwoLevelCache<ProductPage> pages;
+
+    /**
+     * Cached list page: product ids in page order and the cursor of the next page.
+     */
+    public static class ProductPage {
+        private final List<Long> ids;
+        private final String nextCursor;
+
+        @JsonCreator
+        public ProductPage(@JsonProperty("ids") List<Long> ids, @JsonProperty("nextCursor") String nextCursor) {
+            this.ids = ids;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        RedisTemplate<String, byte[]> redis = redisEnabled ? cacheRedisTemplate : null;
+        CacheInvalidationBus bus = redisEnabled ? invalidationBus : null;
+        Duration localTtl = Duration.ofSeconds(localTtlSeconds);
+        Duration staleTtl = Duration.ofSeconds(staleSeconds);
+        Duration redisTtl = Duration.ofSeconds(redisTtlSeconds);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Refreshes are best-effort: when the pool is backed up, readers keep the current value
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-cache-refresh-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+        // Evictions must not be dropped: when this thread falls behind, the committing thread runs its own
+        evictionExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(1000),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-cache-evict");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+        products = new TwoLevelCache<>("products", ProductResponse.class, localMaxSize, localTtl, staleTtl, redisTtl,
+            redis, CacheSerializer.of(codec, objectMapper, PRODUCT_SCHEMA_VERSION, compressThreshold),
+            bus, refreshExecutor, evictionExecutor, orderMetrics);
+        pages = new TwoLevelCache<>("product-pages", ProductPage.class, 1000, localTtl, staleTtl, redisTtl,
+            redis, CacheSerializer.of(codec, objectMapper, PAGE_SCHEMA_VERSION, compressThreshold),
+            bus, refreshExecutor, evictionExecutor, orderMetrics);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refreshExecutor.shutdownNow();
+        evictionExecutor.shutdown();
+    }
+
+    public Optional<ProductResponse> getProduct(Long id) {
+        return Optional.ofNullable(products.get(String.valueOf(id),
+            () -> productRepository.findById(id).map(ProductCatalogService::toResponse).orElse(null)));
+    }
+
+    public CursorPage<ProductResponse> getProducts(PageCursor after, int size) {
+        String pageKey = size + ":" + (after == null ? "" : after.getId());
+        ProductPage page = pages.get(pageKey, () -> loadPage(after, size));
+        // A product deleted since the page was cached is skipped until the page is cleared
+        return new CursorPage<>(getProducts(page.getIds()), page.getNextCursor());
+    }
+
+    /**
+     * Products in the order of ids, through the per-product cache; ids with no product are skipped.
+     */
+    public List<ProductResponse> getProducts(List<Long> ids) {
+        List<String> keys = ids.stream().map(String::valueOf).toList();
+        Map<String, ProductResponse> found = products.getAll(keys, this::loadProducts);
+        return keys.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Lets caches derived from this one (see ProductResponseCache) drop their
+     * copies whenever a product (id, or "*" for all) is evicted, here or by
+     * another node.
+     */
+    public void addEvictionListener(Consumer<String> productEvicted) {
+        products.addEvictionListener(productEvicted);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        products.evictAll(event.getProductIds().stream().map(String::valueOf).toList());
+        if (event.isCatalogChanged()) {
+            pages.evictAll();
+        }
+    }
+
+    private ProductPage loadPage(PageCursor after, int size) {
+        List<Product> rows = productService.getProducts(after, size + 1);
+        CursorPage<Long> ids = CursorPage.of(rows, size, Product::getId, p -> PageCursor.encode(p.getId()));
+        return new ProductPage(ids.getItems(), ids.getNextCursor());
+    }
+
+    private Map<String, ProductResponse> loadProducts(List<String> keys) {
+        Map<String, ProductResponse> loaded = new HashMap<>();
+        productRepository.findByIdIn(keys.stream().map(Long::valueOf).toList())
+            .forEach(product -> loaded.put(String.valueOf(product.getId()), toResponse(product)));
+        return loaded;
+    }
+
+    public static ProductResponse toResponse(Product product) {
+        return new ProductResponse(
+            product.getId(),
+            product.getName(),
+            product.getDescription(),
+            product.getPrice(),
+            product.getStock(),
+            product.getVersion()
+        );
+    }
+}
@@ -0,0 +1,172 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.cache.EncodedResponse;
+import com.mycompany.cache.EntityTag;
+import com.mycompany.dto.response.CursorPage;
+import com.mycompany.dto.response.ProductResponse;
+import jakarta.annotation.PostConstruct;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * ProductResponseCache - Product reads as ready-to-write response bytes.
+ *
+ * Sits on top of ProductCatalogService: the first request for a product or
+ * list page encodes it to JSON (and gzip) once, and later requests write
+ * those bytes straight to the socket. Entries also expire after the
+ * catalog's local TTL, the same bound on a missed broadcast that the catalog
+ * itself has.
+ *
+ * A product entry is dropped whenever the catalog cache evicts the product,
+ * on this node or via another node's broadcast. It carries the weak ETag of
+ * its row version, so it matches the tag of a version-only lookup.
+ *
+ * A page entry remembers the ids and row versions of the products it shows.
+ * Each read resolves the page through the catalog cache (memory lookups) and
+ * reuses the bytes if the same products at the same versions come back, so
+ * an order only re-encodes the pages showing a product it touched. Pages get
+ * a strong ETag from their bytes.
+ */
+@Service
+public class ProductResponseCache {
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Off: encode per request as before (for comparison, or to save memory)
+    @Value("${products.response-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${products.response-cache.max-entries:2000}")
+    private long maxEntries = 2000;
+
+    @Value("${products.response-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes = 1024;
+
+    // The catalog's local TTL: encoded bytes never outlive the entry they were encoded from
+    @Value("${products.cache.local-ttl-seconds:30}")
+    private long localTtlSeconds = 30;
+
+    private Cache<String, EncodedResponse> responses;
+    private Cache<String, EncodedPage> pages;
+
+    /**
+     * Encoded page with what it was encoded from: product ids and versions in
+     * page order, and the next cursor.
+     */
+    private static final class EncodedPage {
+        private final EncodedResponse response;
+        private final List<Long> stamp;
+        private final String nextCursor;
+
+        private EncodedPage(EncodedResponse response, List<Long> stamp, String nextCursor) {
+            this.response = response;
+            this.stamp = stamp;
+            this.nextCursor = nextCursor;
+        }
+
+        private boolean shows(List<Long> stamp, String nextCursor) {
+            return this.stamp.equals(stamp) && Objects.equals(this.nextCursor, nextCursor);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        responses = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+            .build();
+        pages = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+            .build();
+        productCatalogService.addEvictionListener(this::productEvicted);
+    }
+
+    public Optional<EncodedResponse> getProduct(Long id) {
+        // Not-found is not cached: the mapping function returns null
+        return Optional.ofNullable(encoded("product:" + id,
+            () -> productCatalogService.getProduct(id).orElse(null)));
+    }
+
+    /**
+     * Whether getProduct(id) is answered from memory right now.
+     */
+    public boolean isCached(Long id) {
+        return enabled && responses.getIfPresent("product:" + id) != null;
+    }
+
+    public EncodedResponse getProducts(PageCursor after, int size) {
+        CursorPage<ProductResponse> page = productCatalogService.getProducts(after, size);
+        if (!enabled) {
+            return encode(page);
+        }
+        String key = size + ":" + (after == null ? "" : after.getId());
+        List<Long> stamp = stamp(page.getItems());
+        EncodedPage cached = pages.getIfPresent(key);
+        if (cached != null && cached.shows(stamp, page.getNextCursor())) {
+            return cached.response;
+        }
+        EncodedResponse response = encode(page);
+        pages.put(key, new EncodedPage(response, stamp, page.getNextCursor()));
+        return response;
+    }
+
+    private EncodedResponse encoded(String key, Supplier<Object> value) {
+        if (!enabled) {
+            Object body = value.get();
+            return body == null ? null : encode(body);
+        }
+        return responses.get(key, k -> {
+            Object body = value.get();
+            return body == null ? null : encode(body);
+        });
+    }
+
+    private EncodedResponse encode(Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            if (body instanceof ProductResponse product && product.getVersion() != null) {
+                return EncodedResponse.of(bytes, gzipMinBytes, EntityTag.weak(product.getVersion()));
+            }
+            return EncodedResponse.of(bytes, gzipMinBytes);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // id, version, id, version, ... of the products on a page
+    private static List<Long> stamp(List<ProductResponse> products) {
+        List<Long> stamp = new ArrayList<>(products.size() * 2);
+        products.forEach(product -> {
+            stamp.add(product.getId());
+            stamp.add(product.getVersion());
+        });
+        return stamp;
+    }
+
+    private void productEvicted(String id) {
+        if (CacheInvalidationBus.ALL_KEYS.equals(id)) {
+            responses.invalidateAll();
+            pages.invalidateAll();
+        } else {
+            responses.invalidate("product:" + id);
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package com.mycompany.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ProductSearchIndex - In-memory inverted index over product name and description.
+ *
+ * Text is lowercased and split on anything that is not a letter or digit. Each
+ * term maps to a posting list: product ids in ascending order, each with a
+ * precomputed BM25 weight in which a name occurrence counts NAME_BOOST times.
+ *
+ * A query matches products containing every token. The last token also matches
+ * as a prefix (typeahead), expanded to the first MAX_PREFIX_TERMS terms after it,
+ * at PREFIX_WEIGHT. Matching walks the shortest token's lists in id order and
+ * gallops forward through the others (they are sorted too), keeping the best hits
+ * in a bounded heap, so a query reads each list at most once. A candidate that
+ * could not reach the heap even with the best weights of the other tokens is
+ * skipped without probing them (MaxScore pruning).
+ *
+ * Posting lists are immutable and replaced per term (copy-on-write) by writers,
+ * which serialise on one lock; readers never lock. A query that overlaps an
+ * update may see some of the product's terms before it and some after.
+ * Weights use the average document length at the time a product was indexed;
+ * a rebuild renormalises them.
+ */
+public class ProductSearchIndex {
+
+    static final int NAME_BOOST = 3;
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_TERMS = 64;
+    static final double PREFIX_WEIGHT = 0.5;
+
+    // BM25 term-frequency saturation and length normalisation
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ConcurrentSkipListMap<String, Postings> terms;
+
+    // productId -> what it was indexed under, so an update or removal knows which lists to touch
+    private final ConcurrentHashMap<Long, Document> documents;
+
+    private final Object writeLock = new Object();
+
+    // Sum of document lengths; guarded by writeLock
+    private long totalLength;
+
+    public ProductSearchIndex() {
+        this(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>(), 0);
+    }
+
+    private ProductSearchIndex(ConcurrentSkipListMap<String, Postings> terms,
+                               ConcurrentHashMap<Long, Document> documents, long totalLength) {
+        this.terms = terms;
+        this.documents = documents;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * Product ids of the best matches, best first (ties by lower id).
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        int documentCount = Math.max(1, documents.size());
+        List<Clause> clauses = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean prefix = i == tokens.size() - 1 && tokens.get(i).length() >= MIN_PREFIX_LENGTH;
+            Clause clause = clause(tokens.get(i), prefix, documentCount);
+            if (clause == null) {
+                return List.of();
+            }
+            clauses.add(clause);
+        }
+        clauses.sort(Comparator.comparingLong(clause -> clause.size));
+        Clause driver = clauses.get(0);
+        Clause[] others = clauses.subList(1, clauses.size()).toArray(new Clause[0]);
+        // remaining[c]: the most others[c..] can still add to a hit
+        double[] remaining = new double[others.length + 1];
+        for (int c = others.length - 1; c >= 0; c--) {
+            remaining[c] = remaining[c + 1] + others[c].maxScore;
+        }
+
+        TopHits hits = new TopHits(limit);
+        for (int list = 0; list < driver.lists.length; list++) {
+            long[] ids = driver.lists[list].ids;
+            float[] weights = driver.lists[list].weights;
+            double factor = driver.factors[list];
+            // Each driver list restarts the id order
+            for (Clause other : others) {
+                other.rewind();
+            }
+            candidates:
+            for (int i = 0; i < ids.length; i++) {
+                double score = factor * weights[i];
+                for (int c = 0; c < others.length; c++) {
+                    // Cannot reach the heap even with the best weights left: skip the remaining probes
+                    if (score + remaining[c] < hits.threshold) {
+                        continue candidates;
+                    }
+                    double contribution = others[c].score(ids[i]);
+                    if (contribution < 0) {
+                        continue candidates;
+                    }
+                    score += contribution;
+                }
+                hits.offer(ids[i], score);
+            }
+        }
+        return hits.ids();
+    }
+
+    /**
+     * Indexes a product, replacing what it was indexed under before.
+     */
+    public void put(long id, String name, String description) {
+        Map<String, Integer> frequencies = termFrequencies(name, description);
+        int length = length(frequencies);
+        synchronized (writeLock) {
+            Document previous = documents.get(id);
+            if (previous != null) {
+                totalLength -= previous.length;
+                for (String term : previous.terms) {
+                    if (!frequencies.containsKey(term)) {
+                        terms.computeIfPresent(term, (key, postings) -> postings.without(id));
+                    }
+                }
+            }
+            documents.put(id, new Document(frequencies.keySet().toArray(new String[0]), length));
+            totalLength += length;
+            double averageLength = (double) totalLength / documents.size();
+            frequencies.forEach((term, frequency) -> {
+                float weight = weight(frequency, length, averageLength);
+                terms.compute(term, (key, postings) -> postings == null
+                    ? new Postings(new long[] {id}, new float[] {weight})
+                    : postings.with(id, weight));
+            });
+        }
+    }
+
+    public void remove(long id) {
+        synchronized (writeLock) {
+            Document previous = documents.remove(id);
+            if (previous == null) {
+                return;
+            }
+            totalLength -= previous.length;
+            for (String term : previous.terms) {
+                terms.computeIfPresent(term, (key, postings) -> postings.without(id));
+            }
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private Clause clause(String token, boolean prefix, int documentCount) {
+        if (!prefix) {
+            Postings postings = terms.get(token);
+            return postings == null ? null
+                : new Clause(new Postings[] {postings}, new double[] {idf(postings, documentCount)});
+        }
+        List<Postings> lists = new ArrayList<>();
+        List<Double> factors = new ArrayList<>();
+        // Every key from token up to token + Character.MAX_VALUE starts with token; the exact term sorts first
+        for (Map.Entry<String, Postings> entry : terms.subMap(token, token + Character.MAX_VALUE).entrySet()) {
+            lists.add(entry.getValue());
+            double multiplier = entry.getKey().equals(token) ? 1.0 : PREFIX_WEIGHT;
+            factors.add(idf(entry.getValue(), documentCount) * multiplier);
+            if (lists.size() == MAX_PREFIX_TERMS) {
+                break;
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        return new Clause(lists.toArray(new Postings[0]), factors.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    private static double idf(Postings postings, int documentCount) {
+        int df = postings.ids.length;
+        return Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+    }
+
+    private static float weight(int frequency, int length, double averageLength) {
+        double norm = K1 * (1 - B + B * length / averageLength);
+        return (float) (frequency * (K1 + 1) / (frequency + norm));
+    }
+
+    private static Map<String, Integer> termFrequencies(String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(name)) {
+            frequencies.merge(token, NAME_BOOST, Integer::sum);
+        }
+        for (String token : tokenize(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private static int length(Map<String, Integer> frequencies) {
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+        return length;
+    }
+
+    /**
+     * Builds an index in one pass over the catalog (startup, rebuilds): lists are
+     * appended to and only frozen once the average document length is known.
+     */
+    public static class Builder {
+        private final Map<String, TermBuilder> terms = new HashMap<>();
+        private final ConcurrentHashMap<Long, Document> documents = new ConcurrentHashMap<>();
+        private long totalLength;
+
+        public Builder add(long id, String name, String description) {
+            if (documents.containsKey(id)) {
+                throw new IllegalArgumentException("Product " + id + " added twice");
+            }
+            Map<String, Integer> frequencies = termFrequencies(name, description);
+            int length = length(frequencies);
+            String[] documentTerms = new String[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                TermBuilder term = terms.computeIfAbsent(entry.getKey(), TermBuilder::new);
+                term.add(id, entry.getValue(), length);
+                // Share one String per term between the dictionary and the documents
+                documentTerms[i++] = term.term;
+            }
+            documents.put(id, new Document(documentTerms, length));
+            totalLength += length;
+            return this;
+        }
+
+        public ProductSearchIndex build() {
+            double averageLength = documents.isEmpty() ? 1 : (double) totalLength / documents.size();
+            ConcurrentSkipListMap<String, Postings> postings = new ConcurrentSkipListMap<>();
+            for (TermBuilder term : terms.values()) {
+                postings.put(term.term, term.build(averageLength));
+            }
+            return new ProductSearchIndex(postings, documents, totalLength);
+        }
+    }
+
+    private static final class TermBuilder {
+        private final String term;
+        private long[] ids = new long[4];
+        private int[] frequencies = new int[4];
+        private int[] lengths = new int[4];
+        private int size;
+
+        TermBuilder(String term) {
+            this.term = term;
+        }
+
+        void add(long id, int frequency, int length) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            ids[size] = id;
+            frequencies[size] = frequency;
+            lengths[size] = length;
+            size++;
+        }
+
+        Postings build(double averageLength) {
+            // Batches arrive in id order; anything else is sorted here
+            int[] order = null;
+            for (int i = 1; i < size; i++) {
+                if (ids[i - 1] >= ids[i]) {
+                    order = idOrder();
+                    break;
+                }
+            }
+            long[] sortedIds = new long[size];
+            float[] weights = new float[size];
+            for (int i = 0; i < size; i++) {
+                int at = order == null ? i : order[i];
+                sortedIds[i] = ids[at];
+                weights[i] = weight(frequencies[at], lengths[at], averageLength);
+            }
+            return new Postings(sortedIds, weights);
+        }
+
+        private int[] idOrder() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> ids[i]));
+            return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static final class Document {
+        private final String[] terms;
+        private final int length;
+
+        Document(String[] terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Immutable posting list: ascending product ids and their weights.
+     */
+    private static final class Postings {
+        private final long[] ids;
+        private final float[] weights;
+        private final float maxWeight;
+
+        Postings(long[] ids, float[] weights) {
+            this.ids = ids;
+            this.weights = weights;
+            float max = 0;
+            for (float weight : weights) {
+                max = Math.max(max, weight);
+            }
+            this.maxWeight = max;
+        }
+
+        Postings with(long id, float weight) {
+            int at = Arrays.binarySearch(ids, id);
+            if (at >= 0) {
+                float[] replaced = weights.clone();
+                replaced[at] = weight;
+                return new Postings(ids, replaced);
+            }
+            int insert = -at - 1;
+            long[] grownIds = new long[ids.length + 1];
+            float[] grownWeights = new float[ids.length + 1];
+            System.arraycopy(ids, 0, grownIds, 0, insert);
+            System.arraycopy(weights, 0, grownWeights, 0, insert);
+            grownIds[insert] = id;
+            grownWeights[insert] = weight;
+            System.arraycopy(ids, insert, grownIds, insert + 1, ids.length - insert);
+            System.arraycopy(weights, insert, grownWeights, insert + 1, ids.length - insert);
+            return new Postings(grownIds, grownWeights);
+        }
+
+        /**
+         * @return the list without id, or null (drops the term) when it was the last one
+         */
+        Postings without(long id) {
+            int at = Arrays.binarySearch(ids, id);
+            if (at < 0) {
+                return this;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] shrunkIds = new long[ids.length - 1];
+            float[] shrunkWeights = new float[ids.length - 1];
+            System.arraycopy(ids, 0, shrunkIds, 0, at);
+            System.arraycopy(weights, 0, shrunkWeights, 0, at);
+            System.arraycopy(ids, at + 1, shrunkIds, at, ids.length - at - 1);
+            System.arraycopy(weights, at + 1, shrunkWeights, at, ids.length - at - 1);
+            return new Postings(shrunkIds, shrunkWeights);
+        }
+    }
+
+    /**
+     * One query token: its posting lists (several for a prefix), each list's
+     * idf x multiplier, and a cursor per list for probing ids in ascending order.
+     */
+    private static final class Clause {
+        private static final int LINEAR_PROBES = 8;
+
+        private final Postings[] lists;
+        private final double[] factors;
+        private final int[] cursors;
+        private final long size;
+        private final double maxScore;
+
+        Clause(Postings[] lists, double[] factors) {
+            this.lists = lists;
+            this.factors = factors;
+            this.cursors = new int[lists.length];
+            long total = 0;
+            double max = 0;
+            for (int i = 0; i < lists.length; i++) {
+                total += lists[i].ids.length;
+                max = Math.max(max, factors[i] * lists[i].maxWeight);
+            }
+            this.size = total;
+            this.maxScore = max;
+        }
+
+        void rewind() {
+            Arrays.fill(cursors, 0);
+        }
+
+        /**
+         * Must be called with ascending ids between rewinds.
+         *
+         * @return the best score of id over this clause's lists, or -1 if none contains it
+         */
+        double score(long id) {
+            double best = -1;
+            for (int i = 0; i < lists.length; i++) {
+                long[] ids = lists[i].ids;
+                int at = advance(ids, cursors[i], id);
+                cursors[i] = at;
+                if (at < ids.length && ids[at] == id) {
+                    best = Math.max(best, factors[i] * lists[i].weights[at]);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * The first index from 'from' on whose id is not below target: a few linear
+         * steps for lists of similar density, then a galloping search for sparse ones.
+         */
+        private static int advance(long[] ids, int from, long target) {
+            int linearEnd = Math.min(from + LINEAR_PROBES, ids.length);
+            for (int i = from; i < linearEnd; i++) {
+                if (ids[i] >= target) {
+                    return i;
+                }
+            }
+            if (linearEnd == ids.length) {
+                return linearEnd;
+            }
+            // ids[low] < target throughout
+            int low = linearEnd - 1;
+            int step = 1;
+            while (low + step < ids.length && ids[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(ids, low + 1, Math.min(low + step, ids.length), target);
+            return at >= 0 ? at : -at - 1;
+        }
+    }
+
+    /**
+     * The limit best hits seen so far. A product reached through several prefix
+     * expansions keeps its best score.
+     */
+    private static final class TopHits {
+        private final int limit;
+        // Worst hit on top: lowest score, then highest id
+        private final PriorityQueue<Hit> heap = new PriorityQueue<>(
+            Comparator.comparingDouble((Hit hit) -> hit.score).thenComparingLong(hit -> -hit.id));
+        private final Map<Long, Hit> members = new HashMap<>();
+
+        // Lowest score that can still enter: that of the worst hit once full
+        private double threshold = Double.NEGATIVE_INFINITY;
+
+        TopHits(int limit) {
+            this.limit = limit;
+        }
+
+        void offer(long id, double score) {
+            if (score < threshold) {
+                return;
+            }
+            if (heap.size() == limit) {
+                Hit worst = heap.peek();
+                if (score == worst.score && id > worst.id) {
+                    return;
+                }
+            }
+            Hit existing = members.get(id);
+            if (existing != null) {
+                if (score > existing.score) {
+                    heap.remove(existing);
+                    existing.score = score;
+                    heap.add(existing);
+                }
+            } else {
+                Hit hit = new Hit(id, score);
+                heap.add(hit);
+                members.put(id, hit);
+                if (heap.size() > limit) {
+                    members.remove(heap.poll().id);
+                }
+            }
+            if (heap.size() == limit) {
+                threshold = heap.peek().score;
+            }
+        }
+
+        List<Long> ids() {
+            List<Hit> best = new ArrayList<>(heap);
+            best.sort(Comparator.comparingDouble((Hit hit) -> -hit.score).thenComparingLong(hit -> hit.id));
+            return best.stream().map(hit -> hit.id).toList();
+        }
+    }
+
+    private static final class Hit {
+        private final long id;
+        private double score;
+
+        Hit(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.mycompany.service;
+
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.dto.response.ProductResponse;
+import com.mycompany.event.ProductsChangedEvent;
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.ProductText;
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * ProductSearchService - Full-text product search for GET /api/products/search.
+ *
+ * Queries run against an in-memory ProductSearchIndex over name and description,
+ * built from the database at startup and kept current from ProductsChangedEvent
+ * after each create, update or delete commits. Stock-only changes are ignored.
+ * Every node holds its own index, so the changed ids are also broadcast on
+ * CacheInvalidationBus and the other nodes re-read those products. Pub/sub can
+ * drop messages, so the index is also rebuilt periodically; changes that
+ * commit while a rebuild reads the catalog are applied again afterwards.
+ * Matching ids are resolved through the product cache (ProductCatalogService).
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+
+    // Rows read per keyset query while building the index
+    private static final int BUILD_BATCH_SIZE = 10_000;
+
+    static final String BUS_NAME = "product-search";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    // Same switch as the product cache: without Redis there is one node and nothing to tell
+    @Value("${products.cache.redis.enabled:true}")
+    private boolean broadcast = true;
+
+    private volatile ProductSearchIndex index = new ProductSearchIndex();
+
+    // Ids changed while a rebuild runs, or null: re-applied once the new index is in place
+    private volatile Set<Long> changedDuringRebuild;
+
+    @PostConstruct
+    public void init() {
+        if (broadcast) {
+            invalidationBus.register(BUS_NAME, this::onRemoteChange);
+        }
+        rebuild();
+    }
+
+    /**
+     * Indexes every product, reading the catalog in id order.
+     */
+    @Scheduled(fixedDelayString = "${products.search.rebuild-interval-ms:3600000}",
+               initialDelayString = "${products.search.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+        long begin = System.nanoTime();
+        ProductSearchIndex.Builder builder = new ProductSearchIndex.Builder();
+        long after = 0;
+        List<ProductText> batch;
+        do {
+            batch = productRepository.findTextAfter(after, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (ProductText row : batch) {
+                builder.add(row.getId(), row.getName(), row.getDescription());
+            }
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        index = builder.build();
+        changedDuringRebuild = null;
+        if (!changed.isEmpty()) {
+            reindex(changed);
+        }
+        log.info("Product search index built with {} products and {} terms in {} ms",
+            index.size(), index.termCount(), (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    /**
+     * Best matches for query, best first.
+     */
+    public List<ProductResponse> search(String query, int limit) {
+        return productCatalogService.getProducts(index.search(query, limit));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        if (event.isStockOnly()) {
+            return;
+        }
+        reindex(event.getProductIds());
+        if (broadcast) {
+            invalidationBus.publish(BUS_NAME, event.getProductIds().stream().map(String::valueOf).toList());
+        }
+    }
+
+    // Another node changed a product: read it again rather than trusting the message
+    void onRemoteChange(String key) {
+        try {
+            reindex(List.of(Long.valueOf(key)));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring product search update for unreadable id {}", key);
+        }
+    }
+
+    private void reindex(Collection<Long> ids) {
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.addAll(ids);
+        }
+        Map<Long, Product> current = productRepository.findByIdIn(ids).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long id : ids) {
+            Product product = current.get(id);
+            if (product == null) {
+                index.remove(id);
+            } else {
+                index.put(id, product.getName(), product.getDescription());
+            }
+        }
+    }
+}
@@ -5,9 +5,22 @@ import java.util.List;
 import java.util.Optional;
 
 public interface ProductService {
-    List<Product> getAllProducts();
+    /**
+     * Products by id, starting after the cursor (null for the first page).
+     */
+    List<Product> getProducts(PageCursor after, int limit);
     Optional<Product> getProductById(Long id);
+
+    /**
+     * The product's row version without loading it; empty if there is no such product.
+     */
+    Optional<Long> getProductVersion(Long id);
     Product createProduct(Product product);
-    Optional<Product> updateProduct(Long id, Product productDetails);
+
+    /**
+     * @param expectedVersion version the client last saw (If-Match), or null to skip the check
+     * @throws VersionConflictException if the product is no longer at expectedVersion
+     */
+    Optional<Product> updateProduct(Long id, Product productDetails, Long expectedVersion);
     boolean deleteProduct(Long id);
 }
@@ -1,24 +1,51 @@
 package com.mycompany.service;
 
+import com.mycompany.event.OrderEvent;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * RabbitMQProducerService - Sends messages to RabbitMQ
- * 
+ *
  * This service publishes events to RabbitMQ when something happens
  * in the e-commerce service (like when an order is created).
- * 
+ *
  * This is similar to KafkaProducerService but uses RabbitMQ instead.
  * Good for learning: Compare Kafka vs RabbitMQ!
+ *
+ * With order.events.rabbitmq.confirms=true (needs
+ * spring.rabbitmq.publisher-confirm-type=correlated and publisher returns)
+ * every message carries a CorrelationData. A micro-batch is published without
+ * waiting, then its confirms are collected together; nacked messages are
+ * republished up to max-retries times and unroutable (returned) ones fail the
+ * batch. At most max-in-flight messages may be awaiting a confirm at once.
+ * If the window stays full or a confirm does not arrive within
+ * confirm-timeout-ms, the whole batch fails and gives its permits back, so an
+ * unresponsive broker cannot shrink the window for later batches.
  */
 @Service
-public class RabbitMQProducerService {
+public class RabbitMQProducerService implements OrderEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(RabbitMQProducerService.class);
 
     // RabbitMQ exchange name (like a topic in Kafka)
     private static final String EXCHANGE = "order-exchange";
-    
+
     // RabbitMQ routing key (like a topic name in Kafka)
     private static final String ROUTING_KEY = "order.created";
 
@@ -26,24 +53,148 @@ public class RabbitMQProducerService {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    // Binary or legacy JSON message body (order.events.format)
+    @Autowired
+    private OrderEventSerializer orderEventSerializer;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Value("${order.events.rabbitmq.confirms:true}")
+    private boolean confirms;
+
+    @Value("${order.events.rabbitmq.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${order.events.rabbitmq.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${order.events.rabbitmq.confirm-timeout-ms:10000}")
+    private long confirmTimeoutMs;
+
+    // One permit per message awaiting a broker confirm
+    private Semaphore confirmWindow;
+
+    @PostConstruct
+    public void init() {
+        confirmWindow = new Semaphore(maxInFlight);
+        orderMetrics.registerRabbitConfirmWindow(confirmWindow, maxInFlight);
+    }
+
+    @Override
+    public String name() {
+        return "rabbitmq";
+    }
+
     /**
-     * Sends an order creation event to RabbitMQ
-     * 
-     * @param orderId The ID of the order that was created
-     * @param userId The ID of the user who created the order
-     * @param total The total amount of the order
+     * Sends an order event to RabbitMQ without waiting for a confirm
+     *
+     * @param event The order event taken from the outbox
      */
-    public void sendOrderCreatedEvent(Long orderId, Long userId, String total) {
-        // Create a JSON-like message
-        String message = String.format(
-            "{\"eventType\":\"ORDER_CREATED\",\"orderId\":%d,\"userId\":%d,\"total\":\"%s\",\"timestamp\":\"%s\",\"broker\":\"RabbitMQ\"}",
-            orderId, userId, total, java.time.LocalDateTime.now()
-        );
-        
+    public void sendOrderEvent(OrderEvent event) {
         // Send message to RabbitMQ exchange
-        rabbitTemplate.convertAndSend(EXCHANGE, ROUTING_KEY, message);
-        
-        System.out.println("🐰 Sent order event to RabbitMQ: " + message);
+        rabbitTemplate.send(EXCHANGE, ROUTING_KEY, toMessage(event));
+
+        log.debug("Sent {} for order {} to RabbitMQ", event.getEventType(), event.getOrderId());
+    }
+
+    @Override
+    public void sendBatch(List<OrderEvent> events) throws Exception {
+        if (!confirms) {
+            // One channel for the whole batch instead of a checkout per message
+            rabbitTemplate.invoke(operations -> {
+                events.forEach(this::sendOrderEvent);
+                return null;
+            });
+            return;
+        }
+
+        List<OrderEvent> remaining = events;
+        for (int attempt = 0; ; attempt++) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+            List<PendingConfirm> pending = new ArrayList<>(remaining.size());
+            List<OrderEvent> nacked = new ArrayList<>();
+            try {
+                for (OrderEvent event : remaining) {
+                    pending.add(publishWithConfirm(event, deadline));
+                }
+                for (PendingConfirm confirm : pending) {
+                    if (!confirm.await(deadline)) {
+                        nacked.add(confirm.event);
+                    }
+                }
+            } finally {
+                // On a full window, a timeout or a returned message the whole batch fails
+                // together; confirms still outstanding give back their permits now, not
+                // whenever (if ever) the broker answers
+                pending.forEach(PendingConfirm::abandon);
+            }
+            if (nacked.isEmpty()) {
+                return;
+            }
+            if (attempt >= maxRetries) {
+                throw new AmqpException(nacked.size() + " order events nacked by RabbitMQ after " + (attempt + 1) + " attempts");
+            }
+            log.warn("RabbitMQ nacked {} order events, republishing (attempt {})", nacked.size(), attempt + 2);
+            orderMetrics.incrementRabbitRepublished(nacked.size());
+            remaining = nacked;
+        }
+    }
+
+    private PendingConfirm publishWithConfirm(OrderEvent event, long deadline) throws Exception {
+        if (!confirmWindow.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            throw new TimeoutException("RabbitMQ confirm window of " + maxInFlight + " messages is full");
+        }
+        PendingConfirm pending = new PendingConfirm(event);
+        // The future completes once, by the broker or by abandon(), so the permit is released exactly once
+        pending.correlation.getFuture().whenComplete((confirm, error) -> {
+            confirmWindow.release();
+            orderMetrics.recordRabbitConfirm(System.nanoTime() - pending.sentAt, confirm != null && confirm.isAck());
+        });
+        try {
+            rabbitTemplate.send(EXCHANGE, ROUTING_KEY, toMessage(event), pending.correlation);
+        } catch (RuntimeException e) {
+            // Completing the future releases the window permit
+            pending.correlation.getFuture().completeExceptionally(e);
+            throw e;
+        }
+        return pending;
     }
-}
 
+    private Message toMessage(OrderEvent event) {
+        return MessageBuilder.withBody(orderEventSerializer.serialize(event, "RabbitMQ"))
+            .setContentType(orderEventSerializer.contentType())
+            .build();
+    }
+
+    private static class PendingConfirm {
+        final OrderEvent event;
+        final CorrelationData correlation;
+        final long sentAt = System.nanoTime();
+
+        PendingConfirm(OrderEvent event) {
+            this.event = event;
+            this.correlation = new CorrelationData(event.getOrderId() + ":" + UUID.randomUUID());
+        }
+
+        /**
+         * @return true if acked, false if nacked
+         * @throws AmqpException if the message was returned as unroutable
+         */
+        boolean await(long deadline) throws Exception {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(
+                Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (correlation.getReturned() != null) {
+                throw new AmqpException("Order event for order " + event.getOrderId() + " was returned: "
+                    + correlation.getReturned().getReplyText());
+            }
+            return confirm.isAck();
+        }
+
+        // No-op once the broker has answered; a confirm arriving later is ignored
+        void abandon() {
+            correlation.getFuture().completeExceptionally(
+                new TimeoutException("No RabbitMQ confirm for order " + event.getOrderId()));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.mycompany.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * RedisIdempotencyStore - IdempotencyStore shared by every instance.
+ *
+ * Responses live under idempotency:orders:{key} with a TTL; claims are a
+ * SET NX under idempotency:orders-claim:{key}. The size is counted with SCAN
+ * every order.idempotency.size-refresh-ms rather than on each scrape.
+ */
+@Component
+@ConditionalOnProperty(name = "order.idempotency.store", havingValue = "redis", matchIfMissing = true)
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final String RESPONSE_PREFIX = "idempotency:orders:";
+    private static final String CLAIM_PREFIX = "idempotency:orders-claim:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private final AtomicLong size = new AtomicLong();
+
+    @Override
+    public Optional<String> get(String key) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(RESPONSE_PREFIX + key));
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        redisTemplate.opsForValue().set(RESPONSE_PREFIX + key, value, ttl);
+    }
+
+    @Override
+    public boolean claim(String key, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(CLAIM_PREFIX + key, "1", ttl));
+    }
+
+    @Override
+    public void release(String key) {
+        redisTemplate.delete(CLAIM_PREFIX + key);
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.size-refresh-ms:60000}")
+    public void refreshSize() {
+        long count = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(RESPONSE_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+            size.set(count);
+        } catch (DataAccessException e) {
+            // Keep the last known size while Redis is unreachable
+        }
+    }
+}
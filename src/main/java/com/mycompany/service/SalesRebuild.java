@@ -0,0 +1,83 @@
+package com.mycompany.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SalesRebuild - State of a sales rollup rebuild running in the background.
+ */
+public class SalesRebuild {
+
+    public enum Status {
+        RUNNING, // Chunks are being recomputed
+        DONE,    // Every chunk committed
+        FAILED   // At least one chunk failed; the others stay committed
+    }
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int chunks;
+    private final Instant startedAt = Instant.now();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile Status status = Status.RUNNING;
+    private volatile long elapsedMillis;
+    private volatile String error;
+
+    SalesRebuild(LocalDate from, LocalDate to, int chunks) {
+        this.from = from;
+        this.to = to;
+        this.chunks = chunks;
+    }
+
+    void complete(Throwable failure) {
+        elapsedMillis = Instant.now().toEpochMilli() - startedAt.toEpochMilli();
+        if (failure == null) {
+            status = Status.DONE;
+            completion.complete(null);
+        } else {
+            error = failure.getMessage();
+            status = Status.FAILED;
+            completion.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Waits for the rebuild to finish.
+     *
+     * @throws java.util.concurrent.CompletionException with the first chunk failure
+     */
+    public void join() {
+        completion.join();
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    // Zero while running
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // Set when FAILED
+    public String getError() {
+        return error;
+    }
+}
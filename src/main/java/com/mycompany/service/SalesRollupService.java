@@ -0,0 +1,171 @@
+package com.mycompany.service;
+
+import com.mycompany.dto.response.DailySalesResponse;
+import com.mycompany.dto.response.ProductSalesResponse;
+import com.mycompany.repository.SalesRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * SalesRollupService - Sales reporting for GET /api/analytics/sales, served
+ * from the rollup tables instead of GROUP BY scans of orders.
+ *
+ * The rollups are kept current by OrderServiceImpl in each order's own
+ * transaction: created orders are added, and an order moving to CANCELLED is
+ * subtracted again. Deleting a user deletes their orders, so UserServiceImpl
+ * subtracts those too; the rollups then agree with what a rebuild reads.
+ *
+ * A rebuild recomputes a date range from the orders in the background, one
+ * chunk of days per transaction, with the chunks running in parallel. It
+ * replaces whole days, so orders written to a day while it is being rebuilt
+ * would be counted twice or lost depending on commit order. Ranges that reach
+ * today are therefore refused, only one rebuild runs at a time on a node
+ * (lastRebuild; a second request gets 409), and a range is capped at
+ * rebuildMaxDays. lastRebuild does not see other nodes: a rebuild started on
+ * another node is accepted, and its chunks wait on the per-day database locks
+ * taken by SalesRollupRepositoryCustomImpl (PostgreSQL only) until the
+ * overlapping days of this one have committed. A cancellation or user
+ * deletion touching an older day during a rebuild of that day can still be
+ * miscounted; run large rebuilds in a quiet period.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${analytics.rollup.rebuild-threads:4}")
+    private int rebuildThreads = 4;
+
+    // Days recomputed per rebuild transaction
+    @Value("${analytics.rollup.rebuild-chunk-days:7}")
+    private int rebuildChunkDays = 7;
+
+    // Longest range one rebuild may cover
+    @Value("${analytics.rollup.rebuild-max-days:366}")
+    private int rebuildMaxDays = 366;
+
+    // Decides which day is today; replaced in tests
+    private Clock clock = Clock.systemDefaultZone();
+
+    private ThreadPoolExecutor rebuildExecutor;
+    private TransactionTemplate transactionTemplate;
+
+    // The running or last finished rebuild on this node; a new one only starts when this one is not RUNNING
+    private final AtomicReference<SalesRebuild> lastRebuild = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Unbounded queue: a rebuild queues all of its chunks up front and waits for them
+        rebuildExecutor = new ThreadPoolExecutor(rebuildThreads, rebuildThreads, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "sales-rollup-rebuild-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    public List<DailySalesResponse> getDailySales(LocalDate from, LocalDate to) {
+        return salesRollupRepository.findDailyTotals(from, to);
+    }
+
+    public List<ProductSalesResponse> getTopProducts(LocalDate from, LocalDate to, int limit) {
+        return salesRollupRepository.findTopProducts(from, to, PageRequest.of(0, limit));
+    }
+
+    public List<DailySalesResponse> getProductDailySales(Long productId, LocalDate from, LocalDate to) {
+        return salesRollupRepository.findProductDailyTotals(productId, from, to);
+    }
+
+    /**
+     * Starts recomputing the rollups of [from, to] from orders in the background.
+     * Chunks that succeed stay committed if another one fails.
+     *
+     * @return the started rebuild, or empty if another one is still running on
+     *         this node; one running on another node is not seen here
+     * @throws IllegalArgumentException if from is after to, the range reaches
+     *                                  today or is longer than rebuildMaxDays
+     */
+    public Optional<SalesRebuild> startRebuild(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from " + from + " is after to " + to);
+        }
+        if (!to.isBefore(LocalDate.now(clock))) {
+            throw new IllegalArgumentException("Rebuild ranges must end before today; today's orders are still being rolled up");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= rebuildMaxDays) {
+            throw new IllegalArgumentException("Rebuild ranges are limited to " + rebuildMaxDays + " days");
+        }
+        SalesRebuild previous = lastRebuild.get();
+        if (previous != null && previous.getStatus() == SalesRebuild.Status.RUNNING) {
+            return Optional.empty();
+        }
+        LocalDate end = to.plusDays(1);
+        int chunkCount = (int) ((ChronoUnit.DAYS.between(from, end) + rebuildChunkDays - 1) / rebuildChunkDays);
+        SalesRebuild rebuild = new SalesRebuild(from, to, chunkCount);
+        if (!lastRebuild.compareAndSet(previous, rebuild)) {
+            return Optional.empty();
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (LocalDate start = from; start.isBefore(end); start = start.plusDays(rebuildChunkDays)) {
+            LocalDate chunkFrom = start;
+            LocalDate chunkTo = start.plusDays(rebuildChunkDays).isBefore(end) ? start.plusDays(rebuildChunkDays) : end;
+            chunks.add(CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                status -> salesRollupRepository.rebuild(chunkFrom, chunkTo)), rebuildExecutor));
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).whenComplete((done, error) -> {
+            // allOf wraps the first chunk failure
+            Throwable failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            rebuild.complete(failure);
+            if (failure == null) {
+                log.info("Sales rollups rebuilt for {} to {} in {} chunks, {} ms",
+                    from, to, chunkCount, rebuild.getElapsedMillis());
+            } else {
+                log.warn("Sales rollup rebuild for {} to {} failed", from, to, failure);
+            }
+        });
+        return Optional.of(rebuild);
+    }
+
+    /**
+     * @return the running or last finished rebuild, if any ran since startup
+     */
+    public Optional<SalesRebuild> getRebuild() {
+        return Optional.ofNullable(lastRebuild.get());
+    }
+}
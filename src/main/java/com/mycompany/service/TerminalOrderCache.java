@@ -0,0 +1,145 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.cache.CacheSerializer;
+import com.mycompany.cache.TwoLevelCache;
+import com.mycompany.dto.response.OrderResponse;
+import com.mycompany.event.OrdersDeletedEvent;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * TerminalOrderCache - Built OrderResponses of DELIVERED and CANCELLED orders.
+ *
+ * A terminal order never changes again (OrderService rejects status changes
+ * on it), so its response is cached local + Redis with long TTLs; the TTLs
+ * only bound memory. GET /api/orders/{id} serves these without touching the
+ * database, with Cache-Control: immutable. The one exception is deleting the
+ * user, which deletes their orders: OrdersDeletedEvent evicts them after
+ * commit, on every node.
+ *
+ * Most reads are of orders that are not terminal yet. Ids seen not terminal
+ * (or missing from Redis) are remembered locally, so reading them again does
+ * not cost a Redis round trip; an order that becomes terminal meanwhile is
+ * read from the database and cached then.
+ *
+ * Hit ratio per tier: order_service_cache_requests_total{cache="terminal-orders"}.
+ */
+@Service
+public class TerminalOrderCache {
+
+    @Autowired
+    private RedisTemplate<String, byte[]> cacheRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderMetrics orderMetrics;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    // Bump when OrderResponse / CachedOrder change shape: new keys, old entries just expire
+    private static final int SCHEMA_VERSION = 1;
+
+    @Value("${orders.terminal-cache.redis.enabled:true}")
+    private boolean redisEnabled = true;
+
+    @Value("${orders.terminal-cache.local-max-size:10000}")
+    private long localMaxSize = 10000;
+
+    @Value("${orders.terminal-cache.local-ttl-seconds:3600}")
+    private long localTtlSeconds = 3600;
+
+    @Value("${orders.terminal-cache.redis-ttl-seconds:604800}")
+    private long redisTtlSeconds = 604800;
+
+    @Value("${orders.terminal-cache.codec:smile}")
+    private String codec = "smile";
+
+    @Value("${orders.terminal-cache.compress-threshold-bytes:1024}")
+    private int compressThreshold = 1024;
+
+    private TwoLevelCache<CachedOrder> orders;
+
+    // Ids last seen not terminal or not cached: answered as a miss without asking Redis
+    private Cache<Long, Boolean> notCached;
+
+    /**
+     * A terminal order's response and the row version it was built from (for the ETag).
+     */
+    public static class CachedOrder {
+        private final OrderResponse order;
+        private final long version;
+
+        @JsonCreator
+        public CachedOrder(@JsonProperty("order") OrderResponse order, @JsonProperty("version") long version) {
+            this.order = order;
+            this.version = version;
+        }
+
+        public OrderResponse getOrder() {
+            return order;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // No refresh: entries are never stale; the bus only carries deletions
+        orders = new TwoLevelCache<>("terminal-orders", CachedOrder.class, localMaxSize,
+            Duration.ofSeconds(localTtlSeconds), Duration.ZERO, Duration.ofSeconds(redisTtlSeconds),
+            redisEnabled ? cacheRedisTemplate : null,
+            CacheSerializer.of(codec, objectMapper, SCHEMA_VERSION, compressThreshold),
+            redisEnabled ? invalidationBus : null, null, null, orderMetrics);
+        notCached = Caffeine.newBuilder()
+            .maximumSize(localMaxSize)
+            .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+            .build();
+    }
+
+    public Optional<CachedOrder> get(Long id) {
+        if (notCached.getIfPresent(id) != null) {
+            orderMetrics.recordCacheRequest(orders.getName(), TwoLevelCache.TIER_LOCAL, false);
+            return Optional.empty();
+        }
+        CachedOrder cached = orders.getIfPresent(String.valueOf(id));
+        if (cached == null) {
+            notCached.put(id, Boolean.TRUE);
+        }
+        return Optional.ofNullable(cached);
+    }
+
+    /**
+     * Caches the response if the order is terminal; other orders are only
+     * remembered as not cached.
+     */
+    public void put(OrderResponse order, long version) {
+        if (order.getStatus() == null || !order.getStatus().isTerminal()) {
+            notCached.put(order.getId(), Boolean.TRUE);
+            return;
+        }
+        orders.put(String.valueOf(order.getId()), new CachedOrder(order, version));
+        notCached.invalidate(order.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersDeleted(OrdersDeletedEvent event) {
+        orders.evictAll(event.getOrderIds().stream().map(String::valueOf).toList());
+    }
+}
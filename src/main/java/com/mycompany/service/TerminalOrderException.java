@@ -0,0 +1,14 @@
+package com.mycompany.service;
+
+import com.mycompany.model.OrderStatus;
+
+/**
+ * Thrown when a status change is requested for an order that is already
+ * DELIVERED or CANCELLED; such orders are immutable (and cached as such).
+ */
+public class TerminalOrderException extends RuntimeException {
+
+    public TerminalOrderException(Long id, OrderStatus status) {
+        super("Order " + id + " is " + status + " and can no longer change");
+    }
+}
@@ -5,7 +5,10 @@ import java.util.List;
 import java.util.Optional;
 
 public interface UserService {
-    List<User> getAllUsers();
+    /**
+     * Users by id, starting after the cursor (null for the first page).
+     */
+    List<User> getUsers(PageCursor after, int limit);
     Optional<User> getUserById(Long id);
     User createUser(User user);
     Optional<User> updateUser(Long id, User userDetails);
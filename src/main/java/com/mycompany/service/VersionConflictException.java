@@ -0,0 +1,12 @@
+package com.mycompany.service;
+
+/**
+ * Thrown when an update names an expected version (If-Match) and the row
+ * has moved on since the client read it.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String entity, Long id, Long expected, Long actual) {
+        super(entity + " " + id + " is at version " + actual + ", not " + expected);
+    }
+}
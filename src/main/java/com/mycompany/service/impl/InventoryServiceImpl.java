@@ -1,11 +1,27 @@
 package com.mycompany.service.impl;
 
+import com.mycompany.event.ProductsChangedEvent;
 import com.mycompany.model.Product;
 import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.ProductStock;
+import com.mycompany.service.InventoryLedger;
 import com.mycompany.service.InventoryService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class InventoryServiceImpl implements InventoryService {
@@ -13,29 +29,140 @@ public class InventoryServiceImpl implements InventoryService {
     @Autowired
     private ProductRepository productRepository;
 
+    // Present only when inventory.ledger.enabled=true
+    @Autowired(required = false)
+    private InventoryLedger inventoryLedger;
+
+    // Every stock change is announced so product caches evict after commit
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
+    @Transactional
     public Optional<Product> adjustStock(Long productId, int delta) {
         if (productId == null) return Optional.empty();
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isEmpty()) return Optional.empty();
 
-        Product product = productOpt.get();
-        int newStock = product.getStock() + delta;
-        if (newStock < 0) return Optional.empty();
+        if (inventoryLedger != null) {
+            OptionalInt stock = inventoryLedger.adjust(productId, delta);
+            if (stock.isEmpty()) return Optional.empty();
+            stockChanged(List.of(productId));
+            return productRepository.findById(productId).map(p -> withStock(p, stock.getAsInt()));
+        }
+
+        // Check and update in one conditional statement instead of read-modify-write
+        if (productRepository.adjustStockIfAvailable(productId, delta) == 0) return Optional.empty();
+        stockChanged(List.of(productId));
 
-        product.setStock(newStock);
-        return Optional.of(productRepository.save(product));
+        return productRepository.findById(productId);
     }
 
     @Override
     public Optional<Product> setStock(Long productId, Integer stock) {
         if (productId == null) return Optional.empty();
+        if (inventoryLedger != null) {
+            return inventoryLedger.overwrite(productId, () -> writeStock(productId, stock));
+        }
+        return writeStock(productId, stock);
+    }
+
+    private Optional<Product> writeStock(Long productId, Integer stock) {
         Optional<Product> productOpt = productRepository.findById(productId);
         if (productOpt.isEmpty()) return Optional.empty();
         if (stock == null || stock < 0) return Optional.empty();
 
         Product product = productOpt.get();
         product.setStock(stock);
-        return Optional.of(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        stockChanged(List.of(productId));
+        return Optional.of(saved);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserveStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return true;
+        if (inventoryLedger != null) {
+            boolean reserved = inventoryLedger.reserve(quantities);
+            if (reserved) stockChanged(quantities.keySet());
+            return reserved;
+        }
+
+        // Sorted by id so every basket takes its row locks in the same order
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        List<ProductStock> locked = productRepository.lockStockByIds(ordered.keySet());
+        if (locked.size() != ordered.size()) return false;
+
+        for (ProductStock row : locked) {
+            if (row.getStock() < ordered.get(row.getId())) return false;
+        }
+
+        // Rows are locked and checked, so the guarded update must hit every line
+        int updated = productRepository.decrementStockIfAvailable(ordered);
+        if (updated != ordered.size()) {
+            throw new IllegalStateException("Stock changed while rows were locked: expected "
+                + ordered.size() + " updates, got " + updated);
+        }
+        stockChanged(ordered.keySet());
+        return true;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Boolean> reserveStock(List<Map<Long, Integer>> baskets) {
+        List<Boolean> reserved = new ArrayList<>(baskets.size());
+        if (inventoryLedger != null) {
+            Set<Long> changed = new HashSet<>();
+            for (Map<Long, Integer> basket : baskets) {
+                boolean ok = inventoryLedger.reserve(basket);
+                if (ok) changed.addAll(basket.keySet());
+                reserved.add(ok);
+            }
+            if (!changed.isEmpty()) stockChanged(changed);
+            return reserved;
+        }
+
+        TreeSet<Long> productIds = new TreeSet<>();
+        baskets.forEach(basket -> productIds.addAll(basket.keySet()));
+        Map<Long, Integer> available = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (ProductStock row : productRepository.lockStockByIds(productIds)) {
+                available.put(row.getId(), row.getStock());
+            }
+        }
+
+        // Serve baskets against the locked stock, then write every accepted line in one UPDATE
+        Map<Long, Integer> totals = new TreeMap<>();
+        for (Map<Long, Integer> basket : baskets) {
+            boolean fits = basket.entrySet().stream().allMatch(line ->
+                available.containsKey(line.getKey()) && available.get(line.getKey()) >= line.getValue());
+            if (fits) {
+                basket.forEach((productId, quantity) -> {
+                    available.merge(productId, -quantity, Integer::sum);
+                    totals.merge(productId, quantity, Integer::sum);
+                });
+            }
+            reserved.add(fits);
+        }
+
+        if (!totals.isEmpty()) {
+            int updated = productRepository.decrementStockIfAvailable(totals);
+            if (updated != totals.size()) {
+                throw new IllegalStateException("Stock changed while rows were locked: expected "
+                    + totals.size() + " updates, got " + updated);
+            }
+            stockChanged(totals.keySet());
+        }
+        return reserved;
+    }
+
+    private void stockChanged(Collection<Long> productIds) {
+        eventPublisher.publishEvent(ProductsChangedEvent.stock(productIds));
+    }
+
+    // Detached copy carrying the ledger's stock, so the managed entity is never dirtied
+    private static Product withStock(Product product, int stock) {
+        Product copy = new Product(product.getName(), product.getDescription(), product.getPrice(), stock);
+        copy.setId(product.getId());
+        return copy;
     }
 }
@@ -2,6 +2,7 @@ package com.mycompany.service.impl;
 
 import com.mycompany.dto.request.CreateOrderRequest;
 import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.event.OrderEvent;
 import com.mycompany.model.Order;
 import com.mycompany.model.OrderItem;
 import com.mycompany.model.OrderStatus;
@@ -9,20 +10,47 @@ import com.mycompany.model.Product;
 import com.mycompany.model.User;
 import com.mycompany.repository.OrderRepository;
 import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.SalesRollup;
+import com.mycompany.repository.SalesRollupRepository;
 import com.mycompany.repository.UserRepository;
-import com.mycompany.service.KafkaProducerService;
+import com.mycompany.service.GroupCommitter;
+import com.mycompany.service.InventoryService;
+import com.mycompany.service.OrderEventOutbox;
 import com.mycompany.service.OrderMetrics;
 import com.mycompany.service.OrderService;
-import com.mycompany.service.RabbitMQProducerService;
+import com.mycompany.service.PageCursor;
+import com.mycompany.service.TerminalOrderException;
+import com.mycompany.service.VersionConflictException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -33,59 +61,262 @@ public class OrderServiceImpl implements OrderService {
     private ProductRepository productRepository;
 
     @Autowired
-    private KafkaProducerService kafkaProducerService;
+    private InventoryService inventoryService;
 
+    // Events are written to the outbox in the order's transaction; OutboxRelay publishes them
     @Autowired
-    private RabbitMQProducerService rabbitMQProducerService;
+    private OrderEventOutbox orderEventOutbox;
 
     @Autowired
     private OrderMetrics orderMetrics;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Sales rollups are updated in the order's transaction (see SalesRollupService)
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    // Rollup rows per day; each transaction adds to a random one so concurrent orders don't queue on one row lock
+    @Value("${analytics.rollup.buckets:8}")
+    private int rollupBuckets = 8;
+
+    // Orders written per transaction by createOrders
+    @Value("${orders.batch.chunk-size:50}")
+    private int batchChunkSize;
+
+    // Group commit: concurrent createOrder calls share one transaction (off by default)
+    @Value("${orders.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${orders.group-commit.window-micros:2000}")
+    private long groupCommitWindowMicros;
+
+    @Value("${orders.group-commit.max-size:64}")
+    private int groupCommitMaxSize;
+
+    @Value("${orders.group-commit.writers:2}")
+    private int groupCommitWriters;
+
+    @Value("${orders.group-commit.queue-capacity:2000}")
+    private int groupCommitQueueCapacity;
+
+    // Longest a createOrder call waits for its group; then 429
+    @Value("${orders.group-commit.submit-timeout-ms:5000}")
+    private long groupCommitSubmitTimeoutMs = 5000;
+
+    private TransactionTemplate transactionTemplate;
+
+    private GroupCommitter<CreateOrderRequest, Optional<Order>> groupCommitter;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (groupCommitEnabled) {
+            groupCommitter = new GroupCommitter<>("order-group-commit", groupCommitWriters, groupCommitMaxSize,
+                groupCommitWindowMicros, groupCommitQueueCapacity, groupCommitSubmitTimeoutMs,
+                group -> transactionTemplate.execute(status -> writeChunk(group)),
+                request -> transactionTemplate.execute(status -> writeChunk(List.of(request)).get(0)));
+            groupCommitter.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (groupCommitter != null) {
+            groupCommitter.stop();
+        }
+    }
+
     @Override
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<Order> getOrders(PageCursor after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (after == null) {
+            return withItems(orderRepository.findPage(page));
+        }
+        return withItems(orderRepository.findPageBefore(after.getOrderDate(), after.getId(), page));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findWithItemsById(id);
     }
 
     @Override
-    public Optional<List<Order>> getOrdersByUser(Long userId) {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+    public Optional<Long> getOrderVersion(Long id) {
+        return orderRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<List<Order>> getOrdersByUser(Long userId, PageCursor after, int limit) {
+        // Primary-key probe; the User row itself is never loaded
+        if (!userRepository.existsById(userId)) {
             return Optional.empty();
         }
-        return Optional.of(orderRepository.findByUser(user.get()));
+        PageRequest page = PageRequest.of(0, limit);
+        if (after == null) {
+            return Optional.of(withItems(orderRepository.findPageByUserId(userId, page)));
+        }
+        return Optional.of(withItems(orderRepository.findPageByUserIdBefore(userId, after.getOrderDate(), after.getId(), page)));
+    }
+
+    // Returned orders leave the transaction fully loaded: callers map them to
+    // responses without a session, so nothing may be left for lazy loading
+    private List<Order> withItems(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            orderRepository.fetchItemsByIdIn(orders.stream().map(Order::getId).toList());
+        }
+        return orders;
     }
 
+    /**
+     * One transaction per order, or, with orders.group-commit.enabled, a
+     * transaction shared with other concurrent callers (see GroupCommitter).
+     */
     @Override
     public Optional<Order> createOrder(CreateOrderRequest request) {
-        Optional<User> userOptional = userRepository.findById(request.getUserId());
-        if (userOptional.isEmpty()) {
+        Optional<Order> order = groupCommitter != null
+            ? groupCommitter.submit(request)
+            : transactionTemplate.execute(status -> writeChunk(List.of(request)).get(0));
+        order.ifPresent(created -> orderMetrics.incrementOrdersCreated());
+        return order;
+    }
+
+    @Override
+    public List<Optional<Order>> createOrders(List<CreateOrderRequest> requests) {
+        List<Optional<Order>> results = new ArrayList<>(requests.size());
+
+        for (int from = 0; from < requests.size(); from += batchChunkSize) {
+            List<CreateOrderRequest> chunk = requests.subList(from, Math.min(from + batchChunkSize, requests.size()));
+            List<Optional<Order>> chunkResults;
+            try {
+                chunkResults = transactionTemplate.execute(status -> writeChunk(chunk));
+            } catch (RuntimeException e) {
+                // Something unexpected poisoned the chunk; retry its orders one transaction each
+                log.warn("Order batch chunk of {} failed, retrying orders individually", chunk.size(), e);
+                chunkResults = new ArrayList<>(chunk.size());
+                for (CreateOrderRequest request : chunk) {
+                    chunkResults.add(writeSingle(request));
+                }
+            }
+
+            chunkResults.forEach(order -> order.ifPresent(created -> orderMetrics.incrementOrdersCreated()));
+            results.addAll(chunkResults);
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public Optional<Order> updateOrderStatus(Long id, OrderStatus status, Long expectedVersion) {
+        Optional<Order> orderOptional = orderRepository.findWithItemsById(id);
+        if (orderOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        Order order = orderOptional.get();
+        // A change between this read and the commit is caught by @Version on flush
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new VersionConflictException("Order", id, expectedVersion, order.getVersion());
+        }
+        // Terminal orders are served from an immutable cache, so they must stay as they are
+        if (order.getStatus().isTerminal() && order.getStatus() != status) {
+            throw new TerminalOrderException(id, order.getStatus());
+        }
+        if (status == OrderStatus.CANCELLED && order.getStatus() != OrderStatus.CANCELLED) {
+            addToRollups(List.of(order), -1);
+        }
+        order.setStatus(status);
+        return Optional.of(orderRepository.save(order));
+    }
+
+    /**
+     * Validates every order of a chunk, reserves all their stock in one pass
+     * and persists them together so Hibernate can send the inserts as JDBC batches.
+     */
+    private List<Optional<Order>> writeChunk(List<CreateOrderRequest> chunk) {
+        Map<Long, User> users = loadUsers(chunk);
+        Map<Long, Product> products = loadProducts(chunk);
+
+        List<Map<Long, Integer>> baskets = new ArrayList<>(chunk.size());
+        for (CreateOrderRequest request : chunk) {
+            baskets.add(validate(request, users, products).orElse(null));
+        }
+        List<Map<Long, Integer>> valid = baskets.stream().filter(Objects::nonNull).toList();
+        // Validate and decrement every basket atomically (DB row locks or in-memory ledger)
+        Iterator<Boolean> reserved = inventoryService.reserveStock(valid).iterator();
+
+        List<Optional<Order>> built = new ArrayList<>(chunk.size());
+        List<Order> toSave = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (baskets.get(i) == null || !reserved.next()) {
+                built.add(Optional.empty());
+                continue;
+            }
+            Order order = assemble(chunk.get(i), users, products);
+            toSave.add(order);
+            built.add(Optional.of(order));
+        }
+
+        orderRepository.saveAll(toSave);
+        addToRollups(toSave, 1);
+        toSave.forEach(order -> orderEventOutbox.append(OrderEvent.of(OrderEvent.ORDER_CREATED, order)));
+        return built;
+    }
+
+    // sign 1 adds the orders to the sales rollups, -1 takes them back out
+    private void addToRollups(List<Order> orders, int sign) {
+        SalesRollup rollup = SalesRollup.of(orders, sign);
+        if (!rollup.isEmpty()) {
+            salesRollupRepository.add(rollup, ThreadLocalRandom.current().nextInt(rollupBuckets));
+        }
+    }
+
+    private Optional<Order> writeSingle(CreateOrderRequest request) {
+        try {
+            return transactionTemplate.execute(status -> writeChunk(List.of(request)).get(0));
+        } catch (RuntimeException e) {
+            log.warn("Order in batch rejected", e);
             return Optional.empty();
         }
-        User user = userOptional.get();
+    }
 
+    /**
+     * Checks a request against preloaded users/products and merges duplicate
+     * lines, so each product is checked and decremented once. Returns empty
+     * if the request is invalid.
+     */
+    private Optional<Map<Long, Integer>> validate(CreateOrderRequest request, Map<Long, User> users, Map<Long, Product> products) {
+        if (request.getItems() == null || !users.containsKey(request.getUserId())) {
+            return Optional.empty();
+        }
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemRequest itemRequest : request.getItems()) {
+            if (itemRequest.getProductId() == null || itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
+                return Optional.empty();
+            }
+            if (!products.containsKey(itemRequest.getProductId())) {
+                return Optional.empty();
+            }
+            quantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
+        return Optional.of(quantities);
+    }
+
+    // Builds the (unsaved) order for a validated request whose stock is reserved
+    private Order assemble(CreateOrderRequest request, Map<Long, User> users, Map<Long, Product> products) {
         Order order = new Order();
-        order.setUser(user);
+        order.setUser(users.get(request.getUserId()));
         order.setStatus(OrderStatus.PENDING);
         order.setOrderDate(java.time.LocalDateTime.now());
 
         BigDecimal total = BigDecimal.ZERO;
 
         for (OrderItemRequest itemRequest : request.getItems()) {
-            Optional<Product> productOptional = productRepository.findById(itemRequest.getProductId());
-            if (productOptional.isEmpty()) {
-                return Optional.empty();
-            }
-
-            Product product = productOptional.get();
-
-            if (product.getStock() < itemRequest.getQuantity()) {
-                return Optional.empty();
-            }
+            Product product = products.get(itemRequest.getProductId());
 
             BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
             total = total.add(itemTotal);
@@ -97,39 +328,34 @@ public class OrderServiceImpl implements OrderService {
             orderItem.setPrice(product.getPrice());
 
             order.getOrderItems().add(orderItem);
-
-            product.setStock(product.getStock() - itemRequest.getQuantity());
-            productRepository.save(product);
         }
 
         order.setTotal(total);
-        Order savedOrder = orderRepository.save(order);
-
-        kafkaProducerService.sendOrderCreatedEvent(
-            savedOrder.getId(),
-            user.getId(),
-            savedOrder.getTotal().toString()
-        );
-
-        rabbitMQProducerService.sendOrderCreatedEvent(
-            savedOrder.getId(),
-            user.getId(),
-            savedOrder.getTotal().toString()
-        );
-
-        orderMetrics.incrementOrdersCreated();
+        return order;
+    }
 
-        return Optional.of(savedOrder);
+    // One query for all users referenced by the requests
+    private Map<Long, User> loadUsers(Collection<CreateOrderRequest> requests) {
+        Set<Long> userIds = requests.stream()
+            .map(CreateOrderRequest::getUserId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        return userRepository.findAllById(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
     }
 
-    @Override
-    public Optional<Order> updateOrderStatus(Long id, OrderStatus status) {
-        Optional<Order> orderOptional = orderRepository.findById(id);
-        if (orderOptional.isEmpty()) {
-            return Optional.empty();
+    // One query for every product in every basket, instead of one findById per line
+    private Map<Long, Product> loadProducts(Collection<CreateOrderRequest> requests) {
+        Set<Long> productIds = requests.stream()
+            .filter(request -> request.getItems() != null)
+            .flatMap(request -> request.getItems().stream())
+            .map(OrderItemRequest::getProductId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (productIds.isEmpty()) {
+            return Map.of();
         }
-        Order order = orderOptional.get();
-        order.setStatus(status);
-        return Optional.of(orderRepository.save(order));
+        return productRepository.findByIdIn(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
     }
 }
@@ -1,11 +1,17 @@
 package com.mycompany.service.impl;
 
+import com.mycompany.event.ProductsChangedEvent;
 import com.mycompany.model.Product;
 import com.mycompany.repository.ProductRepository;
+import com.mycompany.service.InventoryLedger;
+import com.mycompany.service.PageCursor;
 import com.mycompany.service.ProductService;
+import com.mycompany.service.VersionConflictException;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,9 +20,21 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    // Present only when inventory.ledger.enabled=true
+    @Autowired(required = false)
+    private InventoryLedger inventoryLedger;
+
+    // Product caches listen for ProductsChangedEvent and evict after commit
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public List<Product> getProducts(PageCursor after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (after == null) {
+            return productRepository.findAllByOrderByIdAsc(page);
+        }
+        return productRepository.findByIdGreaterThanOrderByIdAsc(after.getId(), page);
     }
 
     @Override
@@ -24,29 +42,54 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findById(id);
     }
 
+    @Override
+    public Optional<Long> getProductVersion(Long id) {
+        return productRepository.findVersionById(id);
+    }
+
     @Override
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductsChangedEvent(List.of(saved.getId()), true));
+        return saved;
     }
 
     @Override
-    public Optional<Product> updateProduct(Long id, Product productDetails) {
+    public Optional<Product> updateProduct(Long id, Product productDetails, Long expectedVersion) {
+        if (inventoryLedger != null) {
+            // Stock is overwritten, so the ledger must be reset in step with the row
+            return inventoryLedger.overwrite(id, () -> writeProduct(id, productDetails, expectedVersion));
+        }
+        return writeProduct(id, productDetails, expectedVersion);
+    }
+
+    private Optional<Product> writeProduct(Long id, Product productDetails, Long expectedVersion) {
         Optional<Product> optionalProduct = productRepository.findById(id);
         if (optionalProduct.isEmpty()) {
             return Optional.empty();
         }
         Product product = optionalProduct.get();
+        // A change between this read and the save is caught by @Version on flush
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new VersionConflictException("Product", id, expectedVersion, product.getVersion());
+        }
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
         product.setStock(productDetails.getStock());
-        return Optional.of(productRepository.save(product));
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductsChangedEvent(List.of(id), false));
+        return Optional.of(saved);
     }
 
     @Override
     public boolean deleteProduct(Long id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            if (inventoryLedger != null) {
+                inventoryLedger.forget(id);
+            }
+            eventPublisher.publishEvent(new ProductsChangedEvent(List.of(id), true));
             return true;
         }
         return false;
@@ -1,22 +1,49 @@
 package com.mycompany.service.impl;
 
+import com.mycompany.event.OrdersDeletedEvent;
+import com.mycompany.model.OrderStatus;
 import com.mycompany.model.User;
+import com.mycompany.repository.OrderRepository;
+import com.mycompany.repository.SalesRollupRepository;
 import com.mycompany.repository.UserRepository;
+import com.mycompany.service.PageCursor;
 import com.mycompany.service.UserService;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    // Orders TerminalOrderCache may hold
+    private static final EnumSet<OrderStatus> TERMINAL_STATUSES = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // Deleting a user deletes their orders; cached terminal orders are dropped after commit
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ... and their sales come out of the rollups, as a rebuild from orders would no longer see them
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<User> getUsers(PageCursor after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (after == null) {
+            return userRepository.findAllByOrderByIdAsc(page);
+        }
+        return userRepository.findByIdGreaterThanOrderByIdAsc(after.getId(), page);
     }
 
     @Override
@@ -42,9 +69,16 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public boolean deleteUser(Long id) {
         if (userRepository.existsById(id)) {
+            // Aggregated in the database: the orders themselves are never loaded for this
+            salesRollupRepository.subtractUserOrders(id);
+            List<Long> cachedOrderIds = orderRepository.findIdsByUserIdAndStatusIn(id, TERMINAL_STATUSES);
             userRepository.deleteById(id);
+            if (!cachedOrderIds.isEmpty()) {
+                eventPublisher.publishEvent(new OrdersDeletedEvent(cachedOrderIds));
+            }
             return true;
         }
         return false;
@@ -0,0 +1,35 @@
+package com.mycompany;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate StatementInspector that counts reads and updates for
+ * statement-count regression tests. Inserts and sequence calls are ignored:
+ * inserts are sent as JDBC batches and pooled sequences are fetched once per
+ * 50 ids, so neither says anything about per-row round trips.
+ *
+ * Enable with spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mycompany.SqlStatementCounter
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final AtomicLong COUNT = new AtomicLong();
+
+    @Override
+    public String inspect(String sql) {
+        String normalized = sql.trim().toLowerCase();
+        boolean sequenceCall = normalized.contains("nextval") || normalized.contains("next value for");
+        if (!sequenceCall && (normalized.startsWith("select") || normalized.startsWith("update"))) {
+            COUNT.incrementAndGet();
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+    }
+
+    public static long count() {
+        return COUNT.get();
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.dto.response.ProductResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes per entry and encode/decode ns per entry for a 10k-product catalog:
+ * JDK serialization (what the default Spring Redis cache stored) against the
+ * CacheSerializer codecs, with and without compression.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=CacheSerializerBenchmarkTest
+ */
+@Tag("benchmark")
+public class CacheSerializerBenchmarkTest {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int ROUNDS = 5;
+
+    // Keeps the JIT from discarding the work
+    private static long sink;
+
+    private interface Codec {
+        byte[] encode(ProductResponse product) throws IOException;
+
+        ProductResponse decode(byte[] bytes) throws IOException;
+    }
+
+    @Test
+    public void compareCodecs() throws IOException {
+        List<ProductResponse> catalog = catalog();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        Result jdk = measure("jdk", catalog, new Codec() {
+            @Override
+            public byte[] encode(ProductResponse product) throws IOException {
+                return jdkSerialize(product);
+            }
+
+            @Override
+            public ProductResponse decode(byte[] bytes) throws IOException {
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (ProductResponse) in.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        });
+        measure("json", catalog, codec(CacheSerializer.of("json", objectMapper, 1, 0)));
+        measure("json+deflate", catalog, codec(CacheSerializer.of("json", objectMapper, 1, 64)));
+        Result smile = measure("smile", catalog, codec(CacheSerializer.of("smile", objectMapper, 1, 0)));
+        measure("smile+deflate", catalog, codec(CacheSerializer.of("smile", objectMapper, 1, 64)));
+
+        // The old cache stored the whole catalog as one List value
+        int jdkList = jdkSerialize(new ArrayList<>(catalog)).length;
+        int smileList = CacheSerializer.of("smile", objectMapper, 1, 1024).encode(catalog).length;
+        System.out.printf("whole catalog as one value: jdk=%d bytes smile+deflate=%d bytes%n", jdkList, smileList);
+
+        System.out.printf("smile vs jdk: %.2fx the bytes, %.2fx the decode time%n",
+            smile.bytesPerEntry / jdk.bytesPerEntry, smile.decodeNs / jdk.decodeNs);
+
+        // Sizes are deterministic; timings are only reported
+        assertTrue(smile.bytesPerEntry < jdk.bytesPerEntry);
+    }
+
+    private static final class Result {
+        private final double bytesPerEntry;
+        private final double decodeNs;
+
+        private Result(double bytesPerEntry, double decodeNs) {
+            this.bytesPerEntry = bytesPerEntry;
+            this.decodeNs = decodeNs;
+        }
+    }
+
+    private static Result measure(String name, List<ProductResponse> catalog, Codec codec) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(catalog.size());
+        long encodeNs = 0;
+        long decodeNs = 0;
+        // The first round only warms up
+        for (int round = 0; round <= ROUNDS; round++) {
+            encoded.clear();
+            long begin = System.nanoTime();
+            for (ProductResponse product : catalog) {
+                encoded.add(codec.encode(product));
+            }
+            long encodedAt = System.nanoTime();
+            for (byte[] bytes : encoded) {
+                sink += codec.decode(bytes).getStock();
+            }
+            if (round > 0) {
+                encodeNs += encodedAt - begin;
+                decodeNs += System.nanoTime() - encodedAt;
+            }
+        }
+        long bytes = encoded.stream().mapToLong(entry -> entry.length).sum();
+        double perEntry = bytes / (double) catalog.size();
+        double encodePerEntry = encodeNs / (double) (ROUNDS * catalog.size());
+        double decodePerEntry = decodeNs / (double) (ROUNDS * catalog.size());
+        System.out.printf("%-14s %7.1f bytes/entry %8.1f ns encode %8.1f ns decode%n",
+            name, perEntry, encodePerEntry, decodePerEntry);
+        return new Result(perEntry, decodePerEntry);
+    }
+
+    private static Codec codec(CacheSerializer serializer) {
+        return new Codec() {
+            @Override
+            public byte[] encode(ProductResponse product) throws IOException {
+                return serializer.encode(product);
+            }
+
+            @Override
+            public ProductResponse decode(byte[] bytes) throws IOException {
+                return serializer.decode(bytes, ProductResponse.class);
+            }
+        };
+    }
+
+    private static byte[] jdkSerialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ProductResponse> catalog() {
+        Random random = new Random(42);
+        String[] words = {"wireless", "ergonomic", "steel", "compact", "premium", "keyboard", "mouse", "monitor",
+            "cable", "stand", "lamp", "chair", "desk", "adapter", "charger", "speaker"};
+        List<ProductResponse> catalog = new ArrayList<>(PRODUCTS);
+        for (int i = 1; i <= PRODUCTS; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 12; w++) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            catalog.add(new ProductResponse((long) i, name, description.toString().trim(), price, random.nextInt(500)));
+        }
+        return catalog;
+    }
+}
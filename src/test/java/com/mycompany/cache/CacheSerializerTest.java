@@ -0,0 +1,66 @@
+package com.mycompany.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.dto.response.ProductResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void roundTripsWithEitherCodec() throws IOException {
+        ProductResponse product = product("Keyboard");
+        for (String format : new String[] {"json", "smile"}) {
+            CacheSerializer serializer = CacheSerializer.of(format, objectMapper, 1, 0);
+            assertSame(product, serializer.decode(serializer.encode(product), ProductResponse.class));
+        }
+    }
+
+    @Test
+    public void largeValuesAreDeflated() throws IOException {
+        ProductResponse product = product("Keyboard ".repeat(500));
+        CacheSerializer plain = CacheSerializer.of("smile", objectMapper, 1, 0);
+        CacheSerializer compressed = CacheSerializer.of("smile", objectMapper, 1, 1024);
+
+        byte[] bytes = compressed.encode(product);
+        assertTrue(bytes.length < plain.encode(product).length / 10);
+        assertSame(product, compressed.decode(bytes, ProductResponse.class));
+        // Small values stay uncompressed
+        assertEquals(plain.encode(product("Mouse")).length, compressed.encode(product("Mouse")).length);
+    }
+
+    @Test
+    public void codecSwitchKeepsEntriesReadable() throws IOException {
+        byte[] json = CacheSerializer.of("json", objectMapper, 1, 0).encode(product("Keyboard"));
+        assertSame(product("Keyboard"), CacheSerializer.of("smile", objectMapper, 1, 0).decode(json, ProductResponse.class));
+    }
+
+    @Test
+    public void otherSchemaVersionIsAMissAndGarbageIsAnError() throws IOException {
+        byte[] v1 = CacheSerializer.of("smile", objectMapper, 1, 0).encode(product("Keyboard"));
+        CacheSerializer v2 = CacheSerializer.of("smile", objectMapper, 2, 0);
+
+        assertNull(v2.decode(v1, ProductResponse.class));
+        assertThrows(IOException.class, () -> v2.decode("{\"id\":1}".getBytes(), ProductResponse.class));
+    }
+
+    private static ProductResponse product(String name) {
+        return new ProductResponse(42L, name, "A product", new BigDecimal("19.99"), 7);
+    }
+
+    private static void assertSame(ProductResponse expected, ProductResponse actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getStock(), actual.getStock());
+    }
+}
@@ -0,0 +1,265 @@
+package com.mycompany.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.service.OrderMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes sharing a (mocked) pub/sub channel, local tier only: hits skip the
+ * loader, evictions reload, an eviction on one node clears the other, and
+ * concurrent or expired reads do not stampede the loader. The last tests share
+ * a fake Redis: a load that overlapped an eviction on another node does not
+ * write back, and an eviction does not hold back loads of other keys.
+ */
+public class TwoLevelCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private StringRedisTemplate channelA;
+    private TwoLevelCache<String> nodeA;
+    private TwoLevelCache<String> nodeB;
+    private CacheInvalidationBus busB;
+
+    @BeforeEach
+    public void setUp() {
+        OrderMetrics metrics = new OrderMetrics(registry);
+        channelA = mock(StringRedisTemplate.class);
+        CacheInvalidationBus busA = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(busA, "redisTemplate", channelA);
+        busB = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(busB, "redisTemplate", mock(StringRedisTemplate.class));
+
+        CacheSerializer serializer = CacheSerializer.of("json", new ObjectMapper(), 1, 0);
+        nodeA = new TwoLevelCache<>("test", String.class, 100, Duration.ofMinutes(1), Duration.ofMinutes(1),
+            Duration.ofMinutes(5), null, serializer, busA, null, null, metrics);
+        nodeB = new TwoLevelCache<>("test", String.class, 100, Duration.ofMinutes(1), Duration.ofMinutes(1),
+            Duration.ofMinutes(5), null, serializer, busB, null, null, metrics);
+    }
+
+    @Test
+    public void secondReadIsALocalHit() {
+        assertEquals("v1", nodeA.get("1", this::load));
+        assertEquals("v1", nodeA.get("1", this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    @Test
+    public void evictReloads() {
+        nodeA.get("1", this::load);
+        nodeA.evict("1");
+
+        assertEquals("v2", nodeA.get("1", this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void evictionOnOneNodeClearsTheOther() {
+        nodeA.get("1", this::load);
+        nodeB.get("1", this::load);
+        nodeA.evict("1");
+
+        // Deliver what node A published to node B, as the Redis listener container would
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(channelA).convertAndSend(eq(CacheInvalidationBus.CHANNEL), published.capture());
+        busB.onMessage(new DefaultMessage(CacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+            published.getValue().getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals("v3", nodeB.get("1", this::load));
+        assertEquals(1.0, registry.get("order_service_cache_evictions_total").tag("cause", "remote").counter().count());
+    }
+
+    @Test
+    public void getAllLoadsOnlyTheMissingKeys() {
+        nodeA.get("1", this::load);
+        List<List<String>> batches = new ArrayList<>();
+        Map<String, String> found = nodeA.getAll(List.of("1", "2", "3"), keys -> {
+            batches.add(keys);
+            Map<String, String> loaded = new HashMap<>();
+            keys.forEach(key -> loaded.put(key, "bulk" + key));
+            return loaded;
+        });
+
+        assertEquals(List.of(List.of("2", "3")), batches);
+        assertEquals("v1", found.get("1"));
+        assertEquals("bulk3", found.get("3"));
+    }
+
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> nodeA.get("hot", () -> {
+                awaitQuietly(release);
+                return load();
+            })));
+        }
+        // Let every thread reach the cache before the single load finishes
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("v1", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals(threads - 1.0, registry.get("order_service_cache_coalesced_loads_total").counter().count());
+    }
+
+    @Test
+    public void expiredEntryIsServedStaleWhileItReloads() throws Exception {
+        // Direct executor: the background reload runs before get() returns the stale value
+        TwoLevelCache<String> cache = new TwoLevelCache<>("stale", String.class, 100, Duration.ofMillis(50),
+            Duration.ofMinutes(1), Duration.ofMinutes(5), null, CacheSerializer.of("json", new ObjectMapper(), 1, 0),
+            null, Runnable::run, null, new OrderMetrics(registry));
+        assertEquals("v1", cache.get("1", this::load));
+        Thread.sleep(100);
+
+        assertEquals("v1", cache.get("1", this::load));
+        assertEquals("v2", cache.get("1", this::load));
+        assertEquals(2, loads.get());
+        assertEquals(1.0, registry.get("order_service_cache_refreshes_total").tag("trigger", "stale").counter().count());
+    }
+
+    @Test
+    public void loadOverlappingAnEvictionOnAnotherNodeIsNotWrittenBack() throws IOException {
+        Map<String, byte[]> store = new ConcurrentHashMap<>();
+        TwoLevelCache<String> first = redisNode(store);
+        TwoLevelCache<String> second = redisNode(store);
+
+        // The first node reads the old row; the second commits a change and evicts before the write-back
+        assertEquals("old", first.get("1", () -> {
+            second.evict("1");
+            return "old";
+        }));
+
+        assertNull(store.get("cache:shared:v1:1"));
+        assertEquals("new", second.get("1", () -> "new"));
+        assertEquals("new", stored(store, "1"));
+    }
+
+    @Test
+    public void evictionDoesNotHoldBackLoadsOfOtherKeys() throws IOException {
+        Map<String, byte[]> store = new ConcurrentHashMap<>();
+        TwoLevelCache<String> first = redisNode(store);
+        TwoLevelCache<String> second = redisNode(store);
+
+        assertEquals("v1", first.get("1", () -> {
+            second.evict("2");
+            first.evict("3");
+            return load();
+        }));
+
+        assertEquals("v1", stored(store, "1"));
+        assertEquals("v1", first.get("1", this::load));
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * A node whose Redis is a map: GET/MGET/SET plus the two scripts, run as
+     * Redis would run them.
+     */
+    @SuppressWarnings("unchecked")
+    private TwoLevelCache<String> redisNode(Map<String, byte[]> store) {
+        RedisTemplate<String, byte[]> redis = mock(RedisTemplate.class);
+        ValueOperations<String, byte[]> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(any())).thenAnswer(invocation -> store.get(invocation.<String>getArgument(0)));
+        when(values.multiGet(any())).thenAnswer(invocation ->
+            invocation.<List<String>>getArgument(0).stream().map(store::get).toList());
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(1);
+            Object[] args = invocation.getRawArguments()[2] instanceof Object[] raw ? raw : new Object[0];
+            if (keys.size() % 2 == 0) {
+                // EVICT: bump each generation, drop each value
+                long deleted = 0;
+                for (int i = 0; i < keys.size(); i += 2) {
+                    store.merge(keys.get(i), "1".getBytes(StandardCharsets.UTF_8),
+                        (old, one) -> String.valueOf(Long.parseLong(new String(old, StandardCharsets.UTF_8)) + 1)
+                            .getBytes(StandardCharsets.UTF_8));
+                    deleted += store.remove(keys.get(i + 1)) == null ? 0 : 1;
+                }
+                return deleted;
+            }
+            // WRITE_IF_UNCHANGED
+            if (!generation(store, keys.get(0)).equals(new String((byte[]) args[1], StandardCharsets.UTF_8))) {
+                return 0L;
+            }
+            long written = 0;
+            for (int i = 1; i < keys.size(); i += 2) {
+                if (generation(store, keys.get(i + 1)).equals(new String((byte[]) args[i + 2], StandardCharsets.UTF_8))) {
+                    store.put(keys.get(i), (byte[]) args[i + 1]);
+                    written++;
+                }
+            }
+            return written;
+        });
+        return new TwoLevelCache<>("shared", String.class, 100, Duration.ofMinutes(1), Duration.ofMinutes(1),
+            Duration.ofMinutes(5), redis, CacheSerializer.of("json", new ObjectMapper(), 1, 0), null, null,
+            null, new OrderMetrics(registry));
+    }
+
+    private static String stored(Map<String, byte[]> store, String key) throws IOException {
+        return CacheSerializer.of("json", new ObjectMapper(), 1, 0).decode(store.get("cache:shared:v1:" + key), String.class);
+    }
+
+    private static String generation(Map<String, byte[]> store, String key) {
+        byte[] stored = store.get(key);
+        return stored == null ? "0" : new String(stored, StandardCharsets.UTF_8);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    private double requests(String result) {
+        return registry.get("order_service_cache_requests_total").tag("tier", TwoLevelCache.TIER_LOCAL)
+            .tag("result", result).counter().count();
+    }
+}
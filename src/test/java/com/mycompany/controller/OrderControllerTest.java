@@ -0,0 +1,207 @@
+package com.mycompany.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.event.OrdersDeletedEvent;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.User;
+import com.mycompany.service.IdempotencyService;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import com.mycompany.service.PageCursor;
+import com.mycompany.service.TerminalOrderCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * OrderController over MockMvc with a mocked OrderService, the in-memory
+ * idempotency store and a local-only TerminalOrderCache.
+ */
+public class OrderControllerTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final AtomicLong orderIds = new AtomicLong();
+    private TerminalOrderCache terminalOrderCache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        IdempotencyService idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(idempotencyService, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        idempotencyService.registerMetrics();
+
+        terminalOrderCache = new TerminalOrderCache();
+        ReflectionTestUtils.setField(terminalOrderCache, "redisEnabled", false);
+        ReflectionTestUtils.setField(terminalOrderCache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(terminalOrderCache, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        terminalOrderCache.init();
+
+        OrderController controller = new OrderController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+        ReflectionTestUtils.setField(controller, "idempotencyService", idempotencyService);
+        ReflectionTestUtils.setField(controller, "terminalOrderCache", terminalOrderCache);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            Order order = new Order(user(1L), new BigDecimal("10.00"), OrderStatus.PENDING);
+            order.setId(orderIds.incrementAndGet());
+            order.setOrderDate(LocalDateTime.of(2024, 3, 1, 12, 0));
+            return Optional.of(order);
+        });
+    }
+
+    @Test
+    public void retryWithSameKeyAndBodyReplaysTheOrder() throws Exception {
+        mockMvc.perform(create(1L, 2, "key-1"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Idempotent-Replayed", "false"));
+        mockMvc.perform(create(1L, 2, "key-1"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Idempotent-Replayed", "true"))
+            .andExpect(jsonPath("$.id").value(1));
+
+        verify(orderService, times(1)).createOrder(any());
+    }
+
+    @Test
+    public void sameKeyWithDifferentBodyIs422() throws Exception {
+        mockMvc.perform(create(1L, 2, "key-1")).andExpect(status().isCreated());
+
+        mockMvc.perform(create(1L, 3, "key-1")).andExpect(status().isUnprocessableEntity());
+        verify(orderService, times(1)).createOrder(any());
+    }
+
+    @Test
+    public void sameKeyFromAnotherUserCreatesItsOwnOrder() throws Exception {
+        mockMvc.perform(create(1L, 2, "key-1")).andExpect(status().isCreated());
+
+        mockMvc.perform(create(2L, 2, "key-1"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Idempotent-Replayed", "false"))
+            .andExpect(jsonPath("$.id").value(2));
+        verify(orderService, times(2)).createOrder(any());
+    }
+
+    @Test
+    public void fullGroupCommitQueueIs429() throws Exception {
+        when(orderService.createOrder(any())).thenThrow(new RejectedExecutionException("order-group-commit queue is full"));
+
+        mockMvc.perform(create(1L, 2, null))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "1"));
+        mockMvc.perform(create(1L, 2, "key-1"))
+            .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void productCursorOnOrderListingIs400() throws Exception {
+        mockMvc.perform(get("/api/orders").param("cursor", PageCursor.encode(5L)))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders").param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/orders").param("cursor", PageCursor.encode(LocalDateTime.of(2024, 3, 1, 12, 0), 5L)))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    public void terminalOrderIsImmutableAndRevalidatesFromTheCache() throws Exception {
+        when(orderService.getOrderById(7L)).thenReturn(Optional.of(order(7L, OrderStatus.DELIVERED, 3L)));
+
+        mockMvc.perform(get("/api/orders/7"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "W/\"3\""))
+            .andExpect(header().string("Cache-Control", "private, max-age=31536000, immutable"))
+            .andExpect(jsonPath("$.status").value("DELIVERED"));
+        mockMvc.perform(get("/api/orders/7").header("If-None-Match", "W/\"3\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("Cache-Control", "private, max-age=31536000, immutable"));
+        mockMvc.perform(get("/api/orders/7"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(7));
+
+        verify(orderService, times(1)).getOrderById(7L);
+        verify(orderService, never()).getOrderVersion(7L);
+    }
+
+    @Test
+    public void openOrderRevalidatesFromTheVersionAlone() throws Exception {
+        when(orderService.getOrderById(8L)).thenReturn(Optional.of(order(8L, OrderStatus.SHIPPED, 2L)));
+        when(orderService.getOrderVersion(8L)).thenReturn(Optional.of(2L));
+
+        mockMvc.perform(get("/api/orders/8"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "W/\"2\""))
+            .andExpect(header().doesNotExist("Cache-Control"));
+        mockMvc.perform(get("/api/orders/8").header("If-None-Match", "W/\"2\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().doesNotExist("Cache-Control"));
+
+        // Changed since: the order is read and sent with its new tag
+        when(orderService.getOrderVersion(8L)).thenReturn(Optional.of(3L));
+        when(orderService.getOrderById(8L)).thenReturn(Optional.of(order(8L, OrderStatus.DELIVERED, 3L)));
+        mockMvc.perform(get("/api/orders/8").header("If-None-Match", "W/\"2\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "W/\"3\""))
+            .andExpect(header().string("Cache-Control", "private, max-age=31536000, immutable"));
+        verify(orderService, times(2)).getOrderById(8L);
+    }
+
+    @Test
+    public void ordersDeletedWithTheirUserAreNoLongerServedFromTheCache() throws Exception {
+        when(orderService.getOrderById(9L)).thenReturn(Optional.of(order(9L, OrderStatus.CANCELLED, 1L)));
+        mockMvc.perform(get("/api/orders/9")).andExpect(status().isOk());
+
+        when(orderService.getOrderById(9L)).thenReturn(Optional.empty());
+        terminalOrderCache.onOrdersDeleted(new OrdersDeletedEvent(List.of(9L)));
+
+        mockMvc.perform(get("/api/orders/9")).andExpect(status().isNotFound());
+    }
+
+    private static Order order(Long id, OrderStatus status, long version) {
+        Order order = new Order(user(1L), new BigDecimal("10.00"), status);
+        order.setId(id);
+        order.setOrderDate(LocalDateTime.of(2024, 3, 1, 12, 0));
+        ReflectionTestUtils.setField(order, "version", version);
+        return order;
+    }
+
+    private static MockHttpServletRequestBuilder create(Long userId, int quantity, String idempotencyKey) {
+        MockHttpServletRequestBuilder request = post("/api/orders").contentType(MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return request.content("{\"userId\":" + userId + ",\"items\":[{\"productId\":5,\"quantity\":" + quantity + "}]}");
+    }
+
+    private static User user(Long id) {
+        User user = new User("Test", "test@example.com");
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,206 @@
+package com.mycompany.event;
+
+import com.mycompany.model.OrderStatus;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderEventBinaryCodecTest {
+
+    static OrderEvent sampleEvent() {
+        OrderEvent event = new OrderEvent();
+        event.setEventType(OrderEvent.ORDER_CREATED);
+        event.setOrderId(1_234_567L);
+        event.setUserId(42L);
+        event.setTotal(new BigDecimal("259.97"));
+        event.setStatus(OrderStatus.PENDING);
+        event.setTimestamp(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_789));
+        event.setItems(List.of(
+            new OrderEventItem(7L, 2, new BigDecimal("99.99")),
+            new OrderEventItem(19L, 1, new BigDecimal("59.99"))));
+        return event;
+    }
+
+    @Test
+    public void roundTripsEveryField() {
+        OrderEvent event = sampleEvent();
+
+        OrderEvent decoded = OrderEventBinaryCodec.decode(OrderEventBinaryCodec.toBytes(event));
+
+        assertEquals(event.getEventType(), decoded.getEventType());
+        assertEquals(event.getOrderId(), decoded.getOrderId());
+        assertEquals(event.getUserId(), decoded.getUserId());
+        assertEquals(event.getTotal(), decoded.getTotal());
+        assertEquals(event.getStatus(), decoded.getStatus());
+        assertEquals(event.getTimestamp(), decoded.getTimestamp());
+        assertEquals(2, decoded.getItems().size());
+        assertEquals(19L, decoded.getItems().get(1).getProductId());
+        assertEquals(1, decoded.getItems().get(1).getQuantity());
+        assertEquals(new BigDecimal("59.99"), decoded.getItems().get(1).getPrice());
+    }
+
+    @Test
+    public void roundTripsStatusChangesAndMissingFields() {
+        OrderEvent event = new OrderEvent();
+        event.setEventType(OrderEvent.ORDER_STATUS_CHANGED);
+        event.setOrderId(9L);
+        event.setStatus(OrderStatus.SHIPPED);
+
+        OrderEvent decoded = OrderEventBinaryCodec.decode(OrderEventBinaryCodec.toBytes(event));
+
+        assertEquals(OrderEvent.ORDER_STATUS_CHANGED, decoded.getEventType());
+        assertEquals(OrderStatus.SHIPPED, decoded.getStatus());
+        assertNull(decoded.getUserId());
+        assertNull(decoded.getTotal());
+        assertEquals(0, decoded.getItems().size());
+    }
+
+    @Test
+    public void encodesIntoCallerBufferBackToBack() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        OrderEventBinaryCodec.encode(sampleEvent(), buffer);
+        OrderEventBinaryCodec.encode(sampleEvent(), buffer);
+        buffer.flip();
+
+        assertEquals(1_234_567L, OrderEventBinaryCodec.decode(buffer).getOrderId());
+        assertEquals(1_234_567L, OrderEventBinaryCodec.decode(buffer).getOrderId());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void rejectsUnknownSchemaVersion() {
+        byte[] bytes = OrderEventBinaryCodec.toBytes(sampleEvent());
+        bytes[1] = (byte) (OrderEventBinaryCodec.SCHEMA_VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> OrderEventBinaryCodec.decode(bytes));
+    }
+
+    @Test
+    public void rejectsUnknownStatusOrdinal() {
+        OrderEvent event = new OrderEvent();
+        event.setEventType(OrderEvent.ORDER_STATUS_CHANGED);
+        event.setStatus(OrderStatus.SHIPPED);
+        byte[] bytes = OrderEventBinaryCodec.toBytes(event);
+        // magic, version, type, presence, status
+        bytes[4] = (byte) OrderStatus.values().length;
+
+        assertThrows(OrderEventBinaryCodec.FormatException.class, () -> OrderEventBinaryCodec.decode(bytes));
+        bytes[4] = -1;
+        assertThrows(OrderEventBinaryCodec.FormatException.class, () -> OrderEventBinaryCodec.decode(bytes));
+    }
+
+    @Test
+    public void rejectsTruncatedEvent() {
+        byte[] bytes = OrderEventBinaryCodec.toBytes(sampleEvent());
+
+        assertThrows(OrderEventBinaryCodec.FormatException.class,
+            () -> OrderEventBinaryCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test
+    public void readerIsReusedAcrossEvents() {
+        OrderEvent small = new OrderEvent();
+        small.setEventType(OrderEvent.ORDER_STATUS_CHANGED);
+        small.setOrderId(9L);
+        small.setStatus(OrderStatus.SHIPPED);
+        OrderEventBinaryCodec.Reader reader = new OrderEventBinaryCodec.Reader();
+
+        reader.read(ByteBuffer.wrap(OrderEventBinaryCodec.toBytes(sampleEvent())));
+        assertEquals(2, reader.itemCount());
+        assertEquals(new BigDecimal("259.97"), reader.total());
+
+        reader.read(ByteBuffer.wrap(OrderEventBinaryCodec.toBytes(small)));
+        assertEquals(9L, reader.orderId());
+        assertEquals(OrderStatus.SHIPPED, reader.status());
+        assertEquals(false, reader.hasUserId());
+        assertNull(reader.total());
+        assertNull(reader.timestamp());
+        assertEquals(0, reader.itemCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.productId(0));
+    }
+
+    @Test
+    public void readerDoesNotAllocatePerEvent() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ByteBuffer buffer = ByteBuffer.wrap(OrderEventBinaryCodec.toBytes(sampleEvent()));
+        OrderEventBinaryCodec.Reader reader = new OrderEventBinaryCodec.Reader();
+        long sum = 0;
+        for (int i = 0; i < 1_000; i++) {
+            buffer.rewind();
+            sum += reader.read(buffer).productId(1);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            buffer.rewind();
+            sum += reader.read(buffer).productId(1);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(11_000 * 19L, sum);
+        // Allowance for the measurement itself; one object per event would be 10_000 x 16 bytes or more
+        assertTrue(allocated < 4_096, allocated + " bytes allocated for 10000 events");
+    }
+
+    @Test
+    public void encoderDoesNotAllocatePerEvent() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        OrderEvent event = sampleEvent();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        for (int i = 0; i < 1_000; i++) {
+            buffer.clear();
+            OrderEventBinaryCodec.encode(event, buffer);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            buffer.clear();
+            OrderEventBinaryCodec.encode(event, buffer);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 4_096, allocated + " bytes allocated for 10000 events");
+    }
+
+    @Test
+    public void decimalsAreWrittenExactlyAtTheMoneyScaleOrFiner() {
+        assertEquals(new BigDecimal("10.00"), roundTrip(new BigDecimal("10")));
+        assertEquals(new BigDecimal("10.00"), roundTrip(new BigDecimal("1E+1")));
+        assertEquals(new BigDecimal("0.125"), roundTrip(new BigDecimal("0.125")));
+        assertEquals(new BigDecimal("-3.50"), roundTrip(new BigDecimal("-3.5")));
+        assertEquals(new BigDecimal("9999999999999.99"), roundTrip(new BigDecimal("9999999999999.99")));
+        assertEquals(new BigDecimal("92233720368547758.07"), roundTrip(new BigDecimal("92233720368547758.07")));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // 1 to 18 digits: both the exact-double path and the BigDecimal one
+            long bound = (long) Math.pow(10, 1 + random.nextInt(18));
+            BigDecimal value = BigDecimal.valueOf(random.nextLong() % bound, 2 + random.nextInt(6));
+            assertEquals(value, roundTrip(value));
+        }
+    }
+
+    @Test
+    public void rejectsDecimalsTheFormatCannotHold() {
+        assertThrows(IllegalArgumentException.class, () -> roundTrip(new BigDecimal("1E-128")));
+        assertThrows(IllegalArgumentException.class, () -> roundTrip(new BigDecimal("1E+30")));
+    }
+
+    private static BigDecimal roundTrip(BigDecimal total) {
+        OrderEvent event = sampleEvent();
+        event.setTotal(total);
+        return OrderEventBinaryCodec.decode(OrderEventBinaryCodec.toBytes(event)).getTotal();
+    }
+}
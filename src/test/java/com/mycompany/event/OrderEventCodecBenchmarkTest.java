@@ -0,0 +1,76 @@
+package com.mycompany.event;
+
+import com.mycompany.service.OrderEventSerializer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToIntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes per event and ns/op of the original String.format message, the
+ * StringBuilder JSON fallback and the binary codec, plus binary decoding.
+ * Timings are printed, not asserted.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=OrderEventCodecBenchmarkTest
+ */
+@Tag("benchmark")
+public class OrderEventCodecBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    // Keeps the JIT from discarding the work
+    private static long sink;
+
+    @Test
+    public void compareEncodings() {
+        OrderEvent event = OrderEventBinaryCodecTest.sampleEvent();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        measure("String.format", event, e -> stringFormat(e).getBytes(StandardCharsets.UTF_8).length);
+        measure("json", event, e -> OrderEventSerializer.legacyJson(e, null).getBytes(StandardCharsets.UTF_8).length);
+        measure("binary toBytes", event, e -> OrderEventBinaryCodec.toBytes(e).length);
+        measure("binary encode", event, e -> {
+            buffer.clear();
+            OrderEventBinaryCodec.encode(e, buffer);
+            return buffer.position();
+        });
+
+        byte[] bytes = OrderEventBinaryCodec.toBytes(event);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        OrderEventBinaryCodec.Reader reader = new OrderEventBinaryCodec.Reader();
+        measure("binary decode", event, e -> OrderEventBinaryCodec.decode(bytes).getItems().size());
+        measure("binary read", event, e -> {
+            in.rewind();
+            return reader.read(in).itemCount();
+        });
+
+        // The binary form also carries status and items, which the old message dropped
+        int formatBytes = stringFormat(event).getBytes(StandardCharsets.UTF_8).length;
+        int binaryBytes = OrderEventBinaryCodec.toBytes(event).length;
+        System.out.printf("bytes/event: String.format=%d binary=%d%n", formatBytes, binaryBytes);
+        assertTrue(binaryBytes < formatBytes);
+    }
+
+    private static void measure(String name, OrderEvent event, ToIntFunction<OrderEvent> encoder) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += encoder.applyAsInt(event);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += encoder.applyAsInt(event);
+        }
+        double nsPerOp = (System.nanoTime() - begin) / (double) ITERATIONS;
+        System.out.printf("%-15s %8.1f ns/op%n", name, nsPerOp);
+    }
+
+    // The message KafkaProducerService used to build
+    private static String stringFormat(OrderEvent event) {
+        return String.format(
+            "{\"eventType\":\"%s\",\"orderId\":%d,\"userId\":%d,\"total\":\"%s\",\"timestamp\":\"%s\"}",
+            event.getEventType(), event.getOrderId(), event.getUserId(), event.getTotal(), event.getTimestamp());
+    }
+}
@@ -0,0 +1,86 @@
+package com.mycompany.repository;
+
+import com.mycompany.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The PostgreSQL row estimate: the EXPLAIN statement and its parameters, and
+ * reading the estimate from the plan. Runs against a mocked EntityManager
+ * since the tests have no PostgreSQL.
+ */
+public class OrderRepositoryCustomImplTest {
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final Query explain = mock(Query.class);
+    private OrderRepositoryCustomImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new OrderRepositoryCustomImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        ReflectionTestUtils.setField(repository, "postgres", true);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(explain);
+        when(explain.setParameter(anyInt(), any())).thenReturn(explain);
+    }
+
+    @Test
+    public void explainsEveryFilterAndReadsTheTopRowEstimate() {
+        when(explain.getResultList()).thenReturn(List.of(
+            "Bitmap Heap Scan on orders  (cost=12.40..1834.00 rows=98412 width=4)",
+            "  Recheck Cond: (user_id = 7)"));
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        OrderSearchCriteria criteria = new OrderSearchCriteria(List.of(OrderStatus.PENDING, OrderStatus.SHIPPED), 7L,
+            from, to, new BigDecimal("10"), new BigDecimal("500"));
+
+        OptionalLong estimate = repository.estimateSearchCount(criteria);
+
+        assertEquals(OptionalLong.of(98412), estimate);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sql.capture());
+        assertEquals("EXPLAIN SELECT 1 FROM orders WHERE 1 = 1 AND status IN (?1, ?2) AND user_id = ?3"
+            + " AND order_date >= ?4 AND order_date < ?5 AND total >= ?6 AND total <= ?7", sql.getValue());
+        verify(explain).setParameter(1, "PENDING");
+        verify(explain).setParameter(2, "SHIPPED");
+        verify(explain).setParameter(3, 7L);
+        verify(explain).setParameter(4, from);
+        verify(explain).setParameter(5, to);
+        verify(explain).setParameter(6, new BigDecimal("10"));
+        verify(explain).setParameter(7, new BigDecimal("500"));
+    }
+
+    @Test
+    public void noFiltersExplainsTheWholeTable() {
+        when(explain.getResultList()).thenReturn(List.of("Seq Scan on orders  (cost=0.00..1834.00 rows=100000 width=4)"));
+
+        OptionalLong estimate = repository.estimateSearchCount(new OrderSearchCriteria(null, null, null, null, null, null));
+
+        assertEquals(OptionalLong.of(100000), estimate);
+        verify(entityManager).createNativeQuery("EXPLAIN SELECT 1 FROM orders WHERE 1 = 1");
+    }
+
+    @Test
+    public void unreadablePlanGivesNoEstimate() {
+        when(explain.getResultList()).thenReturn(List.of("Result  (cost=0.00..0.01)"));
+
+        assertTrue(repository.estimateSearchCount(new OrderSearchCriteria(null, 7L, null, null, null, null)).isEmpty());
+    }
+}
@@ -0,0 +1,156 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncOrderEventPublisherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AsyncOrderEventPublisher publisher;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    public void stuckBrokerOnlyBacksUpItsOwnQueue() throws Exception {
+        StubSink kafka = new StubSink("kafka");
+        StubSink rabbit = new StubSink("rabbitmq");
+        rabbit.blockUntil = release;
+        start(2, 5, 60_000, kafka, rabbit);
+
+        // Kafka accepts every event while RabbitMQ holds at most one batch plus two queued events
+        List<Map<String, CompletableFuture<Void>>> sends = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            Map<String, CompletableFuture<Void>> send = publisher.publish(event(id), Set.of());
+            send.get("kafka").get(5, TimeUnit.SECONDS);
+            sends.add(send);
+        }
+        assertEquals(10, kafka.received());
+        ExecutionException dropped = assertThrows(ExecutionException.class,
+            () -> sends.get(9).get("rabbitmq").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, dropped.getCause());
+    }
+
+    @Test
+    public void failingBrokerTripsItsOwnBreakerOnly() throws Exception {
+        StubSink kafka = new StubSink("kafka");
+        StubSink rabbit = new StubSink("rabbitmq");
+        rabbit.failures = Integer.MAX_VALUE;
+        start(100, 2, 60_000, kafka, rabbit);
+
+        for (long id = 1; id <= 5; id++) {
+            Map<String, CompletableFuture<Void>> send = publisher.publish(event(id), Set.of());
+            send.get("kafka").get(5, TimeUnit.SECONDS);
+            assertThrows(ExecutionException.class, () -> send.get("rabbitmq").get(5, TimeUnit.SECONDS));
+        }
+
+        // Two failed calls opened RabbitMQ's breaker; the other three never reached the broker
+        assertEquals(2, rabbit.calls.size());
+        assertEquals(5, kafka.received());
+    }
+
+    @Test
+    public void halfOpenTrialCarriesASingleEvent() throws Exception {
+        StubSink rabbit = new StubSink("rabbitmq");
+        rabbit.failures = 1;
+        rabbit.blockUntil = release;
+        // Open for 0 ms: the next call after a failure is the half-open trial
+        start(100, 1, 0, rabbit);
+
+        CompletableFuture<Void> first = publisher.publish(event(1), Set.of()).get("rabbitmq");
+        assertTrue(rabbit.entered.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (long id = 2; id <= 5; id++) {
+            queued.add(publisher.publish(event(id), Set.of()).get("rabbitmq"));
+        }
+        rabbit.blockUntil = null;
+        release.countDown();
+
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        queued.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> rejected : queued.subList(1, queued.size())) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CircuitBreaker.OpenException.class, e.getCause());
+        }
+        assertEquals(List.of(1, 1), rabbit.calls);
+        assertFalse(queued.get(0).isCompletedExceptionally());
+    }
+
+    private void start(int queueCapacity, int failureThreshold, long openMillis, OrderEventSink... sinks) {
+        publisher = new AsyncOrderEventPublisher();
+        ReflectionTestUtils.setField(publisher, "sinks", List.of(sinks));
+        ReflectionTestUtils.setField(publisher, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(publisher, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(publisher, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(publisher, "breakerFailureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(publisher, "breakerOpenMillis", openMillis);
+        publisher.start();
+    }
+
+    private static OrderEvent event(long orderId) {
+        OrderEvent event = new OrderEvent();
+        event.setEventType(OrderEvent.ORDER_CREATED);
+        event.setOrderId(orderId);
+        return event;
+    }
+
+    // Records the size of every batch; can block inside sendBatch and fail the first calls
+    private static class StubSink implements OrderEventSink {
+        final String name;
+        final List<Integer> calls = new CopyOnWriteArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch blockUntil;
+        volatile int failures;
+
+        StubSink(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void sendBatch(List<OrderEvent> events) throws Exception {
+            calls.add(events.size());
+            entered.countDown();
+            CountDownLatch gate = blockUntil;
+            if (gate != null) {
+                gate.await(10, TimeUnit.SECONDS);
+            }
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException(name + " down");
+            }
+        }
+
+        int received() {
+            return calls.stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+}
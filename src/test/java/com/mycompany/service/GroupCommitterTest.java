@@ -0,0 +1,172 @@
+package com.mycompany.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every caller of a group gets its own result or error, whether the group
+ * write succeeds or falls back to one write per item, and no caller waits
+ * longer than the submit timeout.
+ */
+public class GroupCommitterTest {
+
+    private static final int CALLERS = 32;
+
+    // Sizes of the groups handed to the group writer
+    private final List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private GroupCommitter<Integer, String> committer;
+
+    @AfterEach
+    public void tearDown() {
+        callers.shutdownNow();
+        if (committer != null) {
+            committer.stop();
+        }
+    }
+
+    @Test
+    public void eachCallerGetsItsOwnResult() throws Exception {
+        committer = start(CALLERS, CALLERS, item -> "written " + item);
+
+        List<Future<String>> results = submitAll();
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals("written " + i, results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertTrue(groupSizes.stream().anyMatch(size -> size > 1), "no group formed: " + groupSizes);
+    }
+
+    @Test
+    public void badItemFailsOnlyItsOwnCaller() throws Exception {
+        int bad = 7;
+        committer = start(CALLERS, CALLERS, item -> {
+            if (item == bad) {
+                throw new IllegalStateException("item " + item + " is bad");
+            }
+            return "written " + item;
+        });
+
+        List<Future<String>> results = submitAll();
+
+        for (int i = 0; i < CALLERS; i++) {
+            if (i == bad) {
+                ExecutionException failure = assertThrows(ExecutionException.class, results.get(i)::get);
+                assertInstanceOf(IllegalStateException.class, failure.getCause());
+            } else {
+                assertEquals("written " + i, results.get(i).get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void fullQueueRejectsInsteadOfWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        committer = start(1, 1, item -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "written " + item;
+        });
+
+        // One item held by the writer, one filling the queue of one
+        Future<String> writing = callers.submit(() -> committer.submit(0));
+        while (groupSizes.isEmpty()) {
+            Thread.sleep(1);
+        }
+        Future<String> queued = callers.submit(() -> committer.submit(1));
+        while (((BlockingQueue<?>) ReflectionTestUtils.getField(committer, "queue")).isEmpty()) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> committer.submit(2));
+        release.countDown();
+        assertEquals("written 0", writing.get(10, TimeUnit.SECONDS));
+        assertEquals("written 1", queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void itemNoWriterReachesIsWithdrawnAtTheTimeout() {
+        // Never started, as if stop() had run just before the item was queued
+        committer = create(1, 1, 200, item -> "written " + item);
+
+        RejectedExecutionException rejected = assertThrows(RejectedExecutionException.class, () -> committer.submit(0));
+
+        assertTrue(rejected.getMessage().contains("did not reach"), rejected.getMessage());
+        assertTrue(((BlockingQueue<?>) ReflectionTestUtils.getField(committer, "queue")).isEmpty());
+        // Not written later either: once a writer runs, only the next item is written
+        committer.start();
+        assertEquals("written 1", committer.submit(1));
+        assertEquals(List.of(1), groupSizes);
+    }
+
+    @Test
+    public void itemStillBeingWrittenAtTheTimeoutIsRejectedAsUnknown() {
+        CountDownLatch release = new CountDownLatch(1);
+        committer = create(1, 1, 200, item -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "written " + item;
+        });
+        committer.start();
+
+        RejectedExecutionException rejected = assertThrows(RejectedExecutionException.class, () -> committer.submit(0));
+
+        assertTrue(rejected.getMessage().contains("may yet be written"), rejected.getMessage());
+        release.countDown();
+    }
+
+    private GroupCommitter<Integer, String> start(int maxGroupSize, int queueCapacity, Function<Integer, String> write) {
+        GroupCommitter<Integer, String> started = create(maxGroupSize, queueCapacity, 10_000, write);
+        started.start();
+        return started;
+    }
+
+    // The group writer writes each item with the single writer, so a bad item fails the whole group
+    private GroupCommitter<Integer, String> create(int maxGroupSize, int queueCapacity, long timeoutMillis,
+                                                   Function<Integer, String> write) {
+        return new GroupCommitter<>("test-group-commit", 1, maxGroupSize, 20_000, queueCapacity, timeoutMillis,
+            group -> {
+                groupSizes.add(group.size());
+                return group.stream().map(write).toList();
+            },
+            write);
+    }
+
+    private List<Future<String>> submitAll() {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            int item = i;
+            results.add(callers.submit(() -> {
+                go.await();
+                return committer.submit(item);
+            }));
+        }
+        go.countDown();
+        return results;
+    }
+}
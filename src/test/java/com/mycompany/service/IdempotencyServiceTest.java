@@ -0,0 +1,157 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.dto.response.OrderItemResponse;
+import com.mycompany.dto.response.OrderResponse;
+import com.mycompany.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IdempotencyService with the in-memory store (no Redis bean present).
+ */
+public class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+    private final AtomicInteger creates = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(idempotencyService, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        idempotencyService.registerMetrics();
+    }
+
+    @Test
+    public void replayReturnsStoredResponseWithoutCreatingAgain() {
+        IdempotencyService.Result first = idempotencyService.execute(1L, "abc", "body", this::slowCreate);
+        IdempotencyService.Result replay = idempotencyService.execute(1L, "abc", "body", this::slowCreate);
+
+        assertFalse(first.isReplayed());
+        assertTrue(replay.isReplayed());
+        assertEquals(1, creates.get());
+        assertEquals(first.getResponse().get().getId(), replay.getResponse().get().getId());
+        assertEquals(new BigDecimal("9.99"), replay.getResponse().get().getItems().get(0).getPrice());
+    }
+
+    @Test
+    public void concurrentDuplicatesRunCreateOnce() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyService.Result>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(1L, "retry-storm", "body", this::slowCreate);
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<IdempotencyService.Result> result : results) {
+                IdempotencyService.Result outcome = result.get(30, TimeUnit.SECONDS);
+                assertTrue(outcome.getResponse().isPresent());
+                created += outcome.isReplayed() ? 0 : 1;
+            }
+            assertEquals(1, creates.get());
+            assertEquals(1, created);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectedOrdersAreNotStored() {
+        idempotencyService.execute(1L, "bad", "body", Optional::empty);
+        IdempotencyService.Result retry = idempotencyService.execute(1L, "bad", "body", this::slowCreate);
+
+        assertFalse(retry.isReplayed());
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    public void sameKeyWithDifferentBodyIsRefused() {
+        idempotencyService.execute(1L, "abc", request(5L, 2), this::slowCreate);
+        IdempotencyService.Result retry = idempotencyService.execute(1L, "abc", request(5L, 2), this::slowCreate);
+
+        assertTrue(retry.isReplayed());
+        assertThrows(IdempotencyKeyReusedException.class,
+            () -> idempotencyService.execute(1L, "abc", request(5L, 3), this::slowCreate));
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    public void concurrentDuplicateWithDifferentBodyIsRefused() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyService.Result> first = executor.submit(
+                () -> idempotencyService.execute(1L, "abc", "first body", this::slowCreate));
+            while (creates.get() == 0) {
+                Thread.sleep(1);
+            }
+
+            // Waits for the in-flight request, then finds a different body behind the key
+            assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyService.execute(1L, "abc", "second body", this::slowCreate));
+            assertFalse(first.get(30, TimeUnit.SECONDS).isReplayed());
+            assertEquals(1, creates.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sameKeyFromAnotherUserIsItsOwnRequest() {
+        IdempotencyService.Result mine = idempotencyService.execute(1L, "abc", "body", this::slowCreate);
+        IdempotencyService.Result theirs = idempotencyService.execute(2L, "abc", "body", this::slowCreate);
+
+        assertFalse(theirs.isReplayed());
+        assertEquals(2, creates.get());
+        assertNotEquals(mine.getResponse().get().getId(), theirs.getResponse().get().getId());
+    }
+
+    private Optional<OrderResponse> slowCreate() {
+        int id = creates.incrementAndGet();
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Optional.of(new OrderResponse((long) id, 1L, new BigDecimal("19.98"), OrderStatus.PENDING,
+            LocalDateTime.now(), List.of(new OrderItemResponse(5L, 2, new BigDecimal("9.99")))));
+    }
+
+    private static CreateOrderRequest request(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(1L);
+        request.setItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,107 @@
+package com.mycompany.service;
+
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.service.impl.InventoryServiceImpl;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stress benchmark: reservations per second through the in-memory ledger
+ * versus the database adjustStock path, for 1, 10 and 1000 hot SKUs.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=InventoryLedgerBenchmarkTest
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import(InventoryServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryLedgerBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 2_000;
+
+    // Enough stock per SKU that neither run ever fails a reservation
+    private static final int STOCK_PER_SKU = 2 * THREADS * OPS_PER_THREAD;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    public void compareReservationThroughput() throws Exception {
+        for (int hotSkus : new int[] {1, 10, 1000}) {
+            List<Long> ids = createProducts(hotSkus);
+
+            InventoryLedger ledger = new InventoryLedger(productRepository);
+            ledger.rebuild();
+
+            double ledgerRate = reservationsPerSecond(ids, id -> ledger.adjust(id, -1).isPresent());
+            ledger.flush();
+            double databaseRate = reservationsPerSecond(ids, id -> inventoryService.adjustStock(id, -1).isPresent());
+
+            System.out.printf("hotSkus=%d ledger=%.0f ops/s adjustStock=%.0f ops/s (x%.1f)%n",
+                hotSkus, ledgerRate, databaseRate, ledgerRate / databaseRate);
+
+            // Every reservation from both runs must be reflected in the table after the flush
+            long remaining = productRepository.findAllById(ids).stream().mapToLong(Product::getStock).sum();
+            assertEquals((long) ids.size() * STOCK_PER_SKU - 2L * THREADS * OPS_PER_THREAD, remaining);
+        }
+    }
+
+    private List<Long> createProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(new Product("Hot " + i, "benchmark", BigDecimal.ONE, STOCK_PER_SKU));
+        }
+        return productRepository.saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    private double reservationsPerSecond(List<Long> ids, LongPredicate reserve) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        if (!reserve.test(id)) {
+                            throw new IllegalStateException("Reservation failed for product " + id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            long elapsed = System.nanoTime() - begin;
+            return THREADS * OPS_PER_THREAD / (elapsed / 1_000_000_000.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
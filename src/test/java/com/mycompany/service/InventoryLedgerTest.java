@@ -0,0 +1,60 @@
+package com.mycompany.service;
+
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The in-memory ledger only holds on a single node: it will not start unless
+ * that is declared, and its write-behind never drives the stock column below
+ * zero when another writer got there first.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryLedgerTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    public void refusesToStartUnlessSingleInstanceIsDeclared() {
+        Long id = productRepository.save(new Product("Kettle", "d", BigDecimal.TEN, 3)).getId();
+        InventoryLedger ledger = new InventoryLedger(productRepository);
+
+        assertThrows(IllegalStateException.class, ledger::start);
+
+        ReflectionTestUtils.setField(ledger, "singleInstance", true);
+        ledger.start();
+        assertEquals(3, ledger.availableStock(id).orElseThrow());
+    }
+
+    @Test
+    public void writeBackThatWouldGoNegativeIsRefusedAndTheCounterReloaded() {
+        Long id = productRepository.save(new Product("Toaster", "d", BigDecimal.TEN, 5)).getId();
+        Long other = productRepository.save(new Product("Mug", "d", BigDecimal.ONE, 5)).getId();
+        InventoryLedger ledger = new InventoryLedger(productRepository);
+        ledger.rebuild();
+
+        ledger.adjust(id, -4).orElseThrow();
+        ledger.adjust(other, -2).orElseThrow();
+        // Another node's ledger writes back a sale of the same stock first
+        assertTrue(productRepository.applyStockDeltas(Map.of(id, -4)).isEmpty());
+        ledger.flush();
+
+        assertEquals(1, productRepository.findById(id).orElseThrow().getStock());
+        assertEquals(1, ledger.availableStock(id).orElseThrow());
+        assertEquals(3, productRepository.findById(other).orElseThrow().getStock());
+        assertEquals(3, ledger.availableStock(other).orElseThrow());
+    }
+}
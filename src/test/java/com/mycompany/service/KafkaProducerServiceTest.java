@@ -0,0 +1,137 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import com.mycompany.event.OrderEventBinaryCodec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs KafkaProducerService against Kafka's MockProducer instead of a broker.
+ */
+public class KafkaProducerServiceTest {
+
+    private CountingMockProducer producer;
+    private KafkaProducerService service;
+
+    @BeforeEach
+    public void setUp() {
+        // autoComplete=false: records stay unacknowledged until the producer is flushed
+        producer = new CountingMockProducer();
+        service = new KafkaProducerService();
+        ReflectionTestUtils.setField(service, "kafkaTemplate", new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)));
+        ReflectionTestUtils.setField(service, "orderEventSerializer", new OrderEventSerializer(OrderEventSerializer.Format.BINARY));
+    }
+
+    @Test
+    public void keysByOrderIdAndSendsHeaders() {
+        OrderEvent event = event(17L, 3L);
+        event.setTraceId("4bf92f3577b34da6a3ce929d0e0e4736");
+
+        service.sendOrderEvent(event);
+
+        ProducerRecord<String, byte[]> record = producer.history().get(0);
+        assertEquals("order-events", record.topic());
+        assertEquals("17", record.key());
+        assertEquals(OrderEvent.ORDER_CREATED, header(record, KafkaProducerService.HEADER_EVENT_TYPE));
+        assertEquals(String.valueOf(OrderEventBinaryCodec.SCHEMA_VERSION), header(record, KafkaProducerService.HEADER_SCHEMA_VERSION));
+        assertEquals(OrderEventBinaryCodec.CONTENT_TYPE, header(record, KafkaProducerService.HEADER_CONTENT_TYPE));
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", header(record, KafkaProducerService.HEADER_TRACE_ID));
+        assertEquals(17L, OrderEventBinaryCodec.decode(record.value()).getOrderId());
+    }
+
+    @Test
+    public void keysByUserIdWhenConfigured() {
+        ReflectionTestUtils.setField(service, "keyBy", "user");
+
+        service.sendOrderEvent(event(17L, 3L));
+
+        assertEquals("3", producer.history().get(0).key());
+        assertNull(producer.history().get(0).headers().lastHeader(KafkaProducerService.HEADER_TRACE_ID));
+    }
+
+    @Test
+    public void batchIsSentWithOneFlush() throws Exception {
+        List<OrderEvent> events = new ArrayList<>();
+        for (long orderId = 1; orderId <= 25; orderId++) {
+            events.add(event(orderId, 3L));
+        }
+
+        CompletableFuture<Void> sent = service.sendOrderEvents(events);
+        sent.get();
+
+        assertEquals(25, producer.history().size());
+        assertEquals(1, producer.flushes);
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(String.valueOf(i + 1), producer.history().get(i).key());
+        }
+    }
+
+    @Test
+    public void batchFailsWhenARecordIsRejected() {
+        producer.failNext = true;
+
+        CompletableFuture<Void> sent = service.sendOrderEvents(List.of(event(1L, 3L), event(2L, 3L)));
+
+        assertTrue(sent.isCompletedExceptionally());
+    }
+
+    private static OrderEvent event(Long orderId, Long userId) {
+        OrderEvent event = new OrderEvent();
+        event.setEventType(OrderEvent.ORDER_CREATED);
+        event.setOrderId(orderId);
+        event.setUserId(userId);
+        event.setTotal(new BigDecimal("10.00"));
+        return event;
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    // KafkaTemplate closes non-transactional producers after each call; the stand-in must survive that
+    private static class CountingMockProducer extends MockProducer<String, byte[]> {
+        int flushes;
+        boolean failNext;
+
+        CountingMockProducer() {
+            super(false, new StringSerializer(), new ByteArraySerializer());
+        }
+
+        @Override
+        public synchronized void flush() {
+            flushes++;
+            if (failNext) {
+                failNext = false;
+                errorNext(new RuntimeException("broker rejected record"));
+            }
+            super.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mycompany.service;
+
+import com.mycompany.repository.UserRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The export must not hold on to rows it has already written: managed
+ * entities and retained heap stay bounded while a large synthetic table is
+ * streamed out. Forces a full GC per sample, so it is not part of the default
+ * suite; OrderExportServiceTest covers the same invariants on a small table.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=OrderExportBenchmarkTest
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import(OrderExportService.class)
+public class OrderExportBenchmarkTest {
+
+    private static final int ROWS = 200_000;
+    private static final int FETCH_SIZE = 500;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void memoryStaysFlatWhileExportingALargeTable() throws IOException {
+        OrderExportServiceTest.insertOrders(userRepository, jdbcTemplate, ROWS);
+        OrderExportService target = AopTestUtils.getTargetObject(orderExportService);
+        ReflectionTestUtils.setField(target, "fetchSize", FETCH_SIZE);
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        MemoryProbe out = new MemoryProbe(session, 2 * 1024 * 1024);
+
+        long begin = System.nanoTime();
+        long written = orderExportService.export(OrderExportService.Format.NDJSON, null, null, null, out);
+        long growth = out.maxUsedHeap - out.firstUsedHeap;
+        System.out.printf("exported %d rows in %d ms, max managed entities %d, retained heap growth %d KB%n",
+            written, (System.nanoTime() - begin) / 1_000_000, out.maxManagedEntities, growth / 1024);
+
+        assertEquals(ROWS, written);
+        assertEquals(ROWS, out.lines);
+        assertTrue(out.samples >= 4, "too few samples: " + out.samples);
+        assertTrue(out.maxManagedEntities <= FETCH_SIZE, "managed entities grew to " + out.maxManagedEntities);
+        // Holding every exported order would retain well over 50 MB here
+        assertTrue(growth < 16 * 1024 * 1024, "retained heap grew by " + growth / 1024 + " KB");
+    }
+
+    /**
+     * Discards the export, counting lines and sampling the session size and the
+     * heap left after a full GC every sampleBytes bytes.
+     */
+    private static class MemoryProbe extends OutputStream {
+        private final Session session;
+        private final long sampleBytes;
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private long bytes;
+        long lines;
+        int samples;
+        long maxManagedEntities;
+        long firstUsedHeap = -1;
+        long maxUsedHeap;
+
+        MemoryProbe(Session session, long sampleBytes) {
+            this.session = session;
+            this.sampleBytes = sampleBytes;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+            if (++bytes % sampleBytes == 0) {
+                sample();
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+
+        private void sample() {
+            samples++;
+            maxManagedEntities = Math.max(maxManagedEntities, session.getStatistics().getEntityCount());
+            System.gc();
+            long used = memory.getHeapMemoryUsage().getUsed();
+            if (firstUsedHeap < 0) {
+                firstUsedHeap = used;
+            }
+            maxUsedHeap = Math.max(maxUsedHeap, used);
+        }
+    }
+}
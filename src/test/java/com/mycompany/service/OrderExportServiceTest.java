@@ -0,0 +1,133 @@
+package com.mycompany.service;
+
+import com.mycompany.SqlStatementCounter;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.User;
+import com.mycompany.repository.UserRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The export reads every row with one streamed query and does not hold on to
+ * rows it has already written. The large-table heap check is
+ * OrderExportBenchmarkTest.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mycompany.SqlStatementCounter")
+@Import(OrderExportService.class)
+public class OrderExportServiceTest {
+
+    private static final int ROWS = 1_200;
+    private static final int FETCH_SIZE = 100;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void streamsWithOneQueryAndClearsEveryFetchSizeRows() throws IOException {
+        insertOrders(userRepository, jdbcTemplate, ROWS);
+        OrderExportService target = AopTestUtils.getTargetObject(orderExportService);
+        ReflectionTestUtils.setField(target, "fetchSize", FETCH_SIZE);
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        SessionProbe out = new SessionProbe(session);
+        SqlStatementCounter.reset();
+
+        long written = orderExportService.export(OrderExportService.Format.NDJSON, null, null, null, out);
+
+        assertEquals(ROWS, written);
+        assertEquals(ROWS, out.lines);
+        // One streamed SELECT; users are only referenced by id, never loaded
+        assertEquals(1, SqlStatementCounter.count());
+        assertTrue(out.maxManagedEntities <= FETCH_SIZE, "managed entities grew to " + out.maxManagedEntities);
+    }
+
+    @Test
+    public void filtersByStatusAndInclusiveDays() throws IOException {
+        insertOrders(userRepository, jdbcTemplate, 40);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Rows are one hour apart with status cycling through the five statuses:
+        // day 2 holds hours 24..39, of which 27, 32 and 37 are SHIPPED
+        long written = orderExportService.export(OrderExportService.Format.CSV, Set.of(OrderStatus.SHIPPED),
+            LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 2), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, written);
+        assertEquals(4, lines.length);
+        assertEquals("id,userId,orderDate,status,total", lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            assertEquals("SHIPPED", columns[3]);
+            assertTrue(columns[2].startsWith("2024-01-02T"));
+        }
+    }
+
+    // Rows one hour apart from 2024-01-01, status cycling through every OrderStatus
+    static void insertOrders(UserRepository userRepository, JdbcTemplate jdbcTemplate, int count) {
+        User user = userRepository.saveAndFlush(new User("Export", "export@example.com"));
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[] {
+                (long) i, Timestamp.valueOf(BASE.plusHours(i - 1)), new BigDecimal("19.99"),
+                statuses[(i - 1) % statuses.length].name(), user.getId()
+            });
+            if (rows.size() == 10_000 || i == count) {
+                jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_date, total, status, user_id) VALUES (?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * Discards the export, counting lines and the entities the session holds
+     * at each line.
+     */
+    private static class SessionProbe extends OutputStream {
+        private final Session session;
+        long lines;
+        long maxManagedEntities;
+
+        SessionProbe(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+                maxManagedEntities = Math.max(maxManagedEntities, session.getStatistics().getEntityCount());
+            }
+        }
+    }
+}
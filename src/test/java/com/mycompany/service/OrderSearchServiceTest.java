@@ -0,0 +1,102 @@
+package com.mycompany.service;
+
+import com.mycompany.dto.request.OrderSearchRequest;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.User;
+import com.mycompany.repository.OrderRepository;
+import com.mycompany.repository.UserRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filters combine with AND, pages follow the cursor, and on H2 (no planner
+ * estimate) the first page carries the exact total.
+ */
+@DataJpaTest
+@Import(OrderSearchService.class)
+public class OrderSearchServiceTest {
+
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    public void setUp() {
+        alice = userRepository.save(new User("Alice", "alice@example.com"));
+        bob = userRepository.save(new User("Bob", "bob@example.com"));
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Order> orders = new ArrayList<>();
+        // Day d (1..30) of January: alternating users, status cycling, total = d * 10
+        for (int day = 1; day <= 30; day++) {
+            Order order = new Order(day % 2 == 0 ? alice : bob, BigDecimal.valueOf(day * 10L), statuses[day % statuses.length]);
+            order.setOrderDate(LocalDateTime.of(2024, 1, day, 9, 0));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+    }
+
+    @Test
+    public void filtersCombine() {
+        OrderSearchRequest filter = new OrderSearchRequest();
+        filter.setUserId(alice.getId());
+        filter.setStatus(List.of(OrderStatus.PENDING, OrderStatus.SHIPPED));
+        filter.setFrom(LocalDate.of(2024, 1, 5));
+        filter.setTo(LocalDate.of(2024, 1, 25));
+        filter.setMinTotal(new BigDecimal("100"));
+
+        OrderSearchService.Result result = orderSearchService.search(filter, null, 50);
+
+        // Even days 10..24 with day % 5 in {0, 2}: 10, 12, 20, 22
+        List<Integer> days = result.getOrders().stream().map(o -> o.getOrderDate().getDayOfMonth()).toList();
+        assertEquals(List.of(22, 20, 12, 10), days);
+        assertEquals(4L, result.getTotal());
+        assertFalse(result.isTotalEstimated());
+    }
+
+    @Test
+    public void pagesFollowTheCursorAndOnlyTheFirstCarriesTheTotal() {
+        OrderSearchRequest filter = new OrderSearchRequest();
+        filter.setMaxTotal(new BigDecimal("200"));
+
+        OrderSearchService.Result first = orderSearchService.search(filter, null, 8);
+        Order last = first.getOrders().get(first.getOrders().size() - 1);
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(last.getOrderDate(), last.getId()));
+        OrderSearchService.Result second = orderSearchService.search(filter, cursor, 50);
+
+        assertEquals(20L, first.getTotal());
+        assertEquals(8, first.getOrders().size());
+        assertEquals(12, second.getOrders().size());
+        assertNull(second.getTotal());
+        assertTrue(second.getOrders().stream().allMatch(o -> o.getOrderDate().isBefore(last.getOrderDate())));
+    }
+
+    @Test
+    public void emptyRangesAreInvalid() {
+        OrderSearchRequest filter = new OrderSearchRequest();
+        filter.setMinTotal(BigDecimal.TEN);
+        filter.setMaxTotal(BigDecimal.ONE);
+        assertFalse(filter.isValid());
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.service;
+
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.dto.response.OrderResponse;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrderSubmissionServiceTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OrderSubmissionService submissionService;
+
+    @BeforeEach
+    public void setUp() {
+        submissionService = new OrderSubmissionService();
+        ReflectionTestUtils.setField(submissionService, "orderService", orderService);
+        ReflectionTestUtils.setField(submissionService, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(submissionService, "workers", 1);
+        ReflectionTestUtils.setField(submissionService, "queueCapacity", 1);
+        submissionService.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        submissionService.stop();
+    }
+
+    @Test
+    public void completedSubmissionCarriesTheCreatedOrder() throws Exception {
+        Order order = new Order();
+        order.setId(42L);
+        when(orderService.createOrder(any())).thenReturn(Optional.of(order));
+        release.countDown();
+
+        OrderSubmission submission = submissionService.submit(request(), OrderSubmissionServiceTest::toResponse);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (submission.getStatus() != OrderSubmission.Status.CREATED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(OrderSubmission.Status.CREATED, submission.getStatus());
+        OrderSubmission polled = submissionService.getSubmission(submission.getId()).orElseThrow();
+        assertEquals(42L, polled.getOrderId());
+        assertEquals(OrderStatus.PENDING, polled.getOrder().getStatus());
+    }
+
+    @Test
+    public void stuckAndExpiredSubmissionsArePurged() throws Exception {
+        CountDownLatch busy = new CountDownLatch(1);
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            busy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        OrderSubmission stuck = submissionService.submit(request(), OrderSubmissionServiceTest::toResponse);
+        assertTrue(awaitQuietly(busy));
+
+        ReflectionTestUtils.setField(submissionService, "resultTtlSeconds", 3600L);
+        submissionService.purgeCompleted();
+        assertTrue(submissionService.getSubmission(stuck.getId()).isPresent());
+
+        // Never completed, and submitted longer than the TTL ago
+        ReflectionTestUtils.setField(submissionService, "resultTtlSeconds", -1L);
+        submissionService.purgeCompleted();
+        assertTrue(submissionService.getSubmission(stuck.getId()).isEmpty());
+    }
+
+    @Test
+    public void fullQueueIsRejected() {
+        CountDownLatch busy = new CountDownLatch(1);
+        when(orderService.createOrder(any())).thenAnswer(invocation -> {
+            busy.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        submissionService.submit(request(), OrderSubmissionServiceTest::toResponse);               // occupies the only worker
+        assertTrue(awaitQuietly(busy));
+        submissionService.submit(request(), OrderSubmissionServiceTest::toResponse);               // fills the queue
+
+        assertThrows(RejectedExecutionException.class, () -> submissionService.submit(request(), OrderSubmissionServiceTest::toResponse));
+    }
+
+    @Test
+    public void malformedRequestsFailTheCheapCheck() {
+        CreateOrderRequest noItems = new CreateOrderRequest();
+        noItems.setUserId(1L);
+        noItems.setItems(List.of());
+
+        assertTrue(OrderSubmissionService.isWellFormed(request()));
+        assertFalse(OrderSubmissionService.isWellFormed(noItems));
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static OrderResponse toResponse(Order order) {
+        return new OrderResponse(order.getId(), 1L, BigDecimal.TEN, OrderStatus.PENDING, LocalDateTime.now(), List.of());
+    }
+
+    private static CreateOrderRequest request() {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(1L);
+        item.setQuantity(1);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(1L);
+        request.setItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,211 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.event.OrderEvent;
+import com.mycompany.model.OutboxEvent;
+import com.mycompany.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutboxRelayTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StubPublisher publisher = new StubPublisher();
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private OutboxRelay relay;
+
+    @BeforeEach
+    public void setUp() {
+        relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "outboxEventRepository", repository);
+        ReflectionTestUtils.setField(relay, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(relay, "orderEventPublisher", publisher);
+        ReflectionTestUtils.setField(relay, "orderMetrics", new OrderMetrics(registry));
+        ReflectionTestUtils.setField(relay, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 200L);
+        ReflectionTestUtils.setField(relay, "initialBackoffMs", 500L);
+        ReflectionTestUtils.setField(relay, "maxBackoffMs", 60_000L);
+    }
+
+    @Test
+    public void eventsArePublishedInOutboxOrderAndDeleted() throws Exception {
+        List<OutboxEvent> batch = List.of(event(1L, 10L), event(2L, 11L), event(3L, 10L));
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(batch);
+
+        relay.relay();
+
+        assertEquals(List.of(10L, 11L, 10L), publisher.publishedOrderIds);
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    public void batchIsClaimedAndCommittedBeforeAnythingIsSent() throws Exception {
+        OutboxEvent event = event(1L, 10L);
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(List.of(event));
+        when(repository.findAllById(any())).thenReturn(List.of(event));
+        publisher.failing.add("rabbitmq");
+        publisher.onPublish = () -> {
+            // No transaction is open while brokers are waited on
+            verify(transactionManager, times(1)).commit(any());
+            assertNotNull(event.getClaimedUntil());
+        };
+
+        Instant before = Instant.now();
+        relay.relay();
+
+        assertTrue(publisher.publishedOrderIds.contains(10L));
+        verify(transactionManager, times(2)).commit(any());
+        // Released in the second transaction, with the outcome of the attempt
+        assertNull(event.getClaimedUntil());
+        assertEquals("kafka", event.getDeliveredTo());
+        assertBackoff(before, 500, event);
+    }
+
+    @Test
+    public void failedBrokerIsRetriedAloneWithExponentialBackoff() throws Exception {
+        OutboxEvent event = event(1L, 10L);
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(List.of(event));
+        publisher.failing.add("rabbitmq");
+
+        Instant before = Instant.now();
+        relay.relay();
+        assertEquals("kafka", event.getDeliveredTo());
+        assertEquals(1, event.getAttempts());
+        assertBackoff(before, 500, event);
+
+        before = Instant.now();
+        relay.relay();
+        // Kafka already has it, so only RabbitMQ is tried again
+        assertEquals(Set.of("kafka"), publisher.lastAlreadyDelivered);
+        assertEquals(2, event.getAttempts());
+        assertBackoff(before, 1_000, event);
+
+        event.setAttempts(30);
+        before = Instant.now();
+        relay.relay();
+        assertBackoff(before, 60_000, event);
+    }
+
+    @Test
+    public void slowBrokerHoldsTheBatchForOneTimeoutNotOnePerEvent() throws Exception {
+        List<OutboxEvent> batch = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            batch.add(event(id, id));
+        }
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(batch);
+        publisher.hanging.add("rabbitmq");
+
+        long begin = System.nanoTime();
+        relay.relay();
+        long elapsedMs = (System.nanoTime() - begin) / 1_000_000;
+
+        // 10 events x 200 ms if every send were awaited on its own
+        assertTrue(elapsedMs < 1_000, "relay took " + elapsedMs + " ms");
+        batch.forEach(event -> assertEquals("kafka", event.getDeliveredTo()));
+    }
+
+    @Test
+    public void unreadablePayloadIsParkedNotRetried() throws Exception {
+        OutboxEvent broken = new OutboxEvent(10L, OrderEvent.ORDER_CREATED, "{not json");
+        broken.setId(1L);
+        OutboxEvent fine = event(2L, 11L);
+        when(repository.lockNextBatch(any(), anyInt())).thenReturn(List.of(broken, fine));
+
+        relay.relay();
+
+        assertNotNull(broken.getParkedAt());
+        assertEquals(0, broken.getAttempts());
+        assertEquals(List.of(11L), publisher.publishedOrderIds);
+        verify(repository).deleteAllByIdInBatch(List.of(2L));
+        assertEquals(1.0, registry.get("order_service_outbox_parked_total").counter().count());
+    }
+
+    @Test
+    public void backlogGaugesReportPendingCountAndLag() {
+        OutboxEvent oldest = new OutboxEvent(10L, OrderEvent.ORDER_CREATED, "{}");
+        oldest.setCreatedAt(Instant.now().minusSeconds(5));
+        when(repository.findFirstByParkedAtIsNullOrderByCreatedAtAsc()).thenReturn(Optional.of(oldest));
+        when(repository.countByParkedAtIsNull()).thenReturn(7L);
+
+        relay.recordBacklog();
+
+        assertEquals(7.0, registry.get("order_service_outbox_pending").gauge().value());
+        assertTrue(registry.get("order_service_outbox_lag_seconds").gauge().value() >= 5.0);
+    }
+
+    private OutboxEvent event(Long id, Long orderId) throws Exception {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setEventType(OrderEvent.ORDER_CREATED);
+        orderEvent.setOrderId(orderId);
+        OutboxEvent outboxEvent = new OutboxEvent(orderId, OrderEvent.ORDER_CREATED, objectMapper.writeValueAsString(orderEvent));
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+
+    private static void assertBackoff(Instant before, long backoffMs, OutboxEvent event) {
+        Duration delay = Duration.between(before, event.getNextAttemptAt());
+        assertTrue(delay.toMillis() >= backoffMs && delay.toMillis() < backoffMs + 1_000, "next attempt in " + delay);
+    }
+
+    // Kafka and RabbitMQ; each broker either accepts at once, fails at once or never answers
+    private static class StubPublisher implements OrderEventPublisher {
+        final List<Long> publishedOrderIds = new ArrayList<>();
+        final Set<String> failing = new LinkedHashSet<>();
+        final Set<String> hanging = new LinkedHashSet<>();
+        Set<String> lastAlreadyDelivered;
+        Runnable onPublish = () -> { };
+
+        @Override
+        public Set<String> brokers() {
+            return Set.of("kafka", "rabbitmq");
+        }
+
+        @Override
+        public Map<String, CompletableFuture<Void>> publish(OrderEvent event, Set<String> alreadyDelivered) {
+            onPublish.run();
+            publishedOrderIds.add(event.getOrderId());
+            lastAlreadyDelivered = Set.copyOf(alreadyDelivered);
+            Map<String, CompletableFuture<Void>> sends = new LinkedHashMap<>();
+            for (String broker : List.of("kafka", "rabbitmq")) {
+                if (alreadyDelivered.contains(broker)) {
+                    continue;
+                }
+                if (failing.contains(broker)) {
+                    sends.put(broker, CompletableFuture.failedFuture(new IllegalStateException(broker + " down")));
+                } else if (hanging.contains(broker)) {
+                    sends.put(broker, new CompletableFuture<>());
+                } else {
+                    sends.put(broker, CompletableFuture.completedFuture(null));
+                }
+            }
+            return sends;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.event.ProductsChangedEvent;
+import com.mycompany.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Evictions after a commit: all of an order's products leave Redis in one
+ * script call and are broadcast in one message, off the committing thread.
+ */
+public class ProductCatalogServiceTest {
+
+    private final RedisTemplate<String, byte[]> redis = mockRedis();
+    private final StringRedisTemplate channel = mock(StringRedisTemplate.class);
+    private ProductCatalogService service;
+
+    @BeforeEach
+    public void setUp() {
+        CacheInvalidationBus bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "redisTemplate", channel);
+
+        service = new ProductCatalogService();
+        ReflectionTestUtils.setField(service, "productService", mock(ProductService.class));
+        ReflectionTestUtils.setField(service, "productRepository", mock(ProductRepository.class));
+        ReflectionTestUtils.setField(service, "cacheRedisTemplate", redis);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "invalidationBus", bus);
+        ReflectionTestUtils.setField(service, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void multiProductOrderIsOneScriptCallAndOneBroadcast() {
+        service.onProductsChanged(ProductsChangedEvent.stock(List.of(1L, 2L, 3L, 4L)));
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redis, timeout(5000)).execute(any(RedisScript.class), keys.capture(), any(Object[].class));
+        assertEquals(8, keys.getValue().size());
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(channel, timeout(5000)).convertAndSend(eq(CacheInvalidationBus.CHANNEL), message.capture());
+        String[] parts = message.getValue().split("\\|", 3);
+        assertEquals("products", parts[1]);
+        assertEquals(Set.of("1", "2", "3", "4"), Set.of(parts[2].split("\n")));
+
+        // Nothing else reached Redis: no further script calls or messages
+        verify(redis).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verify(channel).convertAndSend(anyString(), anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, byte[]> mockRedis() {
+        return mock(RedisTemplate.class);
+    }
+}
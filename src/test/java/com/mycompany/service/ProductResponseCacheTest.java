@@ -0,0 +1,127 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.cache.EncodedResponse;
+import com.mycompany.dto.response.CursorPage;
+import com.mycompany.dto.response.ProductResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Encoded once, served many times; re-encoded when a product on the page
+ * changes version, when the catalog cache evicts a product, or when the
+ * local TTL passes.
+ */
+public class ProductResponseCacheTest {
+
+    private ProductCatalogService catalog;
+    private List<ProductResponse> products;
+    private ProductResponseCache cache;
+    private Consumer<String> productEvicted;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        catalog = mock(ProductCatalogService.class);
+        products = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            products.add(new ProductResponse(id, "Product " + id, "Sturdy and reliable", new BigDecimal("9.99"), 10, 1L));
+        }
+        when(catalog.getProducts(any(), eq(50))).thenAnswer(invocation -> new CursorPage<>(List.copyOf(products), null));
+        when(catalog.getProduct(1L)).thenReturn(Optional.of(products.get(0)));
+        when(catalog.getProduct(2L)).thenReturn(Optional.empty());
+
+        cache = new ProductResponseCache();
+        ReflectionTestUtils.setField(cache, "productCatalogService", catalog);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        cache.init();
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(catalog).addEvictionListener(listener.capture());
+        productEvicted = listener.getValue();
+    }
+
+    @Test
+    public void pageIsEncodedOnceUntilAProductOnItChanges() {
+        EncodedResponse first = cache.getProducts(null, 50);
+        assertSame(first, cache.getProducts(null, 50));
+
+        // Another product's eviction, e.g. an order for a product on another page, keeps the bytes
+        productEvicted.accept("70");
+        assertSame(first, cache.getProducts(null, 50));
+
+        // An order for product 7 bumps its version: the page is encoded again with the new stock
+        products.set(6, new ProductResponse(7L, "Product 7", "Sturdy and reliable", new BigDecimal("9.99"), 9, 2L));
+        EncodedResponse second = cache.getProducts(null, 50);
+        assertNotSame(first, second);
+        assertNotEquals(first.render(null, null).getHeaders().getETag(), second.render(null, null).getHeaders().getETag());
+        assertSame(second, cache.getProducts(null, 50));
+    }
+
+    @Test
+    public void entriesExpireWithTheCatalogLocalTtl() {
+        ProductResponseCache expiring = new ProductResponseCache();
+        ReflectionTestUtils.setField(expiring, "productCatalogService", catalog);
+        ReflectionTestUtils.setField(expiring, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(expiring, "localTtlSeconds", 0L);
+        expiring.init();
+
+        EncodedResponse first = expiring.getProducts(null, 50);
+        assertNotSame(first, expiring.getProducts(null, 50));
+    }
+
+    @Test
+    public void rendersGzipAndAnswersConditionalRequests() throws IOException {
+        EncodedResponse page = cache.getProducts(null, 50);
+
+        ResponseEntity<byte[]> plain = page.render(null, null);
+        ResponseEntity<byte[]> gzipped = page.render(null, "br, gzip;q=0.8");
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getBody().length < plain.getBody().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(plain.getBody(), in.readAllBytes());
+        }
+
+        ResponseEntity<byte[]> notModified = page.render(plain.getHeaders().getETag(), "gzip");
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(HttpStatus.OK, page.render("\"other\"", null).getStatusCode());
+    }
+
+    @Test
+    public void missingProductIsNotCached() {
+        assertTrue(cache.getProduct(1L).isPresent());
+        assertTrue(cache.getProduct(2L).isEmpty());
+        cache.getProduct(1L);
+        cache.getProduct(2L);
+
+        verify(catalog, times(1)).getProduct(1L);
+        verify(catalog, times(2)).getProduct(2L);
+    }
+}
@@ -0,0 +1,119 @@
+package com.mycompany.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Query latency of ProductSearchIndex over a 1M-product catalog: names are
+ * "<adjective> <material> <noun>", descriptions 4-24 words from a 2,000-word
+ * vocabulary. Prints build time, p50/p99/max per query shape and the worst
+ * median; the target is well under a millisecond, but nothing is asserted.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ProductSearchBenchmarkTest
+ */
+@Tag("benchmark")
+public class ProductSearchBenchmarkTest {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int MIN_DESCRIPTION_WORDS = 4;
+    private static final int MAX_DESCRIPTION_WORDS = 24;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    private static final String[] ADJECTIVES = {"rustic", "modern", "compact", "deluxe", "classic", "vintage",
+        "ergonomic", "portable", "premium", "sleek", "sturdy", "foldable", "minimal", "handmade", "industrial",
+        "elegant", "cozy", "smart", "wireless", "adjustable"};
+    private static final String[] MATERIALS = {"oak", "walnut", "pine", "steel", "aluminium", "glass", "leather",
+        "cotton", "linen", "bamboo", "marble", "ceramic", "velvet", "wool", "brass"};
+    private static final String[] NOUNS = {"table", "chair", "desk", "lamp", "shelf", "bookcase", "sofa", "stool",
+        "bench", "cabinet", "dresser", "mirror", "rug", "cushion", "blanket", "vase", "clock", "bed", "wardrobe",
+        "sideboard", "ottoman", "armchair", "nightstand", "headboard", "planter", "tray", "basket", "lantern",
+        "curtain", "pillow", "mattress", "hammock", "easel", "trolley", "coatrack", "bar", "crib", "futon",
+        "recliner", "console"};
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "ze", "pa",
+        "di", "fu", "gro", "ble", "tra"};
+
+    // Keeps the JIT from discarding the work
+    private static long sink;
+
+    @Test
+    public void queriesStayUnderAMillisecond() {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(2_000, random);
+
+        long begin = System.nanoTime();
+        ProductSearchIndex.Builder builder = new ProductSearchIndex.Builder();
+        StringBuilder description = new StringBuilder();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            String name = pick(ADJECTIVES, random) + " " + pick(MATERIALS, random) + " " + pick(NOUNS, random);
+            description.setLength(0);
+            int words = MIN_DESCRIPTION_WORDS + random.nextInt(MAX_DESCRIPTION_WORDS - MIN_DESCRIPTION_WORDS + 1);
+            for (int w = 0; w < words; w++) {
+                description.append(pick(vocabulary, random)).append(' ');
+            }
+            builder.add(id, name, description.toString());
+        }
+        ProductSearchIndex index = builder.build();
+        System.out.printf("built %d products, %d terms in %d ms%n",
+            index.size(), index.termCount(), (System.nanoTime() - begin) / 1_000_000);
+
+        List<String> shapes = List.of(
+            "lamp",                          // one name term, ~25k products
+            "oak",                           // one common name term, ~67k products
+            "walnut bookcase",               // two terms, intersected
+            "vintage brass lantern",         // three terms
+            vocabulary[7],                   // one description term, ~6k products
+            "oak ta",                        // typeahead: prefix on the last token
+            "wi");                           // prefix only
+        // Warm up every shape first: compiling for one shape can deoptimise the code tuned for another
+        for (int i = 0; i < WARMUP; i++) {
+            for (String query : shapes) {
+                sink += index.search(query, 20).size();
+            }
+        }
+        double worstMedian = 0;
+        for (String query : shapes) {
+            worstMedian = Math.max(worstMedian, measure(index, query));
+        }
+        System.out.printf("worst median %.3f ms%n", worstMedian);
+    }
+
+    /**
+     * @return the median in milliseconds
+     */
+    private static double measure(ProductSearchIndex index, String query) {
+        long[] nanos = new long[ITERATIONS];
+        int hits = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            hits = index.search(query, 20).size();
+            nanos[i] = System.nanoTime() - begin;
+        }
+        sink += hits;
+        Arrays.sort(nanos);
+        double median = nanos[ITERATIONS / 2] / 1e6;
+        System.out.printf("%-24s %3d hits  p50 %7.3f ms  p99 %7.3f ms  max %7.3f ms%n",
+            '"' + query + '"', hits, median, nanos[ITERATIONS * 99 / 100] / 1e6, nanos[ITERATIONS - 1] / 1e6);
+        return median;
+    }
+
+    private static String[] vocabulary(int size, Random random) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            // Distinct: the index of the word in base SYLLABLES.length, plus one random syllable
+            StringBuilder word = new StringBuilder();
+            for (int n = i; n > 0 || word.length() == 0; n /= SYLLABLES.length) {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+            }
+            words[i] = word.append(pick(SYLLABLES, random)).toString();
+        }
+        return words;
+    }
+
+    private static String pick(String[] words, Random random) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,66 @@
+package com.mycompany.service;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tokens are ANDed, the last one also matches as a prefix, name hits outrank
+ * description hits, and puts and removals on a built index show up in queries.
+ */
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductSearchIndex.Builder()
+            .add(1, "Oak Table", "Solid oak dining table")
+            .add(2, "Walnut Table", "Dining table with oak inlay")
+            .add(3, "Oak Chair", "Matches the oak table")
+            .add(4, "Desk Lamp", "LED, dimmable")
+            .build();
+    }
+
+    @Test
+    public void tokensAreCaseAndPunctuationInsensitive() {
+        assertEquals(List.of("led", "dimmable"), ProductSearchIndex.tokenize("LED, dimmable!"));
+        assertEquals(List.of(4L), index.search("LAMP", 10));
+    }
+
+    @Test
+    public void everyTokenMustMatchAndNameHitsRankFirst() {
+        assertEquals(List.of(1L, 3L, 2L), index.search("oak table", 10));
+        assertEquals(List.of(2L), index.search("walnut oak", 10));
+        assertTrue(index.search("oak lamp", 10).isEmpty());
+    }
+
+    @Test
+    public void lastTokenMatchesAsAPrefix() {
+        assertEquals(List.of(3L), index.search("oak cha", 10));
+        assertEquals(List.of(4L), index.search("dimm", 10));
+        // Only the last token is a prefix
+        assertTrue(index.search("cha oak", 10).isEmpty());
+    }
+
+    @Test
+    public void limitKeepsTheBestHits() {
+        assertEquals(List.of(1L, 3L), index.search("oak", 2));
+    }
+
+    @Test
+    public void putsAndRemovalsAreVisible() {
+        index.put(5, "Oak Bookshelf", null);
+        index.put(4, "Floor Lamp", "Tall");
+        index.remove(3);
+
+        assertEquals(List.of(5L), index.search("bookshelf", 10));
+        assertTrue(index.search("desk", 10).isEmpty());
+        assertEquals(List.of(4L), index.search("floor", 10));
+        assertTrue(index.search("chair", 10).isEmpty());
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.service;
+
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.event.ProductsChangedEvent;
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Every node keeps its own index: catalog changes are broadcast, and a change
+ * announced by another node is read back from the database.
+ */
+public class ProductSearchServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCatalogService productCatalogService = mock(ProductCatalogService.class);
+    private final StringRedisTemplate channel = mock(StringRedisTemplate.class);
+    private CacheInvalidationBus bus;
+    private ProductSearchService service;
+
+    @BeforeEach
+    public void setUp() {
+        bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "redisTemplate", channel);
+        when(productRepository.findTextAfter(any(), any())).thenReturn(List.of());
+
+        service = new ProductSearchService();
+        ReflectionTestUtils.setField(service, "productRepository", productRepository);
+        ReflectionTestUtils.setField(service, "productCatalogService", productCatalogService);
+        ReflectionTestUtils.setField(service, "invalidationBus", bus);
+        service.init();
+    }
+
+    @Test
+    public void changeOnAnotherNodeIsReadBackIntoTheIndex() {
+        when(productRepository.findByIdIn(List.of(5L))).thenReturn(List.of(product(5L, "Oak Table")));
+
+        bus.onMessage(new DefaultMessage(CacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+            ("other-node|" + ProductSearchService.BUS_NAME + "|5").getBytes(StandardCharsets.UTF_8)), null);
+        service.search("oak", 10);
+
+        verify(productCatalogService).getProducts(List.of(5L));
+    }
+
+    @Test
+    public void catalogChangesAreBroadcastAndStockChangesAreNot() {
+        when(productRepository.findByIdIn(any())).thenReturn(List.of(product(5L, "Oak Table")));
+
+        service.onProductsChanged(ProductsChangedEvent.stock(List.of(5L)));
+        verify(channel, never()).convertAndSend(anyString(), anyString());
+
+        service.onProductsChanged(new ProductsChangedEvent(List.of(5L), false));
+        verify(channel).convertAndSend(eq(CacheInvalidationBus.CHANNEL),
+            endsWith("|" + ProductSearchService.BUS_NAME + "|5"));
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product(name, "Solid wood", BigDecimal.TEN, 1);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,130 @@
+package com.mycompany.service;
+
+import com.mycompany.event.OrderEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Publisher confirms against a mocked RabbitTemplate; each send is answered
+ * with an ack, a nack or nothing at all.
+ */
+public class RabbitMQProducerServiceTest {
+
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final List<CorrelationData> sent = new ArrayList<>();
+    // Per send (0-based): TRUE acks, FALSE nacks, null never answers
+    private IntFunction<Boolean> broker = send -> true;
+    private RabbitMQProducerService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new RabbitMQProducerService();
+        ReflectionTestUtils.setField(service, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(service, "orderEventSerializer", new OrderEventSerializer(OrderEventSerializer.Format.BINARY));
+        ReflectionTestUtils.setField(service, "orderMetrics", new OrderMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "confirms", true);
+        ReflectionTestUtils.setField(service, "maxInFlight", MAX_IN_FLIGHT);
+        ReflectionTestUtils.setField(service, "maxRetries", 2);
+        ReflectionTestUtils.setField(service, "confirmTimeoutMs", 200L);
+        service.init();
+
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            Boolean ack = broker.apply(sent.size());
+            sent.add(correlation);
+            if (ack != null) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            }
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void ackedBatchReturnsAndFreesTheWindow() throws Exception {
+        service.sendBatch(events(3));
+
+        assertEquals(3, sent.size());
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+    }
+
+    @Test
+    public void nackedMessagesAreRepublishedAlone() throws Exception {
+        broker = send -> send != 1;
+
+        service.sendBatch(events(3));
+
+        // Three sends, then only the nacked second event again
+        assertEquals(4, sent.size());
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+    }
+
+    @Test
+    public void nacksBeyondMaxRetriesFailTheBatch() {
+        broker = send -> false;
+
+        assertThrows(AmqpException.class, () -> service.sendBatch(events(1)));
+        assertEquals(3, sent.size());
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+    }
+
+    @Test
+    public void missingConfirmFailsTheBatchAndReleasesItsPermits() {
+        broker = send -> send == 0 ? true : null;
+
+        assertThrows(TimeoutException.class, () -> service.sendBatch(events(3)));
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+
+        // A confirm arriving after the batch gave up does not release a second time
+        sent.get(2).getFuture().complete(new CorrelationData.Confirm(true, null));
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+    }
+
+    @Test
+    public void fullWindowFailsTheWholeBatchWithoutLeakingPermits() throws Exception {
+        broker = send -> null;
+
+        assertThrows(TimeoutException.class, () -> service.sendBatch(events(MAX_IN_FLIGHT + 2)));
+        assertEquals(MAX_IN_FLIGHT, sent.size());
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+
+        // The next batch gets the whole window again
+        broker = send -> true;
+        service.sendBatch(events(MAX_IN_FLIGHT));
+        assertEquals(MAX_IN_FLIGHT, window().availablePermits());
+    }
+
+    private Semaphore window() {
+        return (Semaphore) ReflectionTestUtils.getField(service, "confirmWindow");
+    }
+
+    private static List<OrderEvent> events(int count) {
+        List<OrderEvent> events = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            OrderEvent event = new OrderEvent();
+            event.setEventType(OrderEvent.ORDER_CREATED);
+            event.setOrderId(id);
+            events.add(event);
+        }
+        return events;
+    }
+}
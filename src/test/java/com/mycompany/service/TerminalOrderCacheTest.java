@@ -0,0 +1,56 @@
+package com.mycompany.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.cache.TwoLevelCache;
+import com.mycompany.dto.response.OrderResponse;
+import com.mycompany.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Only DELIVERED and CANCELLED orders are kept, and lookups are counted for the hit ratio.
+ */
+public class TerminalOrderCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TerminalOrderCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new TerminalOrderCache();
+        ReflectionTestUtils.setField(cache, "redisEnabled", false);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "orderMetrics", new OrderMetrics(registry));
+        cache.init();
+    }
+
+    @Test
+    public void keepsOnlyTerminalOrders() {
+        cache.put(order(1L, OrderStatus.SHIPPED), 2);
+        cache.put(order(2L, OrderStatus.DELIVERED), 3);
+        cache.put(order(3L, OrderStatus.CANCELLED), 1);
+
+        assertTrue(cache.get(1L).isEmpty());
+        assertEquals(3L, cache.get(2L).orElseThrow().getVersion());
+        assertEquals(OrderStatus.CANCELLED, cache.get(3L).orElseThrow().getOrder().getStatus());
+        assertEquals(2.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+    }
+
+    private static OrderResponse order(Long id, OrderStatus status) {
+        return new OrderResponse(id, 1L, BigDecimal.TEN, status, LocalDateTime.of(2024, 1, 1, 9, 0), List.of());
+    }
+
+    private double requests(String result) {
+        return registry.get("order_service_cache_requests_total").tag("cache", "terminal-orders")
+            .tag("tier", TwoLevelCache.TIER_LOCAL).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,122 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.cache.EntityTag;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.OrderRepository;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import com.mycompany.service.ProductService;
+import com.mycompany.service.TerminalOrderException;
+import com.mycompany.service.VersionConflictException;
+import java.math.BigDecimal;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Row versions behind ETags and If-Match: every way of changing a row moves
+ * its version, including the bulk stock SQL that bypasses Hibernate, and a
+ * stale expected version is refused. Terminal orders refuse status changes.
+ */
+@DataJpaTest
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class, ProductServiceImpl.class})
+public class EntityVersionTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void bulkStockUpdatesBumpTheProductVersion() {
+        Long id = productRepository.save(new Product("Lamp", "d", BigDecimal.TEN, 100)).getId();
+        entityManager.flush();
+        assertEquals(0L, productService.getProductVersion(id).orElseThrow());
+
+        productRepository.decrementStockIfAvailable(Map.of(id, 1));
+        assertTrue(productRepository.applyStockDeltas(Map.of(id, 5)).isEmpty());
+        productRepository.adjustStockIfAvailable(id, -2);
+        entityManager.clear();
+
+        assertEquals(3L, productService.getProductVersion(id).orElseThrow());
+        assertTrue(productService.getProductVersion(-1L).isEmpty());
+    }
+
+    @Test
+    public void staleIfMatchIsRefused() {
+        Product product = productRepository.save(new Product("Desk", "d", BigDecimal.TEN, 5));
+        User user = userRepository.save(new User("Versioned", "versioned@example.com"));
+        Long orderId = orderRepository.save(new Order(user, BigDecimal.TEN, OrderStatus.PENDING)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThrows(VersionConflictException.class,
+            () -> orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED, 7L));
+        orderService.updateOrderStatus(orderId, OrderStatus.CONFIRMED, 0L);
+        entityManager.flush();
+        assertEquals(1L, orderService.getOrderVersion(orderId).orElseThrow());
+
+        Product details = new Product("Desk", "taller", BigDecimal.TEN, 5);
+        assertThrows(VersionConflictException.class,
+            () -> productService.updateProduct(product.getId(), details, 3L));
+    }
+
+    @Test
+    public void terminalOrdersNoLongerChange() {
+        User user = userRepository.save(new User("Delivered", "delivered@example.com"));
+        Long orderId = orderRepository.save(new Order(user, BigDecimal.TEN, OrderStatus.DELIVERED)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThrows(TerminalOrderException.class,
+            () -> orderService.updateOrderStatus(orderId, OrderStatus.SHIPPED, null));
+        // Repeating the terminal status is a no-op, not an error
+        orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED, null);
+        entityManager.flush();
+        assertEquals(0L, orderService.getOrderVersion(orderId).orElseThrow());
+    }
+
+    @Test
+    public void weakTagsRoundTrip() {
+        assertEquals("W/\"4\"", EntityTag.weak(4));
+        assertEquals(4L, EntityTag.version("W/\"4\""));
+        assertEquals(4L, EntityTag.version("\"4\""));
+        assertTrue(EntityTag.matches("\"3\", W/\"4\"", EntityTag.weak(4)));
+        assertFalse(EntityTag.matches("W/\"5\"", EntityTag.weak(4)));
+        assertThrows(IllegalArgumentException.class, () -> EntityTag.version("\"abc\""));
+    }
+}
@@ -0,0 +1,121 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.model.Product;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.service.InventoryService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test: many threads hammer the same SKUs through the atomic
+ * reservation paths. Stock must never go negative and no update may be lost.
+ */
+@DataJpaTest
+@Import(InventoryServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryServiceImplConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void adjustStockNeverOversellsASingleSku() throws Exception {
+        int initialStock = 100;
+        Long productId = productRepository.save(new Product("Hot", "hot sku", BigDecimal.ONE, initialStock)).getId();
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (inventoryService.adjustStock(productId, -1).isPresent()) {
+                successes.incrementAndGet();
+            }
+            return null;
+        });
+
+        int finalStock = productRepository.findById(productId).orElseThrow().getStock();
+        assertTrue(finalStock >= 0);
+        assertEquals(initialStock, successes.get());
+        assertEquals(initialStock - successes.get(), finalStock);
+    }
+
+    @Test
+    public void basketReservationsAreAllOrNothingAndDeadlockFree() throws Exception {
+        int initialStock = 150;
+        Long first = productRepository.save(new Product("First", "a", BigDecimal.ONE, initialStock)).getId();
+        Long second = productRepository.save(new Product("Second", "b", BigDecimal.ONE, initialStock)).getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger turn = new AtomicInteger();
+
+        runConcurrently(() -> {
+            // Alternate the basket order so an unordered lock strategy would deadlock
+            Map<Long, Integer> basket = turn.getAndIncrement() % 2 == 0
+                ? Map.of(first, 1, second, 2)
+                : Map.of(second, 2, first, 1);
+            Boolean reserved = transactionTemplate.execute(status -> inventoryService.reserveStock(basket));
+            if (Boolean.TRUE.equals(reserved)) {
+                successes.incrementAndGet();
+            }
+            return null;
+        });
+
+        int firstStock = productRepository.findById(first).orElseThrow().getStock();
+        int secondStock = productRepository.findById(second).orElseThrow().getStock();
+        assertTrue(firstStock >= 0);
+        assertTrue(secondStock >= 0);
+        assertEquals(initialStock / 2, successes.get());
+        assertEquals(initialStock - successes.get(), firstStock);
+        assertEquals(initialStock - 2 * successes.get(), secondStock);
+    }
+
+    private void runConcurrently(Callable<Void> attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        attempt.call();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.model.Order;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of createOrders for chunk sizes 1, 50 and 500.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=OrderBatchBenchmarkTest
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderBatchBenchmarkTest {
+
+    private static final int ORDERS = 5_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void compareChunkSizes() {
+        User user = userRepository.save(new User("Partner", "partner@example.com"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(new Product("Replay " + i, "benchmark", BigDecimal.TEN, 1_000_000));
+        }
+        products = productRepository.saveAll(products);
+
+        OrderServiceImpl target = AopTestUtils.getTargetObject(orderService);
+        for (int chunkSize : new int[] {1, 50, 500}) {
+            ReflectionTestUtils.setField(target, "batchChunkSize", chunkSize);
+            List<CreateOrderRequest> requests = requests(user.getId(), products);
+
+            long begin = System.nanoTime();
+            List<Optional<Order>> results = orderService.createOrders(requests);
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            assertTrue(results.stream().allMatch(Optional::isPresent));
+            System.out.printf("chunkSize=%d orders=%d %.0f orders/s%n", chunkSize, ORDERS, ORDERS / seconds);
+        }
+    }
+
+    private static List<CreateOrderRequest> requests(Long userId, List<Product> products) {
+        List<CreateOrderRequest> requests = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            List<OrderItemRequest> items = new ArrayList<>();
+            for (int line = 0; line < 3; line++) {
+                OrderItemRequest item = new OrderItemRequest();
+                item.setProductId(products.get((i + line) % products.size()).getId());
+                item.setQuantity(1);
+                items.add(item);
+            }
+            CreateOrderRequest request = new CreateOrderRequest();
+            request.setUserId(userId);
+            request.setItems(items);
+            requests.add(request);
+        }
+        return requests;
+    }
+}
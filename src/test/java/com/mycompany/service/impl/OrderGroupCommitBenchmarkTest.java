@@ -0,0 +1,143 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Orders/sec and p99 latency of concurrent createOrder calls with one
+ * transaction per request versus group commit. H2 does not fsync like
+ * Postgres, so the gap on a real database is larger than reported here.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=OrderGroupCommitBenchmarkTest
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderGroupCommitBenchmarkTest {
+
+    private static final int CLIENTS = 64;
+    private static final int ORDERS_PER_CLIENT = 100;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void compareGroupCommit() throws Exception {
+        User user = userRepository.save(new User("Peak", "peak@example.com"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(new Product("Peak " + i, "benchmark", BigDecimal.TEN, 1_000_000));
+        }
+        products = productRepository.saveAll(products);
+
+        OrderServiceImpl target = AopTestUtils.getTargetObject(orderService);
+        run("per-request", user, products);
+
+        ReflectionTestUtils.setField(target, "groupCommitEnabled", true);
+        target.init();
+        try {
+            run("group-commit", user, products);
+        } finally {
+            target.shutdown();
+            ReflectionTestUtils.setField(target, "groupCommitEnabled", false);
+            target.init();
+        }
+    }
+
+    private void run(String mode, User user, List<Product> products) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[ORDERS_PER_CLIENT];
+                    start.await();
+                    for (int i = 0; i < ORDERS_PER_CLIENT; i++) {
+                        CreateOrderRequest request = request(user.getId(), products, client * ORDERS_PER_CLIENT + i);
+                        long begin = System.nanoTime();
+                        if (orderService.createOrder(request).isEmpty()) {
+                            throw new IllegalStateException("Order rejected");
+                        }
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return latencies;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            long[] all = new long[CLIENTS * ORDERS_PER_CLIENT];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get(10, TimeUnit.MINUTES);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+                offset += latencies.length;
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            Arrays.sort(all);
+            double p99Millis = all[(int) (all.length * 0.99) - 1] / 1_000_000.0;
+            System.out.printf("%-12s clients=%d %.0f orders/s p99=%.2f ms%n", mode, CLIENTS, all.length / seconds, p99Millis);
+            assertTrue(all.length == CLIENTS * ORDERS_PER_CLIENT);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CreateOrderRequest request(Long userId, List<Product> products, int seed) {
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int line = 0; line < 3; line++) {
+            OrderItemRequest item = new OrderItemRequest();
+            item.setProductId(products.get((seed * 7 + line) % products.size()).getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setItems(items);
+        return request;
+    }
+}
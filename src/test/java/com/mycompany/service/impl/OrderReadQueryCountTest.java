@@ -0,0 +1,137 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.SqlStatementCounter;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderItem;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.OrderRepository;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Regression test for the order read endpoints: reading orders and
+ * everything OrderController puts in an OrderResponse (user id, lines,
+ * product ids) takes a fixed number of statements, however many orders and
+ * lines there are.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mycompany.SqlStatementCounter")
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class})
+public class OrderReadQueryCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void listTakesTwoStatementsForAnyPageSize() {
+        seed(1, 1);
+        assertEquals(2, statements(() -> orderService.getOrders(null, 50)));
+
+        seed(30, 5);
+        assertEquals(2, statements(() -> orderService.getOrders(null, 50)));
+    }
+
+    @Test
+    public void byIdTakesOneStatementForAnyNumberOfLines() {
+        seed(1, 20);
+        Long id = orderRepository.findAll().get(0).getId();
+        entityManager.clear();
+
+        assertEquals(1, statements(() -> orderService.getOrderById(id).orElseThrow()));
+    }
+
+    @Test
+    public void byUserTakesThreeStatementsForAnyPageSize() {
+        User user = seed(25, 4);
+        entityManager.clear();
+
+        // The user existence probe, the page of orders and one query for all their lines
+        assertEquals(3, statements(() -> orderService.getOrdersByUser(user.getId(), null, 50).orElseThrow()));
+    }
+
+    @Test
+    public void versionLookupTakesOneStatementAndLoadsNothing() {
+        seed(1, 20);
+        Long id = orderRepository.findAll().get(0).getId();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+
+        assertEquals(0L, orderService.getOrderVersion(id).orElseThrow());
+        assertEquals(1, SqlStatementCounter.count());
+        assertFalse(entityManager.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil()
+            .isLoaded(entityManager.getEntityManager().getReference(Order.class, id)));
+    }
+
+    /**
+     * Runs the read and then touches what toOrderResponse touches, with an
+     * empty persistence context. Any lazy load shows up as an extra statement.
+     */
+    private long statements(Supplier<?> read) {
+        entityManager.clear();
+        SqlStatementCounter.reset();
+        Object result = read.get();
+        List<?> orders = result instanceof List ? (List<?>) result : List.of(result);
+        for (Object value : orders) {
+            Order order = (Order) value;
+            order.getUser().getId();
+            for (OrderItem item : order.getOrderItems()) {
+                item.getProduct().getId();
+                item.getQuantity();
+            }
+        }
+        return SqlStatementCounter.count();
+    }
+
+    private User seed(int orders, int linesPerOrder) {
+        User user = userRepository.save(new User("Reader " + orders, "reader" + orders + "@example.com"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < linesPerOrder; i++) {
+            products.add(productRepository.save(new Product("R" + i, "d", BigDecimal.ONE, 100)));
+        }
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order(user, BigDecimal.valueOf(linesPerOrder), OrderStatus.PENDING);
+            for (Product product : products) {
+                order.getOrderItems().add(new OrderItem(order, product, 1, BigDecimal.ONE));
+            }
+            orderRepository.save(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return user;
+    }
+}
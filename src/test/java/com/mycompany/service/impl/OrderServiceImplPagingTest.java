@@ -0,0 +1,118 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.User;
+import com.mycompany.repository.OrderRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import com.mycompany.service.PageCursor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walking every page with the returned cursors must visit each order exactly
+ * once, newest first, even when many orders share the same timestamp.
+ */
+@DataJpaTest
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class})
+public class OrderServiceImplPagingTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void pagesCoverEveryOrderOnceNewestFirst() {
+        User user = userRepository.save(new User("Pager", "pager@example.com"));
+        User other = userRepository.save(new User("Other", "other@example.com"));
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            Order order = new Order(i % 4 == 0 ? other : user, BigDecimal.ONE, OrderStatus.PENDING);
+            // Groups of three share a timestamp so the id tie-breaker matters
+            order.setOrderDate(base.plusMinutes(i / 3));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+
+        List<Order> all = walk(null, 5);
+        assertEquals(23, all.size());
+        assertEquals(23, all.stream().map(Order::getId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            Order previous = all.get(i - 1);
+            Order current = all.get(i);
+            assertTrue(previous.getOrderDate().isAfter(current.getOrderDate())
+                || (previous.getOrderDate().equals(current.getOrderDate()) && previous.getId() > current.getId()));
+        }
+
+        List<Order> mine = walk(user.getId(), 4);
+        Set<Long> ids = new HashSet<>();
+        mine.forEach(order -> ids.add(order.getId()));
+        assertEquals(17, ids.size());
+        assertTrue(mine.stream().allMatch(order -> order.getUser().getId().equals(user.getId())));
+    }
+
+    @Test
+    public void unknownUserHasNoPage() {
+        assertFalse(orderService.getOrdersByUser(-1L, null, 10).isPresent());
+    }
+
+    @Test
+    public void userWithoutOrdersHasAnEmptyPage() {
+        User user = userRepository.save(new User("New", "new@example.com"));
+        assertTrue(orderService.getOrdersByUser(user.getId(), null, 10).orElseThrow().isEmpty());
+    }
+
+    @Test
+    public void tamperedCursorIsRejected() {
+        String cursor = PageCursor.encode(LocalDateTime.of(2024, 1, 1, 0, 0), 7L);
+        assertEquals(7L, PageCursor.decode(cursor).getId());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertEquals(PageCursor.MAX_PAGE_SIZE, PageCursor.pageSize(10_000));
+    }
+
+    private List<Order> walk(Long userId, int size) {
+        List<Order> seen = new ArrayList<>();
+        PageCursor cursor = null;
+        while (true) {
+            List<Order> rows = userId == null
+                ? orderService.getOrders(cursor, size + 1)
+                : orderService.getOrdersByUser(userId, cursor, size + 1).orElseThrow();
+            List<Order> page = rows.size() > size ? rows.subList(0, size) : rows;
+            seen.addAll(page);
+            if (rows.size() <= size) {
+                return seen;
+            }
+            Order last = page.get(page.size() - 1);
+            cursor = PageCursor.decode(PageCursor.encode(last.getOrderDate(), last.getId()));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.SqlStatementCounter;
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.model.Order;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regression test: the number of reads and updates issued by createOrder
+ * must not grow with the number of lines in the basket.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mycompany.SqlStatementCounter")
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class})
+public class OrderServiceImplQueryCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void statementCountIsConstantAcrossBasketSizes() {
+        long single = nonInsertStatementsForBasket(1);
+        long medium = nonInsertStatementsForBasket(10);
+        long large = nonInsertStatementsForBasket(40);
+
+        assertEquals(single, medium);
+        assertEquals(single, large);
+    }
+
+    @Test
+    public void stockIsDecrementedForEveryLine() {
+        User user = userRepository.save(new User("Stock", "stock@example.com"));
+        Product first = productRepository.save(new Product("A", "a", BigDecimal.ONE, 5));
+        Product second = productRepository.save(new Product("B", "b", BigDecimal.TEN, 5));
+        entityManager.flush();
+        entityManager.clear();
+
+        Optional<Order> order = orderService.createOrder(request(user.getId(), List.of(
+            item(first.getId(), 2),
+            item(second.getId(), 1),
+            item(first.getId(), 1)
+        )));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(order.isPresent());
+        assertEquals(0, new BigDecimal("13").compareTo(order.get().getTotal()));
+        assertEquals(2, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(4, productRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+
+    private long nonInsertStatementsForBasket(int lines) {
+        User user = userRepository.save(new User("User " + lines, "user" + lines + "@example.com"));
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            Product product = productRepository.save(new Product("P" + i, "d", BigDecimal.ONE, 100));
+            items.add(item(product.getId(), 1));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+
+        assertTrue(orderService.createOrder(request(user.getId(), items)).isPresent());
+        entityManager.flush();
+
+        return SqlStatementCounter.count();
+    }
+
+    private static CreateOrderRequest request(Long userId, List<OrderItemRequest> items) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setItems(items);
+        return request;
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
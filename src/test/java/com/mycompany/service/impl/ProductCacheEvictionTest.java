@@ -0,0 +1,103 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.cache.CacheInvalidationBus;
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.InventoryService;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import com.mycompany.service.ProductCatalogService;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The product cache drops a product once an order or a stock change that
+ * touched it commits, so the next read sees the new stock. Local tier only.
+ */
+@DataJpaTest(properties = "products.cache.redis.enabled=false")
+@Import({ProductCatalogService.class, OrderServiceImpl.class, InventoryServiceImpl.class, ProductServiceImpl.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductCacheEvictionTest {
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @MockBean
+    private CacheInvalidationBus invalidationBus;
+
+    @MockBean
+    private RedisTemplate<String, byte[]> cacheRedisTemplate;
+
+    @Test
+    public void createOrderCommitEvictsTheOrderedProducts() {
+        Long userId = userRepository.save(new User("Buyer", "buyer@example.com")).getId();
+        Long productId = productRepository.save(new Product("Lamp", "d", BigDecimal.TEN, 10)).getId();
+        assertEquals(10, stock(productId));
+
+        orderService.createOrder(order(userId, productId, 3)).orElseThrow();
+
+        assertEquals(7, stock(productId));
+    }
+
+    @Test
+    public void stockChangesEvictOnCommit() {
+        Long productId = productRepository.save(new Product("Desk", "d", BigDecimal.TEN, 10)).getId();
+        assertEquals(10, stock(productId));
+
+        inventoryService.adjustStock(productId, 5).orElseThrow();
+        assertEquals(15, stock(productId));
+
+        inventoryService.setStock(productId, 4).orElseThrow();
+        assertEquals(4, stock(productId));
+    }
+
+    private int stock(Long productId) {
+        return productCatalogService.getProduct(productId).orElseThrow().getStock();
+    }
+
+    private static CreateOrderRequest order(Long userId, Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setItems(List.of(item));
+        return request;
+    }
+}
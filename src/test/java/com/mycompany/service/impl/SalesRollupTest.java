@@ -0,0 +1,177 @@
+package com.mycompany.service.impl;
+
+import com.mycompany.dto.request.CreateOrderRequest;
+import com.mycompany.dto.request.OrderItemRequest;
+import com.mycompany.dto.response.DailySalesResponse;
+import com.mycompany.model.Order;
+import com.mycompany.model.OrderStatus;
+import com.mycompany.model.Product;
+import com.mycompany.model.User;
+import com.mycompany.repository.ProductRepository;
+import com.mycompany.repository.UserRepository;
+import com.mycompany.service.OrderEventOutbox;
+import com.mycompany.service.OrderMetrics;
+import com.mycompany.service.OrderService;
+import com.mycompany.service.SalesRebuild;
+import com.mycompany.service.SalesRollupService;
+import com.mycompany.service.UserService;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The sales rollups follow createOrder, cancellations and user deletion in
+ * the same transaction, and a rebuild from orders arrives at the same totals.
+ * Not transactional: rebuild chunks run on their own threads and must see
+ * committed orders.
+ */
+@DataJpaTest
+@Import({OrderServiceImpl.class, InventoryServiceImpl.class, UserServiceImpl.class, SalesRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SalesRollupTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private OrderEventOutbox orderEventOutbox;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    @Test
+    public void ordersAreRolledUpAndCancellationsReversed() {
+        LocalDate today = LocalDate.now();
+        User user = userRepository.save(new User("Rollup", "rollup@example.com"));
+        Long a = productRepository.save(new Product("A", "a", new BigDecimal("2.00"), 100)).getId();
+        Long b = productRepository.save(new Product("B", "b", new BigDecimal("5.00"), 100)).getId();
+        DailySalesResponse before = dayTotals(salesRollupService.getDailySales(today, today));
+
+        create(user, item(a, 2), item(b, 1));
+        // Two lines of the same product: still one order for that product
+        create(user, item(a, 1), item(a, 1));
+        Order cancelled = create(user, item(b, 3));
+        orderService.updateOrderStatus(cancelled.getId(), OrderStatus.CANCELLED, null);
+
+        DailySalesResponse after = dayTotals(salesRollupService.getDailySales(today, today));
+        assertTotals(before.getRevenue().add(new BigDecimal("13.00")), before.getUnits() + 5, before.getOrders() + 2, after);
+        assertTotals(new BigDecimal("8.00"), 4, 2, dayTotals(salesRollupService.getProductDailySales(a, today, today)));
+        assertTotals(new BigDecimal("5.00"), 1, 1, dayTotals(salesRollupService.getProductDailySales(b, today, today)));
+    }
+
+    @Test
+    public void rebuildMatchesIncrementalTotals() {
+        LocalDate today = LocalDate.now();
+        User user = userRepository.save(new User("Rebuild", "rebuild@example.com"));
+        Long a = productRepository.save(new Product("C", "c", new BigDecimal("3.50"), 100)).getId();
+        Long b = productRepository.save(new Product("D", "d", new BigDecimal("1.25"), 100)).getId();
+        create(user, item(a, 1), item(b, 4));
+        Order cancelled = create(user, item(a, 2));
+        create(user, item(b, 2));
+        orderService.updateOrderStatus(cancelled.getId(), OrderStatus.CANCELLED, null);
+
+        DailySalesResponse day = dayTotals(salesRollupService.getDailySales(today, today));
+        DailySalesResponse productA = dayTotals(salesRollupService.getProductDailySales(a, today, today));
+        DailySalesResponse productB = dayTotals(salesRollupService.getProductDailySales(b, today, today));
+
+        // Rebuilds stop before today, so run this one as if it were tomorrow.
+        // Several chunks, only one of which has orders
+        ReflectionTestUtils.setField(salesRollupService, "clock", Clock.offset(Clock.systemDefaultZone(), Duration.ofDays(1)));
+        SalesRebuild rebuild = salesRollupService.startRebuild(today.minusDays(20), today).orElseThrow();
+        rebuild.join();
+        ReflectionTestUtils.setField(salesRollupService, "clock", Clock.systemDefaultZone());
+
+        assertEquals(SalesRebuild.Status.DONE, rebuild.getStatus());
+        assertEquals(3, rebuild.getChunks());
+
+        assertTotals(day.getRevenue(), day.getUnits(), day.getOrders(),
+            dayTotals(salesRollupService.getDailySales(today, today)));
+        assertTotals(productA.getRevenue(), productA.getUnits(), productA.getOrders(),
+            dayTotals(salesRollupService.getProductDailySales(a, today, today)));
+        assertTotals(productB.getRevenue(), productB.getUnits(), productB.getOrders(),
+            dayTotals(salesRollupService.getProductDailySales(b, today, today)));
+        assertTotals(new BigDecimal("3.50"), 1, 1, productA);
+    }
+
+    @Test
+    public void rebuildRangesReachingTodayOrTooLongAreRefused() {
+        LocalDate today = LocalDate.now();
+
+        assertThrows(IllegalArgumentException.class, () -> salesRollupService.startRebuild(today.minusDays(3), today));
+        assertThrows(IllegalArgumentException.class,
+            () -> salesRollupService.startRebuild(today.minusDays(400), today.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> salesRollupService.startRebuild(today.minusDays(1), today.minusDays(2)));
+    }
+
+    @Test
+    public void deletingAUserTakesTheirOrdersOutOfTheRollups() {
+        LocalDate today = LocalDate.now();
+        User user = userRepository.save(new User("Deleted", "deleted@example.com"));
+        Long a = productRepository.save(new Product("E", "e", new BigDecimal("4.00"), 100)).getId();
+        Long b = productRepository.save(new Product("F", "f", new BigDecimal("1.50"), 100)).getId();
+        DailySalesResponse before = dayTotals(salesRollupService.getDailySales(today, today));
+        create(user, item(a, 2));
+        create(user, item(a, 1), item(b, 3));
+        Order cancelled = create(user, item(a, 5));
+        orderService.updateOrderStatus(cancelled.getId(), OrderStatus.CANCELLED, null);
+
+        userService.deleteUser(user.getId());
+
+        assertTotals(before.getRevenue(), before.getUnits(), before.getOrders(),
+            dayTotals(salesRollupService.getDailySales(today, today)));
+        assertTotals(BigDecimal.ZERO, 0, 0, dayTotals(salesRollupService.getProductDailySales(a, today, today)));
+        assertTotals(BigDecimal.ZERO, 0, 0, dayTotals(salesRollupService.getProductDailySales(b, today, today)));
+    }
+
+    private Order create(User user, OrderItemRequest... items) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(user.getId());
+        request.setItems(List.of(items));
+        return orderService.createOrder(request).orElseThrow();
+    }
+
+    // The single day of a one-day range, or zeros if it had no sales
+    private static DailySalesResponse dayTotals(List<DailySalesResponse> days) {
+        assertEquals(days.isEmpty() ? 0 : 1, days.size());
+        return days.isEmpty() ? new DailySalesResponse(null, BigDecimal.ZERO, 0L, 0L) : days.get(0);
+    }
+
+    private static void assertTotals(BigDecimal revenue, long units, long orders, DailySalesResponse actual) {
+        assertEquals(0, revenue.compareTo(actual.getRevenue()), "revenue " + actual.getRevenue());
+        assertEquals(units, actual.getUnits());
+        assertEquals(orders, actual.getOrders());
+    }
+
+    private static OrderItemRequest item(Long productId, int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}